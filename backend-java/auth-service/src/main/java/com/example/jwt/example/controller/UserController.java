@@ -4,6 +4,8 @@ import com.example.jwt.example.dto.response.ApiResponse;
 import com.example.jwt.example.dto.UserProfile;
 import com.example.jwt.example.dto.UserSummary;
 import com.example.jwt.example.dto.request.UpdateProfileRequest;
+import com.example.jwt.example.dto.request.UserBatchLookupRequest;
+import com.example.jwt.example.exception.BadRequestException;
 import com.example.jwt.example.model.User;
 import com.example.jwt.example.repository.UserRepository;
 import com.example.jwt.example.service.FileStorageService;
@@ -21,8 +23,13 @@ import com.example.jwt.example.dto.UserDetailDto;
 import jakarta.validation.Valid;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
@@ -212,6 +219,30 @@ public class UserController {
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * API nội bộ, tra cứu nhiều user trong một lần gọi (theo ID và/hoặc username, tối đa 1000)
+     * Dùng cho inbox của Chat-Service và các màn hình quản trị của Scholarship-Service.
+     * User không tồn tại đơn giản là vắng mặt trong kết quả.
+     */
+    @PostMapping("/internal/users/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<UserDetailDto>> getUserDetailsBatch(@Valid @RequestBody UserBatchLookupRequest request) {
+        Set<Long> ids = request.getIds() != null ? new LinkedHashSet<>(request.getIds()) : Set.of();
+        Set<String> usernames = request.getUsernames() != null ? new LinkedHashSet<>(request.getUsernames()) : Set.of();
+        if (ids.size() + usernames.size() > UserBatchLookupRequest.MAX_LOOKUP) {
+            throw new BadRequestException("Tối đa " + UserBatchLookupRequest.MAX_LOOKUP + " ID/username mỗi lần tra cứu");
+        }
+
+        Map<Long, UserDetailDto> result = new LinkedHashMap<>();
+        if (!ids.isEmpty()) {
+            userRepository.findDetailsByIdIn(ids).forEach(dto -> result.put(dto.getId(), dto));
+        }
+        if (!usernames.isEmpty()) {
+            userRepository.findDetailsByUsernameIn(usernames).forEach(dto -> result.putIfAbsent(dto.getId(), dto));
+        }
+        return ResponseEntity.ok(new ArrayList<>(result.values()));
+    }
+
     /**
      * Upload avatar image
      * POST /api/users/avatar
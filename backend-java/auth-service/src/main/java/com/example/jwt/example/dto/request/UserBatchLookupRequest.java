@@ -0,0 +1,22 @@
+package com.example.jwt.example.dto.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Tra cứu nhiều user trong một lần gọi (API nội bộ): theo ID, theo username, hoặc cả hai.
+ * Tổng số ID + username tối đa MAX_LOOKUP.
+ */
+@Data
+public class UserBatchLookupRequest {
+
+    public static final int MAX_LOOKUP = 1000;
+
+    @Size(max = MAX_LOOKUP)
+    private List<Long> ids;
+
+    @Size(max = MAX_LOOKUP)
+    private List<String> usernames;
+}
@@ -96,6 +96,11 @@ public class User implements UserDetails {
     @Builder.Default
     private String subscriptionType = "FREE"; // FREE, PREMIUM, ENTERPRISE
 
+    // Tăng mỗi khi identity (id/organizationId/trạng thái) đổi; ghi vào token (claim uiv) và event user.identity.changed
+    @Column(name = "identity_version", nullable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private Integer identityVersion = 0;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -1,37 +1,16 @@
 package com.example.jwt.example.repository;
 
 import com.example.jwt.example.model.AuditLog;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.*;
-import org.springframework.data.repository.query.Param;
-import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+import java.util.List;
 
-    @Query("SELECT a FROM AuditLog a WHERE " +
-            "(:username IS NULL OR LOWER(a.username) LIKE LOWER(CONCAT('%', :username, '%'))) AND " +
-            "(:action IS NULL OR a.action = :action) AND " +
-            "(:startDate IS NULL OR a.timestamp >= :startDate) AND " +
-            "(:endDate IS NULL OR a.timestamp <= :endDate)")
-    Page<AuditLog> filterLogs(@Param("username") String username,
-                              @Param("action") String action,
-                              @Param("startDate") LocalDateTime startDate,
-                              @Param("endDate") LocalDateTime endDate,
-                              Pageable pageable);
+/**
+ * Bảng audit_logs cũ: chỉ còn dùng để chuyển dữ liệu sang bảng theo tháng (AuditLegacyMigrator).
+ * Audit log mới được ghi/đọc qua AuditLogWriter và AuditQueryPlanner.
+ */
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
 
-    @Query("""
-        SELECT a FROM AuditLog a
-        WHERE a.userId = :userId
-          AND (:action IS NULL OR a.action = :action)
-          AND (:from IS NULL OR a.timestamp >= :from)
-          AND (:to IS NULL OR a.timestamp <= :to)
-    """)
-    Page<AuditLog> findByUserFilters(
-            @Param("userId") Long userId,
-            @Param("action") String action,
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to,
-            Pageable pageable
-    );
+    List<AuditLog> findByOrderByIdAsc(Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package com.example.jwt.example.repository;
 
+import com.example.jwt.example.dto.UserDetailDto;
 import com.example.jwt.example.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -23,6 +26,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByVerificationCode(String verificationCode);
 
+    /**
+     * Projection (id, username, organizationId) cho API tra cứu hàng loạt - không nạp roles (EAGER)
+     */
+    @Query("SELECT new com.example.jwt.example.dto.UserDetailDto(u.id, u.username, u.organizationId) " +
+           "FROM User u WHERE u.id IN :ids")
+    List<UserDetailDto> findDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.jwt.example.dto.UserDetailDto(u.id, u.username, u.organizationId) " +
+           "FROM User u WHERE u.username IN :usernames")
+    List<UserDetailDto> findDetailsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
     @Query("""
         SELECT DISTINCT u FROM User u JOIN u.roles r
         WHERE (:role IS NULL OR r.name = :role)
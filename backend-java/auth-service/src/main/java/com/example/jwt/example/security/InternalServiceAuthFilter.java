@@ -0,0 +1,55 @@
+package com.example.jwt.example.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Xác thực service-to-service cho các API /api/internal/**: service gọi gửi header X-Service-Token
+ * (app.internal.service-token, dùng chung giữa các service) thay vì mượn JWT của một user.
+ * Token rỗng = tắt, khi đó các API nội bộ vẫn chỉ nhận JWT như trước.
+ */
+@Slf4j
+public class InternalServiceAuthFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_NAME = "X-Service-Token";
+    private static final String INTERNAL_PATH_PREFIX = "/api/internal/";
+
+    private final byte[] serviceToken;
+
+    public InternalServiceAuthFilter(String serviceToken) {
+        this.serviceToken = StringUtils.hasText(serviceToken) ? serviceToken.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return serviceToken == null || !request.getRequestURI().startsWith(INTERNAL_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HEADER_NAME);
+        if (StringUtils.hasText(presented)) {
+            if (MessageDigest.isEqual(serviceToken, presented.getBytes(StandardCharsets.UTF_8))) {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        "internal-service", null, List.of(new SimpleGrantedAuthority("ROLE_SERVICE"))));
+            } else {
+                log.warn("Rejected invalid service token for {}", request.getRequestURI());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.jwt.example.security;
 
+import com.example.jwt.example.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -8,17 +9,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.stream.Collectors;
@@ -34,6 +30,8 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration}")
     private long jwtExpirationInMs;
 
+    private final JwtVerifier jwtVerifier;
+
     private SecretKey key;
     private final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS256;
 
@@ -42,69 +40,81 @@ public class JwtTokenProvider {
         key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
     }
 
+    /**
+     * Claim identity cho các service khác (Scholarship, Chat) đọc trực tiếp từ token,
+     * không phải gọi /api/internal/user/{username}. Tăng IDENTITY_CLAIMS_VERSION khi đổi ý nghĩa các claim.
+     * CLAIM_USER_IDENTITY_VERSION là User.identityVersion lúc cấp token: service khác bỏ qua claim của token
+     * có version cũ hơn version nhận qua event user.identity.changed.
+     */
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ORGANIZATION_ID = "oid";
+    public static final String CLAIM_IDENTITY_VERSION = "idv";
+    public static final String CLAIM_USER_IDENTITY_VERSION = "uiv";
+    public static final int IDENTITY_CLAIMS_VERSION = 1;
+
     public String generateToken(Authentication authentication) {
-        String username = authentication.getName();
+        return buildToken(authentication.getName(), authentication.getAuthorities(), null);
+    }
+
+    /**
+     * Token kèm claim identity (userId, organizationId) - dùng khi đăng nhập và refresh token.
+     */
+    public String generateToken(Authentication authentication, User user) {
+        return buildToken(user.getUsername(), authentication.getAuthorities(), user);
+    }
+
+    /**
+     * Token mới từ dữ liệu hiện tại trong DB (roles, organizationId) - dùng cho refresh token,
+     * nhờ đó thay đổi hồ sơ/tổ chức được phản ánh vào token mới.
+     */
+    public String generateToken(User user) {
+        return buildToken(user.getUsername(), user.getAuthorities(), user);
+    }
 
+    private String buildToken(String username, Collection<? extends GrantedAuthority> grantedAuthorities, User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
-        final String authorities = authentication.getAuthorities().stream()
+        final String authorities = grantedAuthorities.stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(username)
                 .claim("roles", authorities)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key, SIGNATURE_ALGORITHM)
-                .compact();
+                .expiration(expiryDate);
+        if (user != null && user.getId() != null) {
+            builder.claim(CLAIM_IDENTITY_VERSION, IDENTITY_CLAIMS_VERSION)
+                    .claim(CLAIM_USER_ID, user.getId())
+                    .claim(CLAIM_USER_IDENTITY_VERSION, user.getIdentityVersion() != null ? user.getIdentityVersion() : 0);
+            if (user.getOrganizationId() != null) {
+                builder.claim(CLAIM_ORGANIZATION_ID, user.getOrganizationId());
+            }
+        }
+        return builder.signWith(key, SIGNATURE_ALGORITHM).compact();
     }
 
     public String getUserNameFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = jwtVerifier.parseClaims(token);
+        if (claims == null) {
+            throw new IllegalArgumentException("Invalid JWT token");
+        }
         return claims.getSubject();
     }
 
+    // Xác thực + cache nằm ở JwtVerifier (dùng chung với JwtAuthenticationFilter)
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        String username = claims.getSubject();
-
-        Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get("roles").toString().split(","))
-                        .filter(auth -> !auth.trim().isEmpty())
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-
-        UserDetails principal = new User(username, "", authorities);
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        Authentication authentication = jwtVerifier.authenticate(token);
+        if (authentication == null) {
+            throw new IllegalArgumentException("Invalid JWT token");
+        }
+        return authentication;
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(authToken);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token");
-        } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
-        }
-        return false;
+        return jwtVerifier.authenticate(authToken) != null;
     }
+
     public String generateTokenFromUsername(String username) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
@@ -0,0 +1,145 @@
+package com.example.jwt.example.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Xác thực JWT một lần duy nhất cho mỗi token.
+ *
+ * - JwtParser (thread-safe) được dựng một lần khi khởi động thay vì mỗi lần gọi.
+ * - Token hợp lệ được cache theo SHA-256 của token -> Authentication dựng sẵn, hết hạn đúng lúc token hết hạn;
+ *   các request sau với cùng token không phải kiểm HMAC, parse JSON hay tách roles lại.
+ * - Cache có giới hạn: khi đầy thì bỏ các mục đã hết hạn, vẫn đầy thì xóa hết.
+ */
+@Component
+@Slf4j
+public class JwtVerifier {
+
+    private record CachedAuthentication(Authentication authentication, long expiresAtMillis) {
+    }
+
+    private final JwtParser parser;
+    private final int maxCachedTokens;
+    private final Map<String, CachedAuthentication> cache = new ConcurrentHashMap<>();
+
+    public JwtVerifier(@Value("${app.jwt.secret}") String jwtSecret,
+                       @Value("${app.jwt.cache.max-size:50000}") int maxCachedTokens) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.maxCachedTokens = maxCachedTokens;
+    }
+
+    /**
+     * Trả về Authentication nếu token hợp lệ (đúng chữ ký, còn hạn), ngược lại null.
+     */
+    public Authentication authenticate(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String digest = digest(token);
+        CachedAuthentication cached = cache.get(digest);
+        long now = System.currentTimeMillis();
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                return cached.authentication();
+            }
+            cache.remove(digest, cached);
+        }
+
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        Authentication authentication = toAuthentication(claims, token);
+        if (authentication == null) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            if (cache.size() >= maxCachedTokens) {
+                evictExpired(now);
+            }
+            cache.put(digest, new CachedAuthentication(authentication, expiration.getTime()));
+        }
+        return authentication;
+    }
+
+    /**
+     * Kiểm tra chữ ký + hạn và trả về claims; null nếu token không hợp lệ (không dùng cache).
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (SecurityException ex) {
+            log.error("Invalid JWT signature");
+        } catch (MalformedJwtException ex) {
+            log.error("Invalid JWT token");
+        } catch (ExpiredJwtException ex) {
+            log.error("Expired JWT token");
+        } catch (UnsupportedJwtException ex) {
+            log.error("Unsupported JWT token");
+        } catch (IllegalArgumentException ex) {
+            log.error("JWT claims string is empty");
+        }
+        return null;
+    }
+
+    private Authentication toAuthentication(Claims claims, String token) {
+        Object roles = claims.get("roles");
+        if (roles == null) {
+            // Token không mang roles (ví dụ refresh token) không dùng để xác thực request
+            log.error("JWT has no roles claim");
+            return null;
+        }
+        List<GrantedAuthority> authorities =
+                Arrays.stream(roles.toString().split(","))
+                        .map(String::trim)
+                        .filter(auth -> !auth.isEmpty())
+                        .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                        .toList();
+        UserDetails principal = new User(claims.getSubject(), "", authorities);
+        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    }
+
+    private void evictExpired(long now) {
+        cache.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        if (cache.size() >= maxCachedTokens) {
+            cache.clear();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.jwt.example.security;
 
 import com.example.jwt.example.service.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -25,11 +26,16 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
-    private final JwtTokenProvider tokenProvider;
+    private final JwtVerifier jwtVerifier;
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(tokenProvider);
+        return new JwtAuthenticationFilter(jwtVerifier);
+    }
+
+    @Bean
+    public InternalServiceAuthFilter internalServiceAuthFilter(@Value("${app.internal.service-token:}") String serviceToken) {
+        return new InternalServiceAuthFilter(serviceToken);
     }
 
     @Bean
@@ -51,7 +57,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, InternalServiceAuthFilter internalServiceAuthFilter) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(request -> {
@@ -78,6 +84,7 @@ public class SecurityConfig {
 
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(internalServiceAuthFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 }
\ No newline at end of file
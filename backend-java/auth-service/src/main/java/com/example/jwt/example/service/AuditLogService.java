@@ -1,32 +1,46 @@
 package com.example.jwt.example.service;
 
 import com.example.jwt.example.model.AuditLog;
-import com.example.jwt.example.repository.AuditLogRepository;
+import com.example.jwt.example.service.audit.AuditEvent;
+import com.example.jwt.example.service.audit.AuditLogWriter;
+import com.example.jwt.example.service.audit.AuditQueryPlanner;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
 public class AuditLogService {
 
-    private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditQueryPlanner auditQueryPlanner;
 
+    /**
+     * Ghi audit log bất đồng bộ qua AuditLogWriter (không thêm INSERT vào transaction của nghiệp vụ).
+     * Nếu đang trong transaction, log chỉ được đưa đi sau khi transaction commit (rollback thì không ghi).
+     */
     public void logAction(Long userId, String username, String action, String target, String details) {
-        AuditLog log = AuditLog.builder()
-                .userId(userId)
-                .username(username)
-                .action(action)
-                .target(target)
-                .details(details)
-                .timestamp(LocalDateTime.now())
-                .build();
-        auditLogRepository.save(log);
+        AuditEvent event = new AuditEvent(userId, username, action, target, details, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditLogWriter.submit(event);
+                }
+            });
+        } else {
+            auditLogWriter.submit(event);
+        }
     }
 
+    /**
+     * Đọc từ các bảng theo tháng; chỉ những tháng giao với [startDate, endDate] được truy vấn.
+     */
     public Page<AuditLog> getAuditLogs(String username, String action, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        return auditLogRepository.filterLogs(username, action, startDate, endDate, pageable);
+        return auditQueryPlanner.query(new AuditQueryPlanner.Filter(null, username, action, startDate, endDate), pageable);
     }
     public Page<AuditLog> getLogsByUser(
             Long userId,
@@ -37,6 +51,6 @@ public class AuditLogService {
             int size
     ) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending());
-        return auditLogRepository.findByUserFilters(userId, action, from, to, pageable);
+        return auditQueryPlanner.query(new AuditQueryPlanner.Filter(userId, null, action, from, to), pageable);
     }
 }
\ No newline at end of file
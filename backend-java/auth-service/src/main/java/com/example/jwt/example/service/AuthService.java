@@ -75,7 +75,7 @@ public class AuthService {
     SecurityContextHolder.getContext().setAuthentication(authentication);
 
     // Generate tokens
-    String jwt = tokenProvider.generateToken(authentication);
+    String jwt = tokenProvider.generateToken(authentication, user);
     RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getId());
 
     auditLogService.logAction(
@@ -150,7 +150,8 @@ public class AuthService {
                 .map(refreshTokenService::verifyExpiration)
                 .map(RefreshToken::getUser)
                 .map(user -> {
-                    String newToken = tokenProvider.generateTokenFromUsername(user.getUsername());
+                    // Token mới lấy roles + userId/organizationId hiện tại từ DB (claim identity luôn mới sau refresh)
+                    String newToken = tokenProvider.generateToken(user);
                     log.info("Access token refreshed for user: {}", user.getUsername());
                     return new JwtAuthenticationResponse(newToken, requestRefreshToken);
                 })
@@ -39,6 +39,7 @@ public class OrganizationRequestService {
     private final OrganizationRepository organizationRepository;
     private final RoleRepository roleRepository;
     private final OrganizationService organizationService;
+    private final UserEventPublisher userEventPublisher;
 
     /**
      * User tạo request trở thành employer
@@ -145,6 +146,7 @@ public class OrganizationRequestService {
         // Link user to organization
         user.setOrganizationId(organization.getId());
         userRepository.save(user);
+        userEventPublisher.publishIdentityChanged(user);
 
         // Update request status
         request.setStatus("APPROVED");
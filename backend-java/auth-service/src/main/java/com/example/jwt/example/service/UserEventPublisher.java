@@ -0,0 +1,66 @@
+package com.example.jwt.example.service;
+
+import com.example.jwt.example.config.RabbitMQConfig;
+import com.example.jwt.example.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Publish event user.identity.changed khi id/username/organizationId/trạng thái của user thay đổi,
+ * để các service khác (Scholarship, Chat) xóa cache identity của user đó.
+ *
+ * Mỗi lần publish tăng User.identityVersion (ghi cùng transaction với thay đổi) và gửi kèm version mới:
+ * consumer lưu version này bền vững và bỏ qua claim identity của token cấp với version cũ hơn
+ * (client lấy token mới qua /api/auth/refresh).
+ *
+ * Khi được gọi trong transaction, event chỉ được gửi sau khi transaction commit: consumer nạp lại identity
+ * ngay khi nhận event, nên gửi trước commit sẽ làm họ cache lại dữ liệu cũ; rollback thì không gửi gì.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserEventPublisher {
+
+    public static final String USER_IDENTITY_CHANGED = "user.identity.changed";
+
+    private final RabbitTemplate rabbitTemplate;
+
+    public void publishIdentityChanged(User user) {
+        int identityVersion = (user.getIdentityVersion() != null ? user.getIdentityVersion() : 0) + 1;
+        user.setIdentityVersion(identityVersion);
+
+        // Chụp giá trị ngay (entity có thể bị thay đổi tiếp trong transaction)
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", user.getId());
+        payload.put("username", user.getUsername());
+        payload.put("organizationId", user.getOrganizationId());
+        payload.put("identityVersion", identityVersion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(user.getId(), payload);
+                }
+            });
+        } else {
+            send(user.getId(), payload);
+        }
+    }
+
+    private void send(Long userId, Map<String, Object> payload) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, USER_IDENTITY_CHANGED, payload);
+            log.info("Published {} event for user ID: {}", USER_IDENTITY_CHANGED, userId);
+        } catch (Exception e) {
+            // Không chặn nghiệp vụ chính; cache phía consumer vẫn hết hạn theo TTL
+            log.error("Failed to publish {} event for user ID: {}", USER_IDENTITY_CHANGED, userId, e);
+        }
+    }
+}
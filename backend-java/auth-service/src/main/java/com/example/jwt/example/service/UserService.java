@@ -33,6 +33,7 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final AuditLogService auditLogService;
     private final RefreshTokenService refreshTokenService;
+    private final UserEventPublisher userEventPublisher;
 
     /**
      * Tao user moi voi role USER
@@ -138,6 +139,7 @@ public class UserService {
         // Delete user (user_roles will be auto-deleted by JPA cascade)
         userRepository.delete(user);
         log.info("Deleted user: {}", user.getUsername());
+        userEventPublisher.publishIdentityChanged(user);
     }
 
     /**
@@ -147,6 +149,7 @@ public class UserService {
         User user = getUserById(id);
         user.setEnabled(!user.getEnabled());
         User updatedUser = userRepository.save(user);
+        userEventPublisher.publishIdentityChanged(updatedUser);
 
         String action = updatedUser.getEnabled() ? "UNLOCK_USER" : "LOCK_USER";
         String message = updatedUser.getEnabled() ? "User account unlocked" : "User account locked";
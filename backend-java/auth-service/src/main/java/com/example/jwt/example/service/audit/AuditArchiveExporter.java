@@ -0,0 +1,188 @@
+package com.example.jwt.example.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Job định kỳ xuất các bucket cũ hơn retain-months ra file NDJSON nén (gzip) rồi DROP bảng.
+ *
+ * 1. RENAME bảng thành audit_archiving_YYYYMM: event ghi muộn vào tháng đó tạo bảng mới thay vì rơi vào bảng
+ *    đang xuất (nếu không, dòng chèn giữa COUNT(*) và DROP sẽ mất).
+ * 2. Đọc bảng đã tách theo ID (keyset, từng lô page-size dòng) và ghi ra file tạm - không giữ cả bảng trong bộ nhớ.
+ * 3. fsync, kiểm tra số dòng đã ghi bằng COUNT(*) của bảng, rồi rename thành audit_logs_YYYYMM.ndjson.gz.
+ * 4. Chỉ DROP bảng khi file đã bền vững và khớp số dòng; nếu không thì giữ bảng đã tách, lần chạy sau xuất lại.
+ *
+ * Chỉ bật trên MỘT node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.audit.archive.enabled", havingValue = "true")
+@Slf4j
+public class AuditArchiveExporter {
+
+    private static final String FILE_SUFFIX = ".ndjson.gz";
+
+    private final AuditBucketManager bucketManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path archiveDir;
+    private final int retainMonths;
+    private final int pageSize;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public AuditArchiveExporter(AuditBucketManager bucketManager,
+                                JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${app.audit.archive.dir:./data/audit-archive}") String archiveDir,
+                                @Value("${app.audit.archive.retain-months:12}") int retainMonths,
+                                @Value("${app.audit.archive.page-size:5000}") int pageSize) {
+        this.bucketManager = bucketManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.archiveDir = Paths.get(archiveDir).toAbsolutePath();
+        this.retainMonths = retainMonths;
+        this.pageSize = pageSize;
+    }
+
+    @Scheduled(cron = "${app.audit.archive.cron:0 0 4 * * *}")
+    public void archiveOldBuckets() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Previous audit archive run is still in progress, skipping");
+            return;
+        }
+        try {
+            // Bảng đã tách ở lần chạy trước nhưng chưa xuất xong; tháng còn lỗi thì chưa tách thêm bảng mới
+            Set<YearMonth> unfinished = new HashSet<>();
+            for (YearMonth month : bucketManager.detachedBuckets()) {
+                if (!tryArchive(month, false)) {
+                    unfinished.add(month);
+                }
+            }
+            YearMonth oldestRetained = YearMonth.now().minusMonths(retainMonths);
+            for (YearMonth month : bucketManager.refreshBuckets()) {
+                if (!month.isBefore(oldestRetained)) {
+                    break;
+                }
+                if (!unfinished.contains(month)) {
+                    tryArchive(month, true);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean tryArchive(YearMonth month, boolean detach) {
+        try {
+            if (detach) {
+                archiveBucket(month);
+            } else {
+                archiveDetached(month);
+            }
+            return true;
+        } catch (Exception e) {
+            // Bảng (đã tách) vẫn còn nguyên, lần chạy sau thử lại
+            log.error("Failed to archive audit bucket {}: {}", AuditBucketManager.tableName(month), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Tách một bucket, xuất ra file rồi DROP bảng. Trả về đường dẫn file.
+     */
+    Path archiveBucket(YearMonth month) throws IOException {
+        bucketManager.detachBucket(month);
+        return archiveDetached(month);
+    }
+
+    private Path archiveDetached(YearMonth month) throws IOException {
+        String table = AuditBucketManager.detachedTableName(month);
+        Files.createDirectories(archiveDir);
+        Path target = uniqueTarget(AuditBucketManager.tableName(month));
+        Path tmp = archiveDir.resolve(target.getFileName() + ".tmp");
+
+        long exported = export(table, tmp);
+        Long expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        if (expected == null || expected != exported) {
+            Files.deleteIfExists(tmp);
+            throw new IllegalStateException("exported " + exported + " rows but table has " + expected);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        bucketManager.dropDetached(month);
+        log.info("Archived {} audit logs from {} to {}", exported, AuditBucketManager.tableName(month), target);
+        return target;
+    }
+
+    private long export(String table, Path tmp) throws IOException {
+        String sql = "SELECT " + AuditBucketManager.COLUMNS + " FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?";
+        long lines = 0;
+        long lastId = Long.MIN_VALUE;
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(file, 64 * 1024));
+             Writer writer = new OutputStreamWriter(gzip, StandardCharsets.UTF_8)) {
+            List<Map<String, Object>> rows;
+            while (!(rows = jdbcTemplate.queryForList(sql, lastId, pageSize)).isEmpty()) {
+                for (Map<String, Object> row : rows) {
+                    writer.write(objectMapper.writeValueAsString(toRecord(row)));
+                    writer.write('\n');
+                    lastId = ((Number) row.get("id")).longValue();
+                    lines++;
+                }
+            }
+            writer.flush();
+            gzip.finish();
+            file.getFD().sync();
+        }
+        return lines;
+    }
+
+    private static Map<String, Object> toRecord(Map<String, Object> row) {
+        // Key của queryForList phân biệt hoa/thường tùy driver, nên đọc qua map không phân biệt (LinkedCaseInsensitiveMap)
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", row.get("id"));
+        record.put("userId", row.get("user_id"));
+        record.put("username", row.get("username"));
+        record.put("action", row.get("action"));
+        record.put("target", row.get("target"));
+        record.put("details", row.get("details"));
+        Object loggedAt = row.get("logged_at");
+        record.put("timestamp", loggedAt instanceof Timestamp ts ? ts.toLocalDateTime().toString() : loggedAt);
+        return record;
+    }
+
+    /**
+     * Bucket có thể được tạo lại sau khi đã lưu trữ (event spill cũ được nạp lại), khi đó thêm hậu tố -2, -3, ...
+     */
+    private Path uniqueTarget(String table) {
+        Path target = archiveDir.resolve(table + FILE_SUFFIX);
+        for (int i = 2; Files.exists(target); i++) {
+            target = archiveDir.resolve(table + "-" + i + FILE_SUFFIX);
+        }
+        return target;
+    }
+}
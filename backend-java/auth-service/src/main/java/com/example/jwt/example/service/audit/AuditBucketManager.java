@@ -0,0 +1,207 @@
+package com.example.jwt.example.service.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Audit log được chia theo tháng thành các bảng audit_logs_YYYYMM (tương đương partition theo tháng,
+ * nhưng chạy được cả trên MySQL lẫn H2 và tạo được lúc chạy thay vì dựa vào ddl-auto).
+ *
+ * Mỗi bảng có index (logged_at), (user_id, logged_at), (action, logged_at) cho các kiểu lọc của trang admin.
+ * Bảng tháng cũ được tách ra (RENAME), xuất ra file rồi DROP nguyên bảng (AuditArchiveExporter) thay vì DELETE từng dòng.
+ */
+@Component
+@Slf4j
+public class AuditBucketManager {
+
+    static final String TABLE_PREFIX = "audit_logs_";
+    static final String DETACHED_PREFIX = "audit_archiving_";
+    static final String COLUMNS = "id, user_id, username, action, target, details, logged_at";
+
+    private static final Pattern TABLE_PATTERN = Pattern.compile("(?i)" + TABLE_PREFIX + "(\\d{6})");
+    private static final Pattern DETACHED_PATTERN = Pattern.compile("(?i)" + DETACHED_PREFIX + "(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NavigableSet<YearMonth> buckets = new ConcurrentSkipListSet<>();
+
+    public AuditBucketManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        loadExistingBuckets();
+    }
+
+    public static YearMonth bucketOf(LocalDateTime time) {
+        return YearMonth.from(time);
+    }
+
+    public static String tableName(YearMonth month) {
+        return TABLE_PREFIX + month.format(SUFFIX);
+    }
+
+    public static String detachedTableName(YearMonth month) {
+        return DETACHED_PREFIX + month.format(SUFFIX);
+    }
+
+    /**
+     * Các bucket hiện có, cũ nhất trước.
+     */
+    public List<YearMonth> buckets() {
+        return List.copyOf(buckets);
+    }
+
+    /**
+     * Đọc lại danh sách bảng audit_logs_% trong DB rồi trả về như buckets(): bucket do instance khác tạo
+     * (hoặc đã bị lưu trữ và DROP ở node chạy archive) chỉ được thấy sau khi đọc lại.
+     */
+    public List<YearMonth> refreshBuckets() {
+        Set<YearMonth> existing = listTables(TABLE_PATTERN);
+        buckets.retainAll(existing);
+        buckets.addAll(existing);
+        return List.copyOf(buckets);
+    }
+
+    /**
+     * Tạo bảng của tháng nếu chưa có; trả về tên bảng.
+     */
+    public String ensureBucket(YearMonth month) {
+        String table = tableName(month);
+        if (buckets.contains(month)) {
+            return table;
+        }
+        synchronized (this) {
+            if (!buckets.contains(month)) {
+                createBucket(table);
+                buckets.add(month);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Ghi các event (cùng tháng) vào bảng của tháng đó bằng một JDBC batch; ids.get(i) là ID của events.get(i).
+     * Bảng phải được tạo (ensureBucket) trước khi mở transaction vì DDL trên MySQL tự commit.
+     */
+    public void insert(YearMonth month, List<Long> ids, List<AuditEvent> events) {
+        String table = ensureBucket(month);
+        String sql = "INSERT INTO " + table + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try {
+            batchInsert(sql, ids, events);
+        } catch (BadSqlGrammarException e) {
+            // Bảng đã bị node archive tách ra (RENAME) sau khi được cache ở đây: quên nó đi để lần ghi lại tạo bảng mới
+            buckets.remove(month);
+            throw e;
+        }
+    }
+
+    private void batchInsert(String sql, List<Long> ids, List<AuditEvent> events) {
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AuditEvent event = events.get(i);
+                ps.setLong(1, ids.get(i));
+                ps.setObject(2, event.userId(), Types.BIGINT);
+                ps.setString(3, event.username());
+                ps.setString(4, event.action());
+                ps.setString(5, event.target());
+                ps.setString(6, event.details());
+                ps.setTimestamp(7, Timestamp.valueOf(event.timestamp()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    /**
+     * Tách bucket khỏi luồng ghi bằng cách RENAME sang audit_archiving_YYYYMM rồi trả về tên mới.
+     * Event mới của tháng đó (nếu có) sẽ tạo lại một bảng audit_logs_YYYYMM trống, nên bảng được xuất
+     * không còn nhận thêm dòng nào giữa lúc đếm và lúc DROP.
+     */
+    public String detachBucket(YearMonth month) {
+        // Bỏ khỏi danh sách trước để truy vấn mới không chọn bucket này nữa
+        buckets.remove(month);
+        String detached = detachedTableName(month);
+        jdbcTemplate.execute("ALTER TABLE " + tableName(month) + " RENAME TO " + detached);
+        log.info("Detached audit bucket {} as {}", tableName(month), detached);
+        return detached;
+    }
+
+    /**
+     * Các bucket đã tách nhưng chưa DROP (lần lưu trữ trước lỗi giữa chừng), cũ nhất trước.
+     */
+    public List<YearMonth> detachedBuckets() {
+        return listTables(DETACHED_PATTERN).stream().sorted().toList();
+    }
+
+    public void dropDetached(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + detachedTableName(month));
+        log.info("Dropped audit bucket {}", detachedTableName(month));
+    }
+
+    private void createBucket(String table) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "id BIGINT NOT NULL PRIMARY KEY, " +
+                "user_id BIGINT, " +
+                "username VARCHAR(255), " +
+                "action VARCHAR(255), " +
+                "target VARCHAR(255), " +
+                "details VARCHAR(2048), " +
+                "logged_at TIMESTAMP NOT NULL)");
+        createIndex("CREATE INDEX idx_" + table + "_ts ON " + table + " (logged_at)");
+        createIndex("CREATE INDEX idx_" + table + "_user_ts ON " + table + " (user_id, logged_at)");
+        createIndex("CREATE INDEX idx_" + table + "_action_ts ON " + table + " (action, logged_at)");
+        log.info("Created audit bucket {}", table);
+    }
+
+    private void createIndex(String ddl) {
+        try {
+            jdbcTemplate.execute(ddl);
+        } catch (Exception e) {
+            // Index đã có (bảng được tạo bởi instance khác hoặc lần chạy trước)
+            log.debug("Skipping audit index DDL: {}", e.getMessage());
+        }
+    }
+
+    private void loadExistingBuckets() {
+        buckets.addAll(listTables(TABLE_PATTERN));
+        log.info("Found {} audit buckets", buckets.size());
+    }
+
+    private Set<YearMonth> listTables(Pattern pattern) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            Set<YearMonth> found = new HashSet<>();
+            try (ResultSet tables = connection.getMetaData()
+                    .getTables(connection.getCatalog(), null, "%", new String[]{"TABLE"})) {
+                while (tables.next()) {
+                    Matcher matcher = pattern.matcher(tables.getString("TABLE_NAME"));
+                    if (matcher.matches()) {
+                        found.add(YearMonth.parse(matcher.group(1), SUFFIX));
+                    }
+                }
+            }
+            return found;
+        });
+    }
+}
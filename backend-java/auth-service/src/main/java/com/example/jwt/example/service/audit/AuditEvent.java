@@ -0,0 +1,14 @@
+package com.example.jwt.example.service.audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng audit log đang chờ ghi (timestamp lấy tại thời điểm gọi logAction, không phải lúc ghi).
+ */
+public record AuditEvent(Long userId,
+                         String username,
+                         String action,
+                         String target,
+                         String details,
+                         LocalDateTime timestamp) {
+}
@@ -0,0 +1,49 @@
+package com.example.jwt.example.service.audit;
+
+/**
+ * Sinh ID audit log theo thời gian (cùng bố cục với ID tin nhắn của chat-service):
+ * 41 bit mili-giây từ 2024-01-01 | 6 bit node | 6 bit sequence.
+ *
+ * Bảng theo tháng không dùng AUTO_INCREMENT nên ID phải do service cấp; ID luôn lớn hơn
+ * các ID IDENTITY cũ của bảng audit_logs nên hai nguồn không bao giờ trùng nhau.
+ */
+class AuditIdGenerator {
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 6;
+    private static final int SEQUENCE_BITS = 6;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private long lastMillis = -1L;
+    private long sequence = 0L;
+
+    AuditIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.audit.node-id must be in range 0.." + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    synchronized long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        if (now < lastMillis) {
+            // Đồng hồ lùi: tiếp tục dùng mốc cũ để ID vẫn tăng dần
+            now = lastMillis;
+        }
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                while (now <= lastMillis) {
+                    Thread.onSpinWait();
+                    now = System.currentTimeMillis() - EPOCH_MILLIS;
+                }
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return (now << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
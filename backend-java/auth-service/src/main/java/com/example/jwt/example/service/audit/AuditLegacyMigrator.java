@@ -0,0 +1,87 @@
+package com.example.jwt.example.service.audit;
+
+import com.example.jwt.example.model.AuditLog;
+import com.example.jwt.example.repository.AuditLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Chuyển các bản ghi cũ trong bảng audit_logs (trước khi chia bucket) sang bảng theo tháng.
+ * Mỗi lô được INSERT vào bucket và DELETE khỏi audit_logs trong cùng một transaction, giữ nguyên ID cũ
+ * (ID cũ là IDENTITY nhỏ, không trùng với ID do AuditIdGenerator sinh). Chạy lại an toàn nếu bị ngắt giữa chừng.
+ */
+@Component
+@Slf4j
+public class AuditLegacyMigrator {
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditBucketManager bucketManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public AuditLegacyMigrator(AuditLogRepository auditLogRepository,
+                               AuditBucketManager bucketManager,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.audit.legacy-migration.chunk-size:1000}") int chunkSize) {
+        this.auditLogRepository = auditLogRepository;
+        this.bucketManager = bucketManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        long moved = 0;
+        try {
+            List<AuditLog> chunk;
+            while (!(chunk = auditLogRepository.findByOrderByIdAsc(PageRequest.of(0, chunkSize))).isEmpty()) {
+                moveChunk(chunk);
+                moved += chunk.size();
+            }
+        } catch (Exception e) {
+            log.warn("Legacy audit log migration stopped after {} rows, will resume on next start: {}", moved, e.getMessage());
+            return;
+        }
+        if (moved > 0) {
+            log.info("Moved {} legacy audit logs into monthly buckets", moved);
+        }
+    }
+
+    private void moveChunk(List<AuditLog> chunk) {
+        Map<YearMonth, List<AuditLog>> byMonth = new TreeMap<>();
+        for (AuditLog auditLog : chunk) {
+            if (auditLog.getTimestamp() == null) {
+                auditLog.setTimestamp(LocalDateTime.now());
+            }
+            byMonth.computeIfAbsent(AuditBucketManager.bucketOf(auditLog.getTimestamp()), m -> new ArrayList<>()).add(auditLog);
+        }
+        byMonth.keySet().forEach(bucketManager::ensureBucket);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            byMonth.forEach((month, logs) -> {
+                List<Long> ids = new ArrayList<>(logs.size());
+                List<AuditEvent> events = new ArrayList<>(logs.size());
+                for (AuditLog auditLog : logs) {
+                    ids.add(auditLog.getId());
+                    events.add(new AuditEvent(auditLog.getUserId(), auditLog.getUsername(), auditLog.getAction(),
+                            auditLog.getTarget(), auditLog.getDetails(), auditLog.getTimestamp()));
+                }
+                bucketManager.insert(month, ids, events);
+            });
+            auditLogRepository.deleteAllByIdInBatch(chunk.stream().map(AuditLog::getId).toList());
+        });
+    }
+}
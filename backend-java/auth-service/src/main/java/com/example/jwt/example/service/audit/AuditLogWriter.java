@@ -0,0 +1,273 @@
+package com.example.jwt.example.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ghi audit log bất đồng bộ: logAction chỉ đưa event vào ring buffer (không lock),
+ * một thread nền gom tối đa batch-size event rồi INSERT bằng JDBC batch trong một transaction
+ * (vào bảng theo tháng audit_logs_YYYYMM, xem AuditBucketManager).
+ *
+ * - Buffer đầy: xử lý theo app.audit.overflow-policy (BLOCK / DROP / SPILL).
+ * - Lô lỗi khi flush: thử lại từng event; event lỗi do dữ liệu (quá dài, trùng khóa...) chuyển sang file
+ *   dead-letter (không nạp lại), lỗi khác (DB không truy cập được) -> cả lô ghi ra file spill và nạp lại khi writer rảnh.
+ * - Tắt service: ngừng nhận, flush hết buffer; phần không ghi được vào DB sẽ nằm trong file spill (đã fsync).
+ */
+@Component
+@Slf4j
+public class AuditLogWriter {
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final AuditSpillFile spillFile;
+    private final AuditBucketManager bucketManager;
+    private final AuditIdGenerator idGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeoutMillis;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    public AuditLogWriter(AuditBucketManager bucketManager,
+                          PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper,
+                          @Value("${app.audit.buffer-capacity:8192}") int bufferCapacity,
+                          @Value("${app.audit.batch-size:500}") int batchSize,
+                          @Value("${app.audit.flush-interval-ms:200}") long flushIntervalMillis,
+                          @Value("${app.audit.overflow-policy:SPILL}") AuditOverflowPolicy overflowPolicy,
+                          @Value("${app.audit.spill-dir:./data/audit-spill}") String spillDir,
+                          @Value("${app.audit.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+                          @Value("${app.audit.node-id:-1}") long nodeId) throws IOException {
+        this.buffer = new AuditRingBuffer<>(bufferCapacity);
+        this.spillFile = new AuditSpillFile(Paths.get(spillDir), objectMapper);
+        this.bucketManager = bucketManager;
+        if (nodeId < 0) {
+            // Không tự suy từ hostname: hai instance có thể băm ra cùng node id và sinh trùng ID audit
+            throw new IllegalStateException(
+                    "app.audit.node-id (AUDIT_NODE_ID) is not configured for this instance; set a unique value 0.."
+                            + AuditIdGenerator.MAX_NODE_ID);
+        }
+        this.idGenerator = new AuditIdGenerator(nodeId);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Transaction riêng: không bao giờ nhập vào transaction của request
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        this.writerThread = new Thread(this::workLoop, "audit-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        log.info("Audit log writer started (capacity={}, batchSize={}, overflowPolicy={})",
+                buffer.capacity(), batchSize, overflowPolicy);
+    }
+
+    /**
+     * Đưa event vào hàng đợi ghi. Không ném lỗi ra cho nghiệp vụ gọi.
+     */
+    public void submit(AuditEvent event) {
+        if (!running) {
+            spill(List.of(event));
+            return;
+        }
+        if (buffer.offer(event)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                while (!buffer.offer(event)) {
+                    if (!running) {
+                        spill(List.of(event));
+                        return;
+                    }
+                    LockSupport.unpark(writerThread);
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+                }
+            }
+            case DROP -> {
+                long count = dropped.incrementAndGet();
+                if (count == 1 || count % 1000 == 0) {
+                    log.warn("Audit buffer full, dropped {} audit events so far", count);
+                }
+            }
+            case SPILL -> spill(List.of(event));
+        }
+    }
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    public long spilledCount() {
+        return spilled.get();
+    }
+
+    public long deadLetteredCount() {
+        return deadLettered.get();
+    }
+
+    public int pendingCount() {
+        return buffer.size();
+    }
+
+    private void workLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            batch.clear();
+            buffer.drainTo(batch, batchSize);
+            if (!batch.isEmpty()) {
+                flush(batch);
+                continue;
+            }
+            if (running) {
+                replaySpill();
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        try {
+            write(batch);
+        } catch (Exception e) {
+            log.error("Failed to write {} audit events, spilling to disk: {}", batch.size(), e.getMessage());
+            spill(batch);
+        }
+    }
+
+    /**
+     * Ghi một lô; nếu lô lỗi thì ghi lại từng event (như MessageIngestionPipeline.writeBatch của chat-service).
+     * Event không bao giờ ghi được vì dữ liệu (DataIntegrityViolationException) đi vào file dead-letter để không
+     * chặn các event khác; lỗi còn lại được ném ra (caller spill / giữ file replaying để thử lại sau).
+     */
+    private void write(List<AuditEvent> batch) {
+        try {
+            insert(batch);
+            return;
+        } catch (RuntimeException batchError) {
+            log.warn("Failed to write batch of {} audit events, retrying one by one: {}",
+                    batch.size(), batchError.getMessage());
+        }
+        for (AuditEvent event : batch) {
+            try {
+                insert(List.of(event));
+            } catch (DataIntegrityViolationException rowError) {
+                deadLetter(event, rowError);
+            }
+        }
+    }
+
+    private void deadLetter(AuditEvent event, Exception error) {
+        log.error("Audit event {} by '{}' can never be written, moving it to the dead-letter file: {}",
+                event.action(), event.username(), error.getMessage());
+        try {
+            spillFile.appendDeadLetter(event);
+            deadLettered.incrementAndGet();
+        } catch (IOException e) {
+            dropped.incrementAndGet();
+            log.error("Could not write audit dead-letter file, event is lost: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Chia lô theo tháng rồi ghi vào bảng audit_logs_YYYYMM tương ứng (cùng một transaction).
+     */
+    private void insert(List<AuditEvent> batch) {
+        Map<YearMonth, List<AuditEvent>> byMonth = new TreeMap<>();
+        for (AuditEvent event : batch) {
+            AuditEvent stamped = event.timestamp() != null ? event
+                    : new AuditEvent(event.userId(), event.username(), event.action(), event.target(),
+                    event.details(), LocalDateTime.now());
+            byMonth.computeIfAbsent(AuditBucketManager.bucketOf(stamped.timestamp()), m -> new ArrayList<>()).add(stamped);
+        }
+        // DDL (nếu tháng mới) phải chạy ngoài transaction
+        byMonth.keySet().forEach(bucketManager::ensureBucket);
+
+        transactionTemplate.executeWithoutResult(status -> byMonth.forEach((month, events) -> {
+            List<Long> ids = new ArrayList<>(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                ids.add(idGenerator.nextId());
+            }
+            bucketManager.insert(month, ids, events);
+        }));
+        written.addAndGet(batch.size());
+    }
+
+    private void replaySpill() {
+        if (!spillFile.hasPending()) {
+            return;
+        }
+        try {
+            int replayed = spillFile.replay(this::write, batchSize);
+            if (replayed > 0) {
+                log.info("Replayed {} spilled audit events into the database", replayed);
+            }
+        } catch (Exception e) {
+            // Giữ file lại, thử lại ở lần rảnh sau
+            log.warn("Audit spill replay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void spill(List<AuditEvent> events) {
+        try {
+            spillFile.append(events);
+            spilled.addAndGet(events.size());
+        } catch (IOException e) {
+            dropped.addAndGet(events.size());
+            log.error("Could not spill {} audit events to disk, they are lost: {}", events.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ngừng nhận event mới, flush hết buffer vào DB; phần còn lại (DB lỗi / quá thời gian) ghi ra file spill.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(shutdownTimeoutMillis);
+
+        List<AuditEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining, Integer.MAX_VALUE);
+        if (!remaining.isEmpty()) {
+            log.warn("Audit writer did not finish in {} ms, spilling {} events", shutdownTimeoutMillis, remaining.size());
+            spill(remaining);
+        }
+        log.info("Audit log writer stopped (written={}, spilled={}, deadLettered={}, dropped={})",
+                written.get(), spilled.get(), deadLettered.get(), dropped.get());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.jwt.example.service.audit;
+
+/**
+ * Cách xử lý khi ring buffer của AuditLogWriter đầy.
+ */
+public enum AuditOverflowPolicy {
+    /** Chờ tới khi writer giải phóng chỗ (không mất log, request có thể chậm lại) */
+    BLOCK,
+    /** Bỏ log và tăng bộ đếm dropped */
+    DROP,
+    /** Ghi ra file spill trên đĩa; writer nạp lại vào DB khi rảnh */
+    SPILL
+}
@@ -0,0 +1,164 @@
+package com.example.jwt.example.service.audit;
+
+import com.example.jwt.example.model.AuditLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Truy vấn audit log trên các bảng theo tháng.
+ *
+ * - Chỉ xét các bucket giao với khoảng [from, to]; tháng nằm ngoài khoảng không bị chạm tới.
+ * - Điều kiện thời gian bị bỏ khi bucket nằm trọn trong khoảng, còn lại chỉ có các điều kiện thực sự được truyền
+ *   (không dùng "(:x IS NULL OR ...)") để MySQL chọn được index (user_id, logged_at) / (action, logged_at) / (logged_at).
+ * - Phân trang: đếm từng bucket (cần cho totalItems), rồi chỉ đọc các bucket chứa khoảng
+ *   [offset, offset + size) theo thứ tự thời gian, mỗi bucket một câu LIMIT/OFFSET.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuditQueryPlanner {
+
+    public record Filter(Long userId, String username, String action, LocalDateTime from, LocalDateTime to) {
+    }
+
+    private record Where(String sql, List<Object> args) {
+    }
+
+    private static final RowMapper<AuditLog> ROW_MAPPER = (rs, rowNum) -> AuditLog.builder()
+            .id(rs.getLong("id"))
+            .userId(rs.getObject("user_id", Long.class))
+            .username(rs.getString("username"))
+            .action(rs.getString("action"))
+            .target(rs.getString("target"))
+            .details(rs.getString("details"))
+            .timestamp(rs.getTimestamp("logged_at").toLocalDateTime())
+            .build();
+
+    private final AuditBucketManager bucketManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    public Page<AuditLog> query(Filter filter, Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("timestamp");
+        boolean ascending = order != null && order.isAscending();
+
+        List<YearMonth> months = prune(filter.from(), filter.to());
+        if (!ascending) {
+            Collections.reverse(months);
+        }
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int size = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<AuditLog> content = new ArrayList<>(Math.min(size, 256));
+        long total = 0;
+        for (YearMonth month : months) {
+            Where where = where(filter, month);
+            long count = count(month, where);
+            if (count == 0) {
+                continue;
+            }
+            long bucketOffset = Math.max(0, offset - total);
+            if (content.size() < size && bucketOffset < count) {
+                int limit = (int) Math.min(size - content.size(), count - bucketOffset);
+                content.addAll(fetch(month, where, ascending, bucketOffset, limit));
+            }
+            total += count;
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Các bucket (cũ nhất trước) có thể chứa bản ghi trong [from, to]. Danh sách bảng được đọc lại mỗi lần
+     * để thấy cả bucket do instance khác tạo (một truy vấn metadata, rẻ so với COUNT trên từng bucket).
+     */
+    List<YearMonth> prune(LocalDateTime from, LocalDateTime to) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month : bucketManager.refreshBuckets()) {
+            if (from != null && !monthEnd(month).isAfter(from)) {
+                continue;
+            }
+            if (to != null && monthStart(month).isAfter(to)) {
+                continue;
+            }
+            months.add(month);
+        }
+        return months;
+    }
+
+    private Where where(Filter filter, YearMonth month) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (filter.userId() != null) {
+            conditions.add("user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.action() != null) {
+            conditions.add("action = ?");
+            args.add(filter.action());
+        }
+        if (filter.username() != null) {
+            conditions.add("LOWER(username) LIKE ?");
+            args.add("%" + filter.username().toLowerCase() + "%");
+        }
+        if (filter.from() != null && filter.from().isAfter(monthStart(month))) {
+            conditions.add("logged_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null && filter.to().isBefore(monthEnd(month))) {
+            conditions.add("logged_at <= ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        String sql = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return new Where(sql, args);
+    }
+
+    private static LocalDateTime monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private static LocalDateTime monthEnd(YearMonth month) {
+        return month.plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    private long count(YearMonth month, Where where) {
+        try {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + AuditBucketManager.tableName(month) + where.sql(),
+                    Long.class, where.args().toArray());
+            return count != null ? count : 0L;
+        } catch (DataAccessException e) {
+            // Bucket vừa bị lưu trữ và DROP giữa lúc truy vấn
+            log.debug("Skipping audit bucket {}: {}", month, e.getMessage());
+            return 0L;
+        }
+    }
+
+    private List<AuditLog> fetch(YearMonth month, Where where, boolean ascending, long offset, int limit) {
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT " + AuditBucketManager.COLUMNS + " FROM " + AuditBucketManager.tableName(month) + where.sql() +
+                " ORDER BY logged_at " + direction + ", id " + direction + " LIMIT ? OFFSET ?";
+        List<Object> args = new ArrayList<>(where.args());
+        args.add(limit);
+        args.add(offset);
+        try {
+            return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+        } catch (DataAccessException e) {
+            log.debug("Skipping audit bucket {}: {}", month, e.getMessage());
+            return List.of();
+        }
+    }
+}
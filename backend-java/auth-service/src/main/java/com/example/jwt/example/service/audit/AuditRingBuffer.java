@@ -0,0 +1,101 @@
+package com.example.jwt.example.service.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring buffer có giới hạn, không dùng lock (nhiều producer / nhiều consumer), theo thuật toán
+ * bounded MPMC queue của Dmitry Vyukov: mỗi ô có một sequence cho biết ô đang trống hay đã có dữ liệu,
+ * producer/consumer chỉ tranh nhau bằng CAS trên vị trí ghi/đọc.
+ *
+ * Dung lượng được làm tròn lên lũy thừa của 2.
+ */
+final class AuditRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    AuditRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Thêm phần tử; trả về false ngay nếu buffer đầy (không chờ).
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = enqueuePosition.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    slots.set(index, element);
+                    sequences.set(index, position + 1); // công bố cho consumer
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // ô này vẫn chưa được đọc từ vòng trước -> đầy
+            } else {
+                Thread.onSpinWait(); // producer khác vừa lấy vị trí này
+            }
+        }
+    }
+
+    /**
+     * Lấy một phần tử, hoặc null nếu buffer rỗng.
+     */
+    E poll() {
+        while (true) {
+            long position = dequeuePosition.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    E element = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, position + mask + 1); // trả ô cho vòng ghi tiếp theo
+                    return element;
+                }
+            } else if (diff < 0) {
+                return null;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Lấy tối đa max phần tử vào target; trả về số phần tử đã lấy.
+     */
+    int drainTo(List<E> target, int max) {
+        int drained = 0;
+        E element;
+        while (drained < max && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Số phần tử ước lượng (chính xác khi không có thao tác đồng thời).
+     */
+    int size() {
+        return (int) Math.max(0, enqueuePosition.get() - dequeuePosition.get());
+    }
+}
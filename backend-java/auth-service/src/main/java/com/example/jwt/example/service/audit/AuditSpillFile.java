@@ -0,0 +1,132 @@
+package com.example.jwt.example.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * File spill (NDJSON, mỗi dòng một AuditEvent) cho các audit log chưa ghi được vào DB:
+ * buffer đầy với policy SPILL, DB lỗi khi flush, hoặc còn sót lại lúc tắt service.
+ *
+ * Khi nạp lại, file được rename thành *.replaying trước (log mới vẫn ghi tiếp vào file spill mới);
+ * file replaying chỉ bị xóa khi mọi dòng đã vào DB. Nếu nạp lại lỗi giữa chừng, lần sau nạp lại
+ * cả file nên một số dòng có thể bị ghi hai lần (chấp nhận được với audit log, không mất log).
+ *
+ * Event không thể ghi vào DB vì dữ liệu (ví dụ details quá dài) được ghi riêng vào audit-dead-letter.ndjson,
+ * file này không bao giờ được nạp lại (xem/sửa thủ công).
+ */
+@Slf4j
+final class AuditSpillFile {
+
+    private final Path spillFile;
+    private final Path replayingFile;
+    private final Path deadLetterFile;
+    private final ObjectMapper objectMapper;
+    private volatile boolean pending;
+
+    AuditSpillFile(Path directory, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(directory);
+        this.spillFile = directory.resolve("audit-spill.ndjson");
+        this.replayingFile = directory.resolve("audit-spill.ndjson.replaying");
+        this.deadLetterFile = directory.resolve("audit-dead-letter.ndjson");
+        this.objectMapper = objectMapper;
+        this.pending = Files.exists(spillFile) || Files.exists(replayingFile);
+        if (pending) {
+            log.warn("Found unflushed audit spill files in {}, will replay them", directory);
+        }
+    }
+
+    boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * Ghi thêm các event vào cuối file spill và fsync trước khi trả về.
+     */
+    synchronized void append(List<AuditEvent> events) throws IOException {
+        write(spillFile, events);
+        pending = true;
+    }
+
+    /**
+     * Ghi event vào file dead-letter (không nạp lại) và fsync.
+     */
+    synchronized void appendDeadLetter(AuditEvent event) throws IOException {
+        write(deadLetterFile, List.of(event));
+    }
+
+    private void write(Path file, List<AuditEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder(events.size() * 160);
+        for (AuditEvent event : events) {
+            lines.append(objectMapper.writeValueAsString(event)).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Nạp lại các event đã spill, gửi cho sink theo lô batchSize. Trả về số event đã nạp lại.
+     * Ném lỗi của sink ra ngoài (file replaying được giữ lại để thử lần sau).
+     */
+    int replay(Consumer<List<AuditEvent>> sink, int batchSize) throws IOException {
+        synchronized (this) {
+            if (!Files.exists(replayingFile)) {
+                if (!Files.exists(spillFile)) {
+                    pending = false;
+                    return 0;
+                }
+                Files.move(spillFile, replayingFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        int replayed = 0;
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayingFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(objectMapper.readValue(line, AuditEvent.class));
+                } catch (IOException e) {
+                    // Dòng cuối có thể bị cắt dở nếu service chết khi đang ghi
+                    log.warn("Skipping unreadable audit spill line: {}", e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    sink.accept(batch);
+                    replayed += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+            replayed += batch.size();
+        }
+        Files.delete(replayingFile);
+        synchronized (this) {
+            pending = Files.exists(spillFile);
+        }
+        return replayed;
+    }
+}
@@ -0,0 +1,44 @@
+package com.edumatch.chat.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hạ tầng RabbitMQ cho chế độ nhiều node (app.chat.cluster.enabled=true).
+ *
+ * Mỗi node có một queue riêng (exclusive, auto-delete) trên exchange chat.delivery.
+ * Routing key "user.{userId}" chỉ được bind khi user có phiên WebSocket trên node đó,
+ * nên bảng binding của exchange chính là danh bạ presence: bản tin chỉ tới đúng node cần.
+ * Node chết thì queue và binding tự biến mất.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.chat.cluster.enabled", havingValue = "true")
+public class ClusterMessagingConfig {
+
+    public static final String DELIVERY_EXCHANGE = "chat.delivery";
+    public static final String USER_ROUTING_PREFIX = "user.";
+    // Cho các kênh không gắn với user cụ thể (gửi tới mọi node)
+    public static final String BROADCAST_ROUTING_KEY = "broadcast";
+
+    @Bean
+    public DirectExchange chatDeliveryExchange() {
+        return new DirectExchange(DELIVERY_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue chatNodeQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("chat.node."));
+    }
+
+    @Bean
+    public Binding chatBroadcastBinding(Queue chatNodeQueue, DirectExchange chatDeliveryExchange) {
+        return BindingBuilder.bind(chatNodeQueue).to(chatDeliveryExchange).with(BROADCAST_ROUTING_KEY);
+    }
+}
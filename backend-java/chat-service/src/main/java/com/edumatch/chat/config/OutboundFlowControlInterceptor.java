@@ -0,0 +1,134 @@
+package com.edumatch.chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kiểm soát luồng gửi ra (clientOutboundChannel) theo từng phiên WebSocket.
+ *
+ * - Đếm số bản tin đang chờ gửi của mỗi phiên (đã vào channel, chưa ghi xong).
+ * - Bản tin có header "coalesce-key" (ví dụ số chưa đọc): mỗi phiên chỉ giữ 1 bản đang chờ;
+ *   bản mới hơn thay nội dung bản đang chờ, các giá trị trung gian bị bỏ.
+ * - Phiên đang chờ quá max-pending: bỏ thông báo (/topic/notifications/...) vì client có thể tải lại qua REST.
+ *   Tin nhắn chat không bao giờ bị bỏ ở đây; nếu phiên vẫn không theo kịp thì giới hạn buffer / thời gian gửi
+ *   (WebSocketConfig) sẽ đóng phiên, client reconnect rồi lấy tin bị lỡ qua /api/messages/since.
+ */
+@Component
+@Slf4j
+public class OutboundFlowControlInterceptor implements ExecutorChannelInterceptor {
+
+    public static final String COALESCE_KEY_HEADER = "coalesce-key";
+    private static final String DROPPABLE_PREFIX = "/topic/notifications/";
+
+    private static final class SessionState {
+        final AtomicInteger pending = new AtomicInteger();
+        final Map<String, Message<?>> latestByKey = new ConcurrentHashMap<>();
+    }
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final int maxPendingPerSession;
+
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    public OutboundFlowControlInterceptor(MeterRegistry meterRegistry,
+                                          @Value("${app.websocket.outbound.max-pending-per-session:100}") int maxPendingPerSession) {
+        this.maxPendingPerSession = maxPendingPerSession;
+        this.coalesced = Counter.builder("websocket.outbound.coalesced")
+                .description("Bản tin bị gộp vào bản mới hơn đang chờ gửi")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("websocket.outbound.dropped")
+                .description("Thông báo bị bỏ do phiên gửi chậm")
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbound.pending", sessions, s -> s.values().stream()
+                        .mapToInt(state -> state.pending.get()).sum())
+                .description("Tổng số bản tin đang chờ gửi tới client")
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbound.pending.max", sessions, s -> s.values().stream()
+                        .mapToInt(state -> state.pending.get()).max().orElse(0))
+                .description("Số bản tin đang chờ lớn nhất của một phiên")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        SessionState state = sessions.computeIfAbsent(sessionId, id -> new SessionState());
+
+        String coalesceKey = coalesceKey(message);
+        if (coalesceKey != null && state.latestByKey.put(coalesceKey, message) != null) {
+            // Đã có một bản cùng key đang chờ: bản đó sẽ mang nội dung mới nhất khi được gửi
+            coalesced.increment();
+            return null;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (state.pending.get() >= maxPendingPerSession && destination != null
+                && destination.startsWith(DROPPABLE_PREFIX)) {
+            if (coalesceKey != null) {
+                state.latestByKey.remove(coalesceKey, message);
+            }
+            dropped.increment();
+            log.debug("Phiên {} gửi chậm ({} bản tin chờ), bỏ thông báo tới {}", sessionId, state.pending.get(), destination);
+            return null;
+        }
+
+        state.pending.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String coalesceKey = coalesceKey(message);
+        if (sessionId == null || coalesceKey == null) {
+            return message;
+        }
+        SessionState state = sessions.get(sessionId);
+        Message<?> latest = state != null ? state.latestByKey.remove(coalesceKey) : null;
+        return latest != null ? latest : message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state != null) {
+            state.pending.decrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private static String coalesceKey(Message<?> message) {
+        Object nativeHeaders = message.getHeaders().get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        if (nativeHeaders instanceof Map<?, ?> map && map.get(COALESCE_KEY_HEADER) instanceof List<?> values
+                && !values.isEmpty()) {
+            return String.valueOf(values.get(0));
+        }
+        return null;
+    }
+}
@@ -1,11 +1,13 @@
 package com.edumatch.chat.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -24,6 +26,12 @@ public class RabbitMQConfig {
     public static final String SCHOLARSHIP_CREATED_KEY = "scholarship.created";
     public static final String SCHOLARSHIP_UPDATED_KEY = "scholarship.updated";
 
+    // Event từ Auth-Service khi identity của user thay đổi (claim trong token cũ không còn tin được)
+    public static final String USER_IDENTITY_CHANGED_KEY = "user.identity.changed";
+    public static final String USER_IDENTITY_QUEUE_BEAN = "userIdentityQueue";
+    // Queue durable dùng chung (một instance xử lý mỗi event) để lưu version identity vào DB, không mất khi mọi instance tắt
+    public static final String USER_IDENTITY_VERSION_QUEUE = "chat_user_identity_queue";
+
     @Bean
     public TopicExchange exchange() {
         // Topic Exchange là bắt buộc cho việc routing key pattern (user.#)
@@ -68,6 +76,54 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(notificationQueue).to(exchange).with(SCHOLARSHIP_UPDATED_KEY);
     }
 
+    // Queue tạm (auto-delete) riêng cho mỗi instance để mọi replica đều nhận event
+    @Bean(name = USER_IDENTITY_QUEUE_BEAN)
+    public Queue userIdentityQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding userIdentityBinding(Queue userIdentityQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(userIdentityQueue).to(exchange).with(USER_IDENTITY_CHANGED_KEY);
+    }
+
+    @Bean
+    public Queue userIdentityVersionQueue() {
+        return new Queue(USER_IDENTITY_VERSION_QUEUE, true);
+    }
+
+    @Bean
+    public Binding userIdentityVersionBinding(Queue userIdentityVersionQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(userIdentityVersionQueue).to(exchange).with(USER_IDENTITY_CHANGED_KEY);
+    }
+
+    /**
+     * Container cho NotificationConsumer ở chế độ batch: mỗi consumer gom tối đa batch-size tin
+     * (hoặc chờ receive-timeout) rồi gọi listener một lần. Ack (AUTO) chỉ gửi sau khi listener
+     * trả về, tức là sau khi cả lô đã được lưu vào CSDL.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory notificationBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.notification.consumer.concurrency:2}") int concurrency,
+            @Value("${app.notification.consumer.max-concurrency:4}") int maxConcurrency,
+            @Value("${app.notification.consumer.prefetch:250}") int prefetch,
+            @Value("${app.notification.consumer.batch-size:100}") int batchSize,
+            @Value("${app.notification.consumer.receive-timeout-ms:200}") long receiveTimeoutMillis) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMillis);
+        return factory;
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         // Cần để xử lý JSON objects gửi từ các service Java/Python khác
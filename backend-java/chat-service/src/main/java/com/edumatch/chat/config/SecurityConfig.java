@@ -48,6 +48,7 @@ public class SecurityConfig {
                         // Cho phép kết nối ban đầu đến /api/ws
                         // (Việc xác thực token sẽ do WebSocket Interceptor xử lý sau)
                         .requestMatchers("/api/ws", "/api/ws/**").permitAll()
+                        .requestMatchers("/actuator/**").permitAll()
 
                         // Yêu cầu xác thực cho tất cả các API HTTP còn lại
                         .anyRequest().authenticated()
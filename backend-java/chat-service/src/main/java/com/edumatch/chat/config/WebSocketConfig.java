@@ -1,20 +1,41 @@
 package com.edumatch.chat.config;
 
 import com.edumatch.chat.security.WebSocketAuthInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
 
 @Configuration
 @EnableWebSocketMessageBroker // Kích hoạt WebSocket
 @RequiredArgsConstructor
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+    private final OutboundFlowControlInterceptor outboundFlowControlInterceptor;
+    private final MeterRegistry meterRegistry;
+
+    // Giới hạn gửi cho mỗi phiên: vượt quá thì phiên bị đóng (client reconnect rồi đồng bộ lại)
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${app.websocket.send-buffer-size-kb:512}")
+    private int sendBufferSizeKb;
+
+    @Value("${app.websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
@@ -24,6 +45,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Server sẽ gửi tin nhắn đến các kênh bắt đầu bằng "/topic"
         // Ví dụ: /topic/messages/{userId}
         // Ví dụ: /topic/notifications/{userId}
+        // Simple broker chỉ giao trong JVM này; khi chạy nhiều node (app.chat.cluster.enabled=true)
+        // RealtimeDeliveryService chuyển tiếp thêm qua RabbitMQ tới node đang giữ phiên người nhận.
         registry.enableSimpleBroker("/topic");
 
         // 2. Các kênh mà Client sẽ GỬI (Send)
@@ -48,4 +71,32 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Mọi kết nối (inbound) sẽ phải đi qua WebSocketAuthInterceptor
         registration.interceptors(webSocketAuthInterceptor);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Kiểm soát luồng gửi ra theo từng phiên (gộp / bỏ thông báo khi client gửi chậm)
+        registration.interceptors(outboundFlowControlInterceptor);
+        registration.taskExecutor().corePoolSize(outboundPoolSize).maxPoolSize(outboundPoolSize);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis);
+        registration.setSendBufferSizeLimit(sendBufferSizeKb * 1024);
+
+        // Đếm các phiên bị đóng vì vượt giới hạn buffer / thời gian gửi
+        Counter evicted = Counter.builder("websocket.sessions.evicted")
+                .description("Phiên WebSocket bị đóng do client nhận quá chậm")
+                .register(meterRegistry);
+        registration.addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+                    evicted.increment();
+                    log.warn("Đóng phiên WebSocket {} do gửi chậm (buffer/time limit)", session.getId());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        });
+    }
+}
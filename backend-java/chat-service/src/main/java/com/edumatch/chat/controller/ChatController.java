@@ -2,13 +2,13 @@ package com.edumatch.chat.controller;
 
 import com.edumatch.chat.dto.ChatMessageRequest;
 import com.edumatch.chat.dto.MessageDto;
-import com.edumatch.chat.model.Message;
 import com.edumatch.chat.service.ChatService;
+import com.edumatch.chat.service.MessageIngestionPipeline;
+import com.edumatch.chat.service.RealtimeDeliveryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 
@@ -17,8 +17,10 @@ import org.springframework.stereotype.Controller;
 @Slf4j
 public class ChatController {
 
+    static final String PERSIST_FAILED = "PERSIST_FAILED";
+
     private final ChatService chatService;
-    private final SimpMessagingTemplate simpMessagingTemplate; // Bean có sẵn để gửi WebSocket
+    private final RealtimeDeliveryService realtimeDeliveryService; // WebSocket (cục bộ + các node khác)
 
     /**
      * Lắng nghe tin nhắn từ Client gửi đến kênh /app/chat.send
@@ -33,21 +35,41 @@ public class ChatController {
         log.info("Nhận được tin nhắn từ '{}' gửi tới '{}'",
                 authentication.getName(), request.getReceiverId());
 
-        // 1. Lưu tin nhắn vào CSDL (và lấy UserID)
-        Message savedMessage = chatService.saveAndProcessMessage(request, authentication);
+        // 1. Đưa tin nhắn vào pipeline lưu CSDL (ID được cấp ngay, chưa chờ ghi xong)
+        MessageIngestionPipeline.Submission submission;
+        try {
+            submission = chatService.submitMessage(request, authentication);
+        } catch (MessageIngestionPipeline.RejectedException ex) {
+            // Hàng đợi ghi đầy: không gửi cho người nhận, trả nack cho người gửi như khi lưu thất bại
+            log.warn("Từ chối tin nhắn của '{}': {}", authentication.getName(), ex.getMessage());
+            MessageDto rejected = MessageDto.fromEntity(ex.getRejected());
+            rejected.setError(PERSIST_FAILED);
+            realtimeDeliveryService.send("/topic/messages/" + rejected.getSenderId(), rejected);
+            return;
+        }
 
         // 2. Chuyển đổi sang DTO
-        MessageDto messageDto = MessageDto.fromEntity(savedMessage);
+        MessageDto messageDto = MessageDto.fromEntity(submission.message());
 
-        // 3. Gửi tin nhắn đến người nhận
+        // 3. Gửi tin nhắn đến người nhận ngay, không chờ lô ghi hoàn tất
         // (Đẩy vào kênh cá nhân của người nhận)
         String receiverDestination = "/topic/messages/" + request.getReceiverId();
-        simpMessagingTemplate.convertAndSend(receiverDestination, messageDto);
+        realtimeDeliveryService.send(receiverDestination, messageDto);
         log.info("Đã đẩy tin nhắn tới kênh người nhận: {}", receiverDestination);
 
-        // 4. Gửi bản sao tin nhắn cho chính người gửi (để đồng bộ UI)
-        String senderDestination = "/topic/messages/" + savedMessage.getSenderId();
-        simpMessagingTemplate.convertAndSend(senderDestination, messageDto);
-        log.info("Đã đẩy bản sao tin nhắn tới kênh người gửi: {}", senderDestination);
+        // 4. Gửi bản sao cho chính người gửi khi đã lưu xong (đóng vai trò xác nhận đã gửi);
+        //    lưu thất bại thì gửi bản sao kèm error (nack) để client đánh dấu lỗi / gửi lại
+        String senderDestination = "/topic/messages/" + messageDto.getSenderId();
+        submission.persisted().whenComplete((saved, error) -> {
+            if (error != null) {
+                log.error("Không thể lưu tin nhắn {} của '{}': {}",
+                        messageDto.getId(), authentication.getName(), error.getMessage());
+                messageDto.setError(PERSIST_FAILED);
+                realtimeDeliveryService.send(senderDestination, messageDto);
+                return;
+            }
+            realtimeDeliveryService.send(senderDestination, messageDto);
+            log.info("Đã đẩy bản sao tin nhắn tới kênh người gửi: {}", senderDestination);
+        });
     }
 }
\ No newline at end of file
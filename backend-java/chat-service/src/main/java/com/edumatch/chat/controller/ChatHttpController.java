@@ -3,30 +3,36 @@ package com.edumatch.chat.controller;
 import com.edumatch.chat.dto.ApiResponse;
 import com.edumatch.chat.dto.ChatMessageRequest;
 import com.edumatch.chat.dto.ConversationDto;
+import com.edumatch.chat.dto.CursorPageDto;
 import com.edumatch.chat.dto.FcmRegisterRequest;
 import com.edumatch.chat.dto.MessageDto;
 import com.edumatch.chat.model.Message;
 import com.edumatch.chat.service.ChatService;
+import com.edumatch.chat.service.MessageIngestionPipeline;
+import com.edumatch.chat.service.RealtimeDeliveryService;
 import com.edumatch.chat.service.FirebaseMessagingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api") // Tiền tố chung cho các API
 @RequiredArgsConstructor
 public class ChatHttpController {
 
+    private static final long PERSIST_TIMEOUT_SECONDS = 10;
+
     private final ChatService chatService;
-    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final RealtimeDeliveryService realtimeDeliveryService; // WebSocket (cục bộ + các node khác)
     private final FirebaseMessagingService firebaseMessagingService;
 
     /**
@@ -36,21 +42,24 @@ public class ChatHttpController {
     @PostMapping("/chat/send")
     public ResponseEntity<MessageDto> sendMessageHttp(
             @Valid @RequestBody ChatMessageRequest request,
-            Authentication authentication) {
+            Authentication authentication) throws Exception {
 
-        // 1. Lưu tin nhắn vào DB qua service
-        Message savedMessage = chatService.saveAndProcessMessage(request, authentication);
+        // 1. Đưa tin nhắn vào pipeline lưu DB qua service
+        MessageIngestionPipeline.Submission submission = chatService.submitMessage(request, authentication);
 
         // 2. Broadcast tin nhắn qua WebSocket cho người nhận (nếu họ đang online)
-        MessageDto messageDto = MessageDto.fromEntity(savedMessage);
+        MessageDto messageDto = MessageDto.fromEntity(submission.message());
         
         String receiverDestination = "/topic/messages/" + request.getReceiverId();
-        simpMessagingTemplate.convertAndSend(receiverDestination, messageDto);
-        
-        String senderDestination = "/topic/messages/" + savedMessage.getSenderId();
-        simpMessagingTemplate.convertAndSend(senderDestination, messageDto);
+        realtimeDeliveryService.send(receiverDestination, messageDto);
 
-        // 3. Trả về tin nhắn đã lưu cho client
+        // 3. Chờ tin nhắn được ghi xuống DB rồi mới xác nhận cho người gửi
+        submission.persisted().get(PERSIST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        String senderDestination = "/topic/messages/" + messageDto.getSenderId();
+        realtimeDeliveryService.send(senderDestination, messageDto);
+
+        // 4. Trả về tin nhắn đã lưu cho client
         return ResponseEntity.ok(messageDto);
     }
 
@@ -67,15 +76,60 @@ public class ChatHttpController {
     }
 
     /**
-     * API: GET /api/conversations
+     * API: DELETE /api/fcm/register
+     */
+    @DeleteMapping("/fcm/register")
+    public ResponseEntity<ApiResponse> unregisterFcmToken(Authentication authentication) {
+        chatService.unregisterFcmToken(authentication);
+        return ResponseEntity.ok(new ApiResponse(true, "Token đã được hủy đăng ký"));
+    }
+
+    /**
+     * API: GET /api/conversations?page=0&size=50
+     * (Hội thoại có tin nhắn mới nhất trước)
      */
     @GetMapping("/conversations")
-    public ResponseEntity<List<ConversationDto>> getConversations(Authentication authentication) {
+    public ResponseEntity<List<ConversationDto>> getConversations(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
 
-        List<ConversationDto> conversations = chatService.getConversations(authentication);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, 100)));
+        List<ConversationDto> conversations = chatService.getConversations(pageable, authentication);
         return ResponseEntity.ok(conversations);
     }
 
+    /**
+     * API: GET /api/messages/{conversationId}/history?before={messageId}&limit=50
+     *      GET /api/messages/{conversationId}/history?after={messageId}&limit=50
+     * (Phân trang theo cursor: không đếm tổng, mỗi trang là một range scan theo ID)
+     */
+    @GetMapping("/messages/{conversationId}/history")
+    public ResponseEntity<CursorPageDto<MessageDto>> getMessageHistory(
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+
+        int pageSize = Math.max(1, Math.min(limit, 200));
+        return ResponseEntity.ok(chatService.getMessageHistory(conversationId, before, after, pageSize, authentication));
+    }
+
+    /**
+     * API: GET /api/messages/since?afterId={messageId}&limit=200
+     * (Client WebSocket gọi sau khi reconnect với ID tin nhắn cuối đã nhận để lấy các tin bị lỡ)
+     */
+    @GetMapping("/messages/since")
+    public ResponseEntity<CursorPageDto<MessageDto>> getMessagesSince(
+            @RequestParam Long afterId,
+            @RequestParam(defaultValue = "200") int limit,
+            Authentication authentication) {
+
+        int pageSize = Math.max(1, Math.min(limit, 500));
+        return ResponseEntity.ok(chatService.getMessagesSince(afterId, pageSize, authentication));
+    }
+
     /**
      * API: GET /api/messages/{conversationId}
      * (Khớp yêu cầu [cite: 391])
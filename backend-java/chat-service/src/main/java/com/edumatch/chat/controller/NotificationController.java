@@ -11,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/notifications")
 @RequiredArgsConstructor
@@ -46,4 +48,27 @@ public class NotificationController {
         // Đánh dấu đã đọc (Logic nằm trong ChatService)
         chatService.markNotificationAsRead(notificationId, authentication);
     }
-}
\ No newline at end of file
+
+    /**
+     * API: GET /api/notifications/unread-count
+     * Mục tiêu: Lấy số thông báo chưa đọc (badge) mà không phải tải danh sách.
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount(Authentication authentication) {
+        long count = chatService.getUnreadNotificationCount(authentication);
+        return ResponseEntity.ok(Map.of("unreadCount", count));
+    }
+
+    /**
+     * API: PATCH /api/notifications/read-all?upToId=123
+     * Mục tiêu: Đánh dấu đã đọc hàng loạt (tất cả, hoặc tới thông báo upToId) bằng một câu UPDATE.
+     */
+    @PatchMapping("/read-all")
+    public ResponseEntity<Map<String, Integer>> markAllAsRead(
+            @RequestParam(required = false) Long upToId,
+            Authentication authentication) {
+
+        int updated = chatService.markNotificationsAsRead(upToId, authentication);
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+}
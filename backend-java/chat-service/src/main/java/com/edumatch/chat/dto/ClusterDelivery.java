@@ -0,0 +1,19 @@
+package com.edumatch.chat.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bản tin WebSocket chuyển tiếp giữa các node chat-service qua RabbitMQ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterDelivery {
+    private String originNode;   // Node gửi (node nhận bỏ qua bản tin của chính mình)
+    private String destination;  // Ví dụ: /topic/messages/{userId}
+    private JsonNode payload;    // Nội dung đã serialize giống như gửi qua STOMP
+    private String coalesceKey;  // null nếu không gộp được (xem OutboundFlowControlInterceptor)
+}
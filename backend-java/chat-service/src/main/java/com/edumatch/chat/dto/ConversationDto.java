@@ -16,7 +16,8 @@ public class ConversationDto {
     private Long conversationId;
     private Long otherParticipantId; // (Bị buộc phải thay đổi so với tài liệu)
     private String otherUserName; // Tên của người tham gia kia
-    private String lastMessage; // Tin nhắn cuối cùng
+    private String lastMessage; // Tin nhắn cuối cùng (đoạn đầu, tối đa 255 ký tự)
+    private Long lastMessageSenderId;
     private LocalDateTime lastMessageAt;
 
     /**
@@ -24,10 +25,9 @@ public class ConversationDto {
      * @param conversation Entity từ CSDL
      * @param currentUserId ID của người đang xem
      * @param otherUserName Tên của người tham gia kia
-     * @param lastMessage Nội dung tin nhắn cuối
-     * @return DTO
+     * @return DTO (tin nhắn cuối lấy từ các cột denormalize trên Conversation)
      */
-    public static ConversationDto fromEntity(Conversation conversation, Long currentUserId, String otherUserName, String lastMessage) {
+    public static ConversationDto fromEntity(Conversation conversation, Long currentUserId, String otherUserName) {
         // Tìm ID của người "kia"
         Long otherId = conversation.getParticipant1Id().equals(currentUserId)
                 ? conversation.getParticipant2Id()
@@ -37,7 +37,8 @@ public class ConversationDto {
                 .conversationId(conversation.getId())
                 .otherParticipantId(otherId)
                 .otherUserName(otherUserName)
-                .lastMessage(lastMessage)
+                .lastMessage(conversation.getLastMessagePreview())
+                .lastMessageSenderId(conversation.getLastMessageSenderId())
                 .lastMessageAt(conversation.getLastMessageAt())
                 .build();
     }
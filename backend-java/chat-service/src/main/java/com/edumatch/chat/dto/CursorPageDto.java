@@ -0,0 +1,19 @@
+package com.edumatch.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Kết quả phân trang kiểu cursor (keyset): không có tổng số bản ghi,
+ * client dùng nextCursor để lấy trang tiếp theo.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor; // null nếu đã hết dữ liệu
+    private boolean hasNext;
+}
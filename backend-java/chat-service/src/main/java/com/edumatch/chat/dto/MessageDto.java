@@ -1,6 +1,7 @@
 package com.edumatch.chat.dto;
 
 import com.edumatch.chat.model.Message;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 import java.time.LocalDateTime;
@@ -14,6 +15,10 @@ public class MessageDto {
     private String content;
     private LocalDateTime sentAt;
 
+    // Chỉ có giá trị khi tin nhắn không lưu được (bản sao gửi lại cho người gửi đóng vai trò nack)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+
     /**
      * Hàm helper để chuyển từ Entity (Database) -> DTO (API)
      */
@@ -8,7 +8,14 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "conversations")
+@Table(name = "conversations", uniqueConstraints = {
+        // Mỗi cặp người dùng chỉ có 1 hội thoại: khóa chuẩn hóa (min, max) của 2 participant
+        @UniqueConstraint(name = "uk_conv_pair", columnNames = {"pair_low_id", "pair_high_id"})
+}, indexes = {
+        // Inbox: lấy hội thoại của 1 user, sắp theo tin nhắn mới nhất
+        @Index(name = "idx_conv_p1_last_msg", columnList = "participant_1_id, last_message_at"),
+        @Index(name = "idx_conv_p2_last_msg", columnList = "participant_2_id, last_message_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -32,6 +39,25 @@ public class Conversation {
     @Column(name = "participant_2_id", nullable = false)
     private Long participant2Id;
 
+    /**
+     * Khóa cặp chuẩn hóa: pairLowId = min(p1, p2), pairHighId = max(p1, p2).
+     * (Nullable để các hội thoại trùng lặp cũ vẫn tồn tại; chỉ bản mới nhất mỗi cặp được gán khóa)
+     */
+    @Column(name = "pair_low_id")
+    private Long pairLowId;
+
+    @Column(name = "pair_high_id")
+    private Long pairHighId;
+
     @Column(name = "last_message_at")
     private LocalDateTime lastMessageAt;
+
+    // --- Read model cho inbox: tin nhắn cuối được ghi kèm khi lưu tin nhắn ---
+    public static final int PREVIEW_LENGTH = 255;
+
+    @Column(name = "last_message_preview", length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_sender_id")
+    private Long lastMessageSenderId;
 }
\ No newline at end of file
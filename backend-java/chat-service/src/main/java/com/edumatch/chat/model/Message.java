@@ -9,15 +9,23 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Keyset theo ID trong một hội thoại (lịch sử cuộn ngược, đồng bộ lại khi reconnect)
+        @Index(name = "idx_msg_conv_id", columnList = "conversation_id, id"),
+        // API phân trang cũ sắp xếp theo sent_at
+        @Index(name = "idx_msg_conv_sent", columnList = "conversation_id, sent_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Message {
 
+    /**
+     * ID theo thời gian do MessageIdGenerator cấp trước khi ghi (không dùng IDENTITY)
+     * để MessageIngestionPipeline có thể insert nhiều dòng một lần.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "conversation_id", nullable = false)
@@ -0,0 +1,56 @@
+package com.edumatch.chat.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Nhật ký mỗi lần chuyển tin nhắn của một hội thoại sang kho lưu trữ lạnh (MessageArchiver).
+ * Dùng để đối chiếu số dòng đã xóa khỏi bảng messages với số tin nhắn trong segment (MessageArchiveVerifier).
+ */
+@Entity
+@Table(name = "message_archive_batches", indexes = {
+        @Index(name = "idx_archive_batch_conv", columnList = "conversation_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageArchiveBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Long conversationId;
+
+    @Column(name = "segment_name", nullable = false)
+    private String segmentName;
+
+    @Column(name = "first_message_id", nullable = false)
+    private Long firstMessageId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    /**
+     * Số tin nhắn ghi vào segment
+     */
+    @Column(name = "archived_rows", nullable = false)
+    private Integer archivedRows;
+
+    /**
+     * Số dòng thực sự bị xóa khỏi bảng messages sau khi segment đã bền vững
+     */
+    @Column(name = "source_rows_deleted", nullable = false)
+    private Integer sourceRowsDeleted;
+
+    @CreationTimestamp
+    @Column(name = "archived_at", updatable = false)
+    private LocalDateTime archivedAt;
+}
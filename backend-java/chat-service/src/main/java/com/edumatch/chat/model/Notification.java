@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
 @Entity
 // SỬA Ở ĐÂY: Thêm 'indexes' vào @Table
 @Table(name = "notifications", indexes = {
-        @Index(name = "idx_notification_user_id", columnList = "user_id")
+        @Index(name = "idx_notification_user_id", columnList = "user_id"),
+        // Đếm / đánh dấu đã đọc theo user mà không quét toàn bộ thông báo của user
+        @Index(name = "idx_notification_user_read_created", columnList = "user_id, is_read, created_at")
 })
 @Data
 @Builder
@@ -0,0 +1,30 @@
+package com.edumatch.chat.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Version identity mới nhất của một user (User.identityVersion bên Auth-Service) đã nhận qua event
+ * user.identity.changed. Token có claim uiv nhỏ hơn thì claim identity không còn được tin.
+ */
+@Entity
+@Table(name = "user_identity_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIdentityVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer version;
+}
@@ -1,11 +1,14 @@
 package com.edumatch.chat.repository;
 
 import com.edumatch.chat.model.Conversation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,18 +23,68 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     List<Conversation> findByParticipantId(@Param("userId") Long userId);
 
     /**
-     * Tìm một cuộc hội thoại chính xác giữa 2 user ID.
-     * (Kiểm tra cả 2 chiều: A-B và B-A)
-     * Nếu có nhiều conversation (do lỗi tạo trùng), lấy conversation mới nhất (id lớn nhất)
+     * Chỉ lấy ID các hội thoại của user (cho đồng bộ tin nhắn khi reconnect)
      */
-    @Query(value = "SELECT * FROM conversations c WHERE " +
-            "(c.participant_1_id = :user1Id AND c.participant_2_id = :user2Id) OR " +
-            "(c.participant_1_id = :user2Id AND c.participant_2_id = :user1Id) " +
-            "ORDER BY c.id DESC " +
-            "LIMIT 1", 
+    @Query("SELECT c.id FROM Conversation c WHERE c.participant1Id = :userId OR c.participant2Id = :userId")
+    List<Long> findIdsByParticipantId(@Param("userId") Long userId);
+
+    /**
+     * Inbox của user: hội thoại mới nhất trước, phân trang (không cần COUNT).
+     */
+    @Query("SELECT c FROM Conversation c WHERE c.participant1Id = :userId OR c.participant2Id = :userId " +
+            "ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<Conversation> findInbox(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Điền tin nhắn cuối cho các hội thoại tạo trước khi có cột denormalize (chạy 1 lần khi khởi động).
+     */
+    @Modifying
+    @Query(value = "UPDATE conversations c " +
+            "JOIN messages m ON m.id = (SELECT MAX(m2.id) FROM messages m2 WHERE m2.conversation_id = c.id) " +
+            "SET c.last_message_preview = LEFT(m.content, 255), c.last_message_sender_id = m.sender_id " +
+            "WHERE c.last_message_sender_id IS NULL",
+            nativeQuery = true)
+    int backfillLastMessage();
+
+    /**
+     * Tìm ID hội thoại của một cặp user qua khóa chuẩn hóa (dùng unique index uk_conv_pair).
+     */
+    @Query("SELECT c.id FROM Conversation c WHERE c.pairLowId = :lowId AND c.pairHighId = :highId")
+    Optional<Long> findIdByPair(@Param("lowId") Long lowId, @Param("highId") Long highId);
+
+    /**
+     * Cách tìm cũ (không cần khóa cặp): hội thoại mới nhất giữa 2 user theo bất kỳ chiều nào.
+     * Chỉ dùng khi khóa cặp của dữ liệu cũ chưa được backfill.
+     */
+    @Query("SELECT MAX(c.id) FROM Conversation c WHERE (c.participant1Id = :a AND c.participant2Id = :b) " +
+            "OR (c.participant1Id = :b AND c.participant2Id = :a)")
+    Optional<Long> findLatestIdByParticipants(@Param("a") Long a, @Param("b") Long b);
+
+    /**
+     * Tạo hội thoại nếu cặp chưa có; trùng khóa uk_conv_pair thì bỏ qua (không lỗi).
+     * Hai tin nhắn đầu tiên gửi đồng thời sẽ chỉ tạo ra một hội thoại.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO conversations " +
+            "(participant_1_id, participant_2_id, pair_low_id, pair_high_id, last_message_at) " +
+            "VALUES (:senderId, :receiverId, LEAST(:senderId, :receiverId), GREATEST(:senderId, :receiverId), :now)",
+            nativeQuery = true)
+    int insertIgnore(@Param("senderId") Long senderId,
+                     @Param("receiverId") Long receiverId,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Gán khóa cặp cho dữ liệu cũ: chỉ hội thoại mới nhất (id lớn nhất) của mỗi cặp,
+     * khớp với cách chọn hội thoại trước đây khi có bản trùng.
+     */
+    @Modifying
+    @Query(value = "UPDATE conversations c JOIN (" +
+            "SELECT MAX(id) AS id FROM conversations " +
+            "GROUP BY LEAST(participant_1_id, participant_2_id), GREATEST(participant_1_id, participant_2_id)" +
+            ") latest ON latest.id = c.id " +
+            "SET c.pair_low_id = LEAST(c.participant_1_id, c.participant_2_id), " +
+            "c.pair_high_id = GREATEST(c.participant_1_id, c.participant_2_id) " +
+            "WHERE c.pair_low_id IS NULL",
             nativeQuery = true)
-    Optional<Conversation> findByParticipants(
-            @Param("user1Id") Long user1Id,
-            @Param("user2Id") Long user2Id
-    );
+    int backfillPairKeys();
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package com.edumatch.chat.repository;
 
 import com.edumatch.chat.model.FcmToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -13,4 +17,20 @@ public interface FcmTokenRepository extends JpaRepository<FcmToken, Long> {
      * Tìm FcmToken theo User ID (Vì cột userId trong FcmToken là UNIQUE)
      */
     Optional<FcmToken> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Xóa token của user (khi đăng xuất / hủy đăng ký thiết bị)
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FcmToken t WHERE t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Xóa token bị FCM từ chối, chỉ khi user chưa đăng ký token khác thay thế
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FcmToken t WHERE t.userId = :userId AND t.deviceToken = :deviceToken")
+    int deleteByUserIdAndDeviceToken(@Param("userId") Long userId, @Param("deviceToken") String deviceToken);
+}
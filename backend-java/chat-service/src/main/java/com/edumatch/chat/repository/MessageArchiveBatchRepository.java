@@ -0,0 +1,23 @@
+package com.edumatch.chat.repository;
+
+import com.edumatch.chat.model.MessageArchiveBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MessageArchiveBatchRepository extends JpaRepository<MessageArchiveBatch, Long> {
+
+    /**
+     * Tổng số dòng đã xóa khỏi bảng messages cho một hội thoại qua các lần lưu trữ
+     */
+    @Query("SELECT COALESCE(SUM(b.sourceRowsDeleted), 0) FROM MessageArchiveBatch b WHERE b.conversationId = :conversationId")
+    long sumSourceRowsDeleted(@Param("conversationId") Long conversationId);
+
+    /**
+     * Tổng số tin nhắn đã ghi vào segment cho một hội thoại qua các lần lưu trữ
+     */
+    @Query("SELECT COALESCE(SUM(b.archivedRows), 0) FROM MessageArchiveBatch b WHERE b.conversationId = :conversationId")
+    long sumArchivedRows(@Param("conversationId") Long conversationId);
+}
@@ -4,8 +4,13 @@ import com.edumatch.chat.model.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
@@ -15,8 +20,39 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
      */
     Page<Message> findByConversationIdOrderBySentAtDesc(Long conversationId, Pageable pageable);
     
+    /**
+     * Tin nhắn còn trong DB (mới hơn phần đã lưu trữ) - dùng khi ghép trang với kho lưu trữ
+     */
+    List<Message> findByConversationIdAndIdGreaterThanOrderBySentAtDesc(Long conversationId, Long afterId, Pageable pageable);
+
+    long countByConversationIdAndIdGreaterThan(Long conversationId, Long afterId);
+
     /**
      * Lấy tin nhắn cuối cùng của một cuộc hội thoại
      */
     Message findTopByConversationIdOrderBySentAtDesc(Long conversationId);
-}
\ No newline at end of file
+
+    /**
+     * Trang tin nhắn cũ hơn beforeId (mới nhất trước) - keyset trên (conversation_id, id)
+     */
+    List<Message> findByConversationIdAndIdLessThanOrderByIdDesc(Long conversationId, Long beforeId, Pageable pageable);
+
+    /**
+     * Tin nhắn mới nhất của hội thoại (trang đầu khi chưa có cursor)
+     */
+    List<Message> findByConversationIdOrderByIdDesc(Long conversationId, Pageable pageable);
+
+    /**
+     * Tin nhắn mới hơn afterId trong một hội thoại (cũ nhất trước)
+     */
+    List<Message> findByConversationIdAndIdGreaterThanOrderByIdAsc(Long conversationId, Long afterId, Pageable pageable);
+
+    /**
+     * Tin nhắn mới hơn afterId trong các hội thoại cho trước (đồng bộ lại khi WebSocket reconnect).
+     * Mỗi hội thoại là một range scan trên idx_msg_conv_id.
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversationId IN :conversationIds AND m.id > :afterId ORDER BY m.id ASC")
+    List<Message> findSince(@Param("conversationIds") Collection<Long> conversationIds,
+                            @Param("afterId") Long afterId,
+                            Pageable pageable);
+}
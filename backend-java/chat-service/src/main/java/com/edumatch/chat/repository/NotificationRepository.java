@@ -4,6 +4,9 @@ import com.edumatch.chat.model.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,4 +17,31 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      * (Sắp xếp theo thời gian tạo giảm dần (DESC) để lấy thông báo mới nhất trước)
      */
     Page<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Đếm thông báo chưa đọc (dùng index idx_notification_user_read_created)
+     */
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.isRead = false")
+    long countUnread(@Param("userId") Long userId);
+
+    /**
+     * Đánh dấu 1 thông báo là đã đọc (chỉ khi thuộc về user và chưa đọc)
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.userId = :userId AND n.isRead = false")
+    int markRead(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Đánh dấu tất cả thông báo chưa đọc của user là đã đọc
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") Long userId);
+
+    /**
+     * Đánh dấu đã đọc các thông báo có ID <= upToId (client đã hiển thị tới thông báo đó)
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false AND n.id <= :upToId")
+    int markReadUpTo(@Param("userId") Long userId, @Param("upToId") Long upToId);
+}
@@ -19,7 +19,7 @@ import java.io.IOException;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider tokenProvider;
+    private final JwtVerifier jwtVerifier;
 
     @Value("${app.jwt.header}")
     private String headerName; // Authorization
@@ -35,19 +35,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 1. Lấy JWT từ request
             String jwt = getJwtFromRequest(request);
 
-            // 2. Xác thực token
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                // 3. Lấy thông tin user (username, roles)
-                Authentication authentication = tokenProvider.getAuthentication(jwt);
-
-                // 4. Lưu vào SecurityContext
+            // 2. Xác thực token + lấy thông tin user (username, roles) - một lần, có cache
+            Authentication authentication = StringUtils.hasText(jwt) ? jwtVerifier.authenticate(jwt) : null;
+            if (authentication != null) {
+                // 3. Lưu vào SecurityContext
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
         }
 
-        // 5. Chuyển request đi tiếp
+        // 4. Chuyển request đi tiếp
         filterChain.doFilter(request, response);
     }
 
@@ -1,82 +1,33 @@
 package com.edumatch.chat.security;
 
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import jakarta.annotation.PostConstruct;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.stream.Collectors;
-
+/**
+ * Giữ API cũ (validateToken / getAuthentication); việc xác thực và cache nằm ở JwtVerifier.
+ */
 @Component
-@Slf4j
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret; // Lấy từ application.properties
-
-    private SecretKey key;
-
-    @PostConstruct
-    public void init() {
-        // Khởi tạo key mã hóa từ file properties
-        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-    }
+    private final JwtVerifier jwtVerifier;
 
     /**
      * Giải mã token và lấy ra thông tin Authentication (UserDetails, Roles)
      */
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        String username = claims.getSubject();
-
-        // Lấy danh sách quyền (roles) từ token
-        Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get("roles").toString().split(","))
-                        .filter(auth -> !auth.trim().isEmpty())
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-
-        // Tạo một đối tượng UserDetails (principal)
-        UserDetails principal = new User(username, "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+        Authentication authentication = jwtVerifier.authenticate(token);
+        if (authentication == null) {
+            throw new IllegalArgumentException("Invalid JWT token");
+        }
+        return authentication;
     }
 
     /**
      * Kiểm tra xem token có hợp lệ không (còn hạn, đúng chữ ký)
      */
     public boolean validateToken(String authToken) {
-        try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(authToken);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token");
-        } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
-        }
-        return false;
+        return jwtVerifier.authenticate(authToken) != null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.edumatch.chat.security;
+
+/**
+ * Identity (userId, organizationId) đọc từ claim của token do Auth-Service cấp (claim version 1).
+ * Được gắn vào Authentication.getDetails() bởi JwtVerifier; identityVersion (claim uiv, không có = 0) là
+ * version identity của user lúc cấp token, dùng để phát hiện claim đã cũ (IdentityVersionStore).
+ */
+public record TokenIdentity(Long userId, Long organizationId, int identityVersion) {
+
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ORGANIZATION_ID = "oid";
+    public static final String CLAIM_IDENTITY_VERSION = "idv";
+    public static final String CLAIM_USER_IDENTITY_VERSION = "uiv";
+    public static final int SUPPORTED_VERSION = 1;
+}
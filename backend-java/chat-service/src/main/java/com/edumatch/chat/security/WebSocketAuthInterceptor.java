@@ -19,7 +19,7 @@ import org.springframework.util.StringUtils;
 @Slf4j
 public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
-    private final JwtTokenProvider tokenProvider;
+    private final JwtVerifier jwtVerifier;
 
     @Value("${app.jwt.prefix}")
     private String headerPrefix; // Bearer
@@ -41,12 +41,10 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
             String authHeader = accessor.getFirstNativeHeader(AUTH_HEADER);
             String jwt = getJwtFromHeader(authHeader);
 
-            // 3. Xác thực token
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                // 4. Lấy thông tin xác thực
-                Authentication authentication = tokenProvider.getAuthentication(jwt);
-
-                // 5. Lưu thông tin xác thực vào SecurityContext (cho phiên WebSocket này)
+            // 3. Xác thực token và lấy thông tin xác thực (một lần, có cache)
+            Authentication authentication = StringUtils.hasText(jwt) ? jwtVerifier.authenticate(jwt) : null;
+            if (authentication != null) {
+                // 4. Lưu thông tin xác thực vào SecurityContext (cho phiên WebSocket này)
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 accessor.setUser(authentication); // Quan trọng
 
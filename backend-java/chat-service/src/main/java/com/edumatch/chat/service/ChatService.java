@@ -2,6 +2,8 @@ package com.edumatch.chat.service;
 
 import com.edumatch.chat.dto.ChatMessageRequest;
 import com.edumatch.chat.dto.ConversationDto;
+import com.edumatch.chat.dto.CursorPageDto;
+import com.edumatch.chat.dto.MessageDto;
 import com.edumatch.chat.dto.FcmRegisterRequest;
 import com.edumatch.chat.model.FcmToken;
 import com.edumatch.chat.dto.UserDetailDto;
@@ -10,22 +12,25 @@ import com.edumatch.chat.model.Message;
 import com.edumatch.chat.repository.ConversationRepository;
 import com.edumatch.chat.repository.FcmTokenRepository;
 import com.edumatch.chat.repository.MessageRepository;
+import com.edumatch.chat.service.archive.MessageArchiveStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import com.edumatch.chat.dto.UserDetailDto;
 import com.edumatch.chat.model.Notification;
@@ -44,17 +49,23 @@ public class ChatService {
     private final MessageRepository messageRepository;
     private final FcmTokenRepository fcmTokenRepository;
     private final NotificationRepository notificationRepository;
+    private final UnreadCountService unreadCountService;
     private final FirebaseMessagingService firebaseMessagingService;
-    private final RestTemplate restTemplate;
+    private final AuthUserBatchClient authUserBatchClient;
+    private final UserDirectoryService userDirectoryService;
+    private final ConversationRegistry conversationRegistry;
+    private final MessageIngestionPipeline messageIngestionPipeline;
+    private final MessageArchiveStore messageArchiveStore;
+    private final TokenIdentityResolver tokenIdentityResolver;
 
-    @Value("${app.services.auth-service.url:http://auth-service:8081}") // Lấy URL từ properties
-    private String authServiceUrl;
+    private static final long AUTH_LOOKUP_TIMEOUT_SECONDS = 5;
 
     /**
      * Xử lý và lưu tin nhắn mới
+     * Tin nhắn được đưa vào MessageIngestionPipeline (group commit): Submission.message() đã có ID để
+     * broadcast ngay, Submission.persisted() hoàn thành khi tin nhắn đã được ghi xuống DB.
      */
-    @Transactional
-    public Message saveAndProcessMessage(ChatMessageRequest request, Authentication authentication) {
+    public MessageIngestionPipeline.Submission submitMessage(ChatMessageRequest request, Authentication authentication) {
         // 1. Lấy thông tin người gửi (Sender)
         // Lấy username và token từ Authentication (đã được Interceptor xác thực)
         String username = authentication.getName();
@@ -65,25 +76,32 @@ public class ChatService {
         Long senderId = sender.getId();
         Long receiverId = request.getReceiverId();
 
-        // 2. Tìm hoặc Tạo cuộc hội thoại (Conversation)
-        Conversation conversation = findOrCreateConversation(senderId, receiverId);
+        // 2. Tìm hoặc Tạo cuộc hội thoại (Conversation) - qua cache cặp (min, max)
+        Long conversationId = conversationRegistry.resolveConversationId(senderId, receiverId);
 
-        // 3. Tạo và Lưu tin nhắn (Message)
+        // 3. Tạo tin nhắn và đưa vào pipeline ghi theo lô (ID + sentAt được gán khi nhận)
         Message message = Message.builder()
-                .conversationId(conversation.getId())
+                .conversationId(conversationId)
                 .senderId(senderId)
                 .content(request.getContent())
-                // sentAt được tự động điền bởi @CreationTimestamp
                 .build();
+        MessageIngestionPipeline.Submission submission = messageIngestionPipeline.submit(message);
+
+        // 4. Sau khi tin nhắn đã được lưu: cập nhật inbox và gửi push notification
+        submission.persisted().thenAccept(savedMessage -> {
+            log.info("Đã lưu tin nhắn mới (ID: {}) vào cuộc hội thoại (ID: {})",
+                    savedMessage.getId(), conversationId);
+            conversationRegistry.recordLastMessage(conversationId, savedMessage.getSentAt(),
+                    preview(savedMessage.getContent()), senderId);
+            sendChatPush(receiverId, savedMessage.getContent(), conversationId);
+        });
+        return submission;
+    }
 
-        Message savedMessage = messageRepository.save(message);
-        log.info("Đã lưu tin nhắn mới (ID: {}) vào cuộc hội thoại (ID: {})",
-                savedMessage.getId(), conversation.getId());
-
-        // 4. Gửi Push Notification cho người nhận
+    private void sendChatPush(Long receiverId, String content, Long conversationId) {
         try {
             // Cắt nội dung tin nhắn nếu dài quá 50 ký tự
-            String notificationBody = request.getContent();
+            String notificationBody = content;
             if (notificationBody != null && notificationBody.length() > 50) {
                 notificationBody = notificationBody.substring(0, 50) + "...";
             }
@@ -94,38 +112,15 @@ public class ChatService {
                 "Bạn có tin nhắn mới",
                 notificationBody,
                 "CHAT_MESSAGE",
-                conversation.getId().toString()
+                conversationId.toString()
             );
             log.info("Đã gửi push notification cho User {}", receiverId);
         } catch (Exception e) {
-            // Không rollback transaction nếu gửi thông báo lỗi
+            // Lỗi gửi thông báo không ảnh hưởng tới tin nhắn đã lưu
             log.error("Lỗi khi gửi push notification cho User {}: {}", receiverId, e.getMessage(), e);
         }
-
-        return savedMessage;
     }
 
-    /**
-     * Tìm cuộc hội thoại giữa 2 người, nếu không có thì tạo mới.
-     */
-    private Conversation findOrCreateConversation(Long senderId, Long receiverId) {
-        return conversationRepository.findByParticipants(senderId, receiverId)
-                .map(conv -> {
-                    // Nếu tìm thấy, cập nhật thời gian
-                    conv.setLastMessageAt(LocalDateTime.now());
-                    return conversationRepository.save(conv);
-                })
-                .orElseGet(() -> {
-                    // Nếu không tìm thấy, tạo mới
-                    Conversation newConv = Conversation.builder()
-                            .participant1Id(senderId)
-                            .participant2Id(receiverId)
-                            .lastMessageAt(LocalDateTime.now())
-                            .build();
-                    log.info("Tạo cuộc hội thoại mới giữa User {} và User {}", senderId, receiverId);
-                    return conversationRepository.save(newConv);
-                });
-    }
     /**
      * (Logic cho API: POST /api/fcm/register)
      * Đăng ký hoặc cập nhật FCM token cho user
@@ -167,16 +162,32 @@ public class ChatService {
         token.setUserId(userId);
         token.setDeviceToken(request.getFcmToken());
         fcmTokenRepository.save(token);
+        firebaseMessagingService.invalidateToken(userId);
         
         log.info("✅ [FCM Register] Token {} successfully for User {}", isNewToken ? "created" : "updated", userId);
     }
 
+    /**
+     * (Logic cho API: DELETE /api/fcm/register)
+     * Hủy đăng ký FCM token của user (ví dụ khi đăng xuất trên mobile)
+     */
+    @Transactional
+    public void unregisterFcmToken(Authentication authentication) {
+        UserDetailDto user = getUserDetailsFromAuthService(
+                authentication.getName(),
+                (String) authentication.getCredentials()
+        );
+        int deleted = fcmTokenRepository.deleteByUserId(user.getId());
+        firebaseMessagingService.invalidateToken(user.getId());
+        log.info("✅ [FCM Register] Đã hủy {} token cho User {}", deleted, user.getId());
+    }
+
     /**
      * (Logic cho API: GET /api/conversations)
      * Lấy danh sách cuộc hội thoại của user
      */
     @Transactional(readOnly = true)
-    public List<ConversationDto> getConversations(Authentication authentication) {
+    public List<ConversationDto> getConversations(Pageable pageable, Authentication authentication) {
         // 1. Lấy UserID (Long)
         UserDetailDto user = getUserDetailsFromAuthService(
                 authentication.getName(),
@@ -185,32 +196,63 @@ public class ChatService {
         Long currentUserId = user.getId();
         String token = (String) authentication.getCredentials();
 
-        // 2. Lấy danh sách Entity
-        List<Conversation> conversations = conversationRepository.findByParticipantId(currentUserId);
+        // 2. Lấy 1 trang inbox (tin nhắn cuối đã nằm sẵn trên Conversation)
+        List<Conversation> conversations = conversationRepository.findInbox(currentUserId, pageable);
+
+        // 3. Tra tên của tất cả người "kia" trong một lần (có cache)
+        Set<Long> otherIds = conversations.stream()
+                .map(conv -> otherParticipantId(conv, currentUserId))
+                .collect(Collectors.toSet());
+        Map<Long, String> names = userDirectoryService.resolveNames(otherIds, token);
 
-        // 3. Chuyển đổi sang DTO với thông tin user name
+        // 4. Chuyển đổi sang DTO
         return conversations.stream()
                 .map(conv -> {
-                    // Tìm ID của người "kia"
-                    Long otherId = conv.getParticipant1Id().equals(currentUserId)
-                            ? conv.getParticipant2Id()
-                            : conv.getParticipant1Id();
-                    
-                    // Lấy tên user từ Auth-Service
-                    UserDetailDto otherUser = getUserDetailsByIdFromAuthService(otherId, token);
-                    String otherUserName = (otherUser != null && otherUser.getUsername() != null) 
-                            ? otherUser.getUsername() 
-                            : "User " + otherId;
-                    
-                    // Lấy tin nhắn cuối cùng
-                    Message lastMsg = messageRepository.findTopByConversationIdOrderBySentAtDesc(conv.getId());
-                    String lastMessage = (lastMsg != null) ? lastMsg.getContent() : null;
-                    
-                    return ConversationDto.fromEntity(conv, currentUserId, otherUserName, lastMessage);
+                    Long otherId = otherParticipantId(conv, currentUserId);
+                    String otherUserName = names.getOrDefault(otherId, "User " + otherId);
+                    ConversationDto dto = ConversationDto.fromEntity(conv, currentUserId, otherUserName);
+
+                    // Tin nhắn cuối chưa kịp flush xuống DB
+                    ConversationRegistry.LastMessage pending = conversationRegistry.pendingLastMessage(conv.getId());
+                    if (pending != null && (dto.getLastMessageAt() == null || pending.sentAt().isAfter(dto.getLastMessageAt()))) {
+                        dto.setLastMessage(pending.preview());
+                        dto.setLastMessageSenderId(pending.senderId());
+                        dto.setLastMessageAt(pending.sentAt());
+                    }
+                    return dto;
                 })
                 .collect(Collectors.toList());
     }
 
+    private static Long otherParticipantId(Conversation conv, Long currentUserId) {
+        return conv.getParticipant1Id().equals(currentUserId)
+                ? conv.getParticipant2Id()
+                : conv.getParticipant1Id();
+    }
+
+    private static String preview(String content) {
+        if (content == null || content.length() <= Conversation.PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, Conversation.PREVIEW_LENGTH);
+    }
+
+    /**
+     * Điền tin nhắn cuối cho các hội thoại cũ (trước khi có cột denormalize).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillInbox() {
+        try {
+            int updated = conversationRepository.backfillLastMessage();
+            if (updated > 0) {
+                log.info("Đã điền tin nhắn cuối cho {} cuộc hội thoại", updated);
+            }
+        } catch (Exception e) {
+            log.warn("Không thể backfill inbox: {}", e.getMessage());
+        }
+    }
+
     /**
      * (Logic cho API: GET /api/messages/{conversationId})
      * Lấy lịch sử tin nhắn (phân trang)
@@ -226,75 +268,165 @@ public class ChatService {
 
         // 2. Kiểm tra quyền
         // (User phải là 1 trong 2 người tham gia hội thoại)
-        Conversation conversation = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy cuộc hội thoại"));
-
-        if (!conversation.getParticipant1Id().equals(currentUserId) &&
-                !conversation.getParticipant2Id().equals(currentUserId)) {
-            log.warn("User {} cố gắng truy cập trái phép vào cuộc hội thoại {}",
-                    currentUserId, conversationId);
-            throw new AccessDeniedException("Bạn không có quyền xem cuộc hội thoại này");
-        }
+        requireParticipant(conversationId, currentUserId);
 
         // 3. Lấy dữ liệu (phân trang)
         // (Chúng ta trả về Page<Message> (Entity) vì MessageDto gần như giống hệt Message Entity)
-        return messageRepository.findByConversationIdOrderBySentAtDesc(conversationId, pageable);
+        long archivedMax = messageArchiveStore.maxArchivedId(conversationId);
+        if (archivedMax == 0) {
+            return messageRepository.findByConversationIdOrderBySentAtDesc(conversationId, pageable);
+        }
+
+        // Hội thoại đã có tin nhắn lưu trữ: tin nhắn trong DB (ID > archivedMax) luôn mới hơn tin nhắn lưu trữ,
+        // nên trang được lấp từ DB trước rồi đọc tiếp từ segment (bỏ qua phần offset đã nằm trong DB)
+        long hotCount = messageRepository.countByConversationIdAndIdGreaterThan(conversationId, archivedMax);
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<Message> content = new ArrayList<>(size);
+        if (offset < hotCount) {
+            content.addAll(messageRepository.findByConversationIdAndIdGreaterThanOrderBySentAtDesc(
+                    conversationId, archivedMax, pageable));
+        }
+        if (content.size() < size) {
+            content.addAll(messageArchiveStore.readDesc(conversationId, null,
+                    Math.max(0, offset - hotCount), size - content.size()));
+        }
+        return new PageImpl<>(content, pageable, hotCount + messageArchiveStore.count(conversationId));
     }
 
     /**
-     * Lấy thông tin user bằng ID từ Auth-Service
+     * (Logic cho API: GET /api/messages/{conversationId}/history)
+     * Lịch sử tin nhắn theo cursor (ID tin nhắn), không đếm tổng:
+     * - after != null: các tin nhắn mới hơn after (cũ nhất trước)
+     * - ngược lại: các tin nhắn cũ hơn before (mới nhất trước); before == null -> trang mới nhất
      */
-    private UserDetailDto getUserDetailsByIdFromAuthService(Long userId, String token) {
-        String url = authServiceUrl + "/api/internal/user/id/" + userId;
-        log.info("ChatService: Calling Auth-Service to get user details for userId: {}", userId);
+    @Transactional(readOnly = true)
+    public CursorPageDto<MessageDto> getMessageHistory(Long conversationId, Long before, Long after, int limit,
+                                                       Authentication authentication) {
+        UserDetailDto user = getUserDetailsFromAuthService(
+                authentication.getName(),
+                (String) authentication.getCredentials()
+        );
+        requireParticipant(conversationId, user.getId());
+
+        // Lấy dư 1 bản ghi để biết còn trang tiếp theo hay không
+        Pageable probe = PageRequest.of(0, limit + 1);
+        List<Message> messages;
+        if (after != null) {
+            messages = messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(conversationId, after, probe);
+        } else if (before != null) {
+            messages = messageRepository.findByConversationIdAndIdLessThanOrderByIdDesc(conversationId, before, probe);
+        } else {
+            messages = messageRepository.findByConversationIdOrderByIdDesc(conversationId, probe);
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + token);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        long archivedMax = messageArchiveStore.maxArchivedId(conversationId);
+        if (archivedMax > 0) {
+            messages = mergeArchived(conversationId, messages, before, after, archivedMax, limit + 1);
+        }
+        return toCursorPage(messages, limit);
+    }
 
-        try {
-            ResponseEntity<UserDetailDto> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, UserDetailDto.class
-            );
-            UserDetailDto user = response.getBody();
-            if (user == null || user.getId() == null) {
-                log.warn("Không thể lấy thông tin user ID {} từ Auth-Service.", userId);
-                return null;
+    /**
+     * (Logic cho API: GET /api/messages/since?afterId=...)
+     * Đồng bộ lại sau khi WebSocket reconnect: mọi tin nhắn có ID > afterId trong các hội thoại
+     * của user (cũ nhất trước). Gọi lại với nextCursor cho tới khi hasNext = false.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<MessageDto> getMessagesSince(Long afterId, int limit, Authentication authentication) {
+        UserDetailDto user = getUserDetailsFromAuthService(
+                authentication.getName(),
+                (String) authentication.getCredentials()
+        );
+        List<Long> conversationIds = conversationRepository.findIdsByParticipantId(user.getId());
+        if (conversationIds.isEmpty()) {
+            return new CursorPageDto<>(List.of(), 0, null, false);
+        }
+        List<Message> messages = messageRepository.findSince(conversationIds, afterId, PageRequest.of(0, limit + 1));
+        return toCursorPage(messages, limit);
+    }
+
+    /**
+     * Ghép tin nhắn trong DB với kho lưu trữ (ID <= archivedMax): bỏ các dòng DB đã nằm trong segment
+     * (chưa kịp xóa) rồi đọc thêm từ segment cho đủ want bản ghi, giữ nguyên chiều sắp xếp.
+     */
+    private List<Message> mergeArchived(Long conversationId, List<Message> dbMessages, Long before, Long after,
+                                        long archivedMax, int want) {
+        List<Message> hot = dbMessages.stream()
+                .filter(m -> m.getId() > archivedMax)
+                .collect(Collectors.toList());
+        if (after != null) {
+            if (after >= archivedMax) {
+                return hot;
             }
-            log.info("ChatService: Successfully received user details, username={}", user.getUsername());
-            return user;
-        } catch (Exception ex) {
-            log.error("Lỗi khi gọi Auth-Service để lấy user ID {}: {}", userId, ex.getMessage());
-            return null;
+            // Cũ nhất trước: phần lưu trữ đứng trước, rồi tới DB
+            List<Message> merged = new ArrayList<>(messageArchiveStore.readAsc(conversationId, after, want));
+            if (merged.size() < want) {
+                merged.addAll(messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc(
+                        conversationId, archivedMax, PageRequest.of(0, want - merged.size())));
+            }
+            return merged;
+        }
+        if (hot.size() >= want) {
+            return hot;
+        }
+        // Mới nhất trước: DB hết thì đọc tiếp từ segment
+        List<Message> merged = new ArrayList<>(hot);
+        merged.addAll(messageArchiveStore.readDesc(conversationId, before, 0, want - hot.size()));
+        return merged;
+    }
+
+    private CursorPageDto<MessageDto> toCursorPage(List<Message> messages, int limit) {
+        boolean hasNext = messages.size() > limit;
+        List<MessageDto> content = messages.stream()
+                .limit(limit)
+                .map(MessageDto::fromEntity)
+                .collect(Collectors.toList());
+        String nextCursor = hasNext ? content.get(content.size() - 1).getId().toString() : null;
+        return new CursorPageDto<>(content, content.size(), nextCursor, hasNext);
+    }
+
+    private void requireParticipant(Long conversationId, Long currentUserId) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy cuộc hội thoại"));
+
+        if (!conversation.getParticipant1Id().equals(currentUserId) &&
+                !conversation.getParticipant2Id().equals(currentUserId)) {
+            log.warn("User {} cố gắng truy cập trái phép vào cuộc hội thoại {}",
+                    currentUserId, conversationId);
+            throw new AccessDeniedException("Bạn không có quyền xem cuộc hội thoại này");
         }
     }
 
     /**
      * Hàm helper gọi sang Auth-Service để lấy UserID (Long) từ Username (String).
+     * (Đọc claim identity trong token trước; chỉ gọi Auth-Service với token cũ/không có claim)
      */
     private UserDetailDto getUserDetailsFromAuthService(String username, String token) {
-        String url = authServiceUrl + "/api/internal/user/" + username;
+        UserDetailDto fromToken = tokenIdentityResolver.resolve(username, token);
+        if (fromToken != null) {
+            return fromToken;
+        }
         log.info("ChatService: Calling Auth-Service to get user details for: {}", username);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + token);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
+        UserDetailDto user;
         try {
-            ResponseEntity<UserDetailDto> response = restTemplate.exchange(
-                    url, HttpMethod.GET, entity, UserDetailDto.class
-            );
-            UserDetailDto user = response.getBody();
-            if (user == null || user.getId() == null) {
-                throw new RuntimeException("Không thể lấy thông tin (ID) user từ Auth-Service.");
-            }
-            log.info("ChatService: Successfully received user details, userId={}", user.getId());
-            return user;
+            // Các lượt tra cứu đồng thời được gộp thành một lời gọi batch
+            user = authUserBatchClient.lookupByUsername(username, token).get(AUTH_LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Không thể kết nối hoặc xác thực với Auth-Service.");
         } catch (Exception ex) {
             log.error("Lỗi khi gọi Auth-Service: {}", ex.getMessage());
             throw new IllegalStateException("Không thể kết nối hoặc xác thực với Auth-Service.");
         }
+        if (user == null || user.getId() == null) {
+            throw new RuntimeException("Không thể lấy thông tin (ID) user từ Auth-Service.");
+        }
+        log.info("ChatService: Successfully received user details, userId={}", user.getId());
+        return user;
     }
+
     /**
      * (Logic cho API: GET /api/notifications)
      * Lấy danh sách thông báo đã lưu trong DB của user
@@ -325,20 +457,53 @@ public class ChatService {
         );
         Long currentUserId = user.getId();
 
-        // 2. Tìm thông báo
+        // 2. Đánh dấu đã đọc bằng một câu UPDATE (chỉ khớp thông báo của chính user)
+        if (notificationRepository.markRead(notificationId, currentUserId) > 0) {
+            log.info("Notification {} của User {} đã được đánh dấu là đã đọc.", notificationId, currentUserId);
+            unreadCountService.refresh(currentUserId);
+            return;
+        }
+
+        // 3. Không cập nhật được: không tồn tại, của người khác, hoặc đã đọc rồi
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy thông báo với ID: " + notificationId));
-
-        // 3. Kiểm tra quyền sở hữu (Bắt buộc)
         if (!notification.getUserId().equals(currentUserId)) {
             log.warn("User {} cố gắng đánh dấu thông báo {} của người khác là đã đọc.",
                     currentUserId, notificationId);
             throw new AccessDeniedException("Bạn không có quyền chỉnh sửa thông báo này.");
         }
+    }
 
-        // 4. Đánh dấu đã đọc và lưu
-        notification.setRead(true);
-        notificationRepository.save(notification);
-        log.info("Notification {} của User {} đã được đánh dấu là đã đọc.", notificationId, currentUserId);
+    /**
+     * (Logic cho API: PATCH /api/notifications/read-all?upToId=...)
+     * Đánh dấu đã đọc hàng loạt: tất cả, hoặc các thông báo có ID <= upToId. Trả về số thông báo được cập nhật.
+     */
+    @Transactional
+    public int markNotificationsAsRead(Long upToId, Authentication authentication) {
+        UserDetailDto user = getUserDetailsFromAuthService(
+                authentication.getName(),
+                (String) authentication.getCredentials()
+        );
+        Long currentUserId = user.getId();
+
+        int updated = upToId != null
+                ? notificationRepository.markReadUpTo(currentUserId, upToId)
+                : notificationRepository.markAllRead(currentUserId);
+        if (updated > 0) {
+            unreadCountService.refresh(currentUserId);
+        }
+        log.info("Đã đánh dấu {} thông báo của User {} là đã đọc (upToId={})", updated, currentUserId, upToId);
+        return updated;
+    }
+
+    /**
+     * (Logic cho API: GET /api/notifications/unread-count)
+     */
+    public long getUnreadNotificationCount(Authentication authentication) {
+        UserDetailDto user = getUserDetailsFromAuthService(
+                authentication.getName(),
+                (String) authentication.getCredentials()
+        );
+        return unreadCountService.getUnreadCount(user.getId());
     }
 }
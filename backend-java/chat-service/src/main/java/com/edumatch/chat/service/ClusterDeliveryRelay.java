@@ -0,0 +1,189 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.config.ClusterMessagingConfig;
+import com.edumatch.chat.config.OutboundFlowControlInterceptor;
+import com.edumatch.chat.dto.ClusterDelivery;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chuyển tiếp bản tin WebSocket giữa các node chat-service (chỉ khi app.chat.cluster.enabled=true).
+ *
+ * - forward(): publish lên exchange chat.delivery với routing key "user.{userId}".
+ * - UserSessionRegistry báo user online/offline trên node này -> bind/unbind routing key đó vào
+ *   queue của node, nên RabbitMQ chỉ giao bản tin cho các node đang giữ phiên của người nhận.
+ * - Bind/unbind là round trip tới broker nên không chạy trên thread sự kiện STOMP: mỗi thay đổi presence chỉ
+ *   xếp lịch đồng bộ user đó trên một thread riêng (tuần tự). Lúc chạy, thread này đọc trạng thái thật
+ *   (isOnline) và so với binding đã khai báo, nên thông báo lệch thứ tự hay trùng lặp đều vô hại;
+ *   lỗi broker -> thử lại sau binding-retry-ms.
+ * - Khi kết nối RabbitMQ được tạo lại, bind lại toàn bộ user đang online (binding động không tự khôi phục).
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterDeliveryRelay implements UserSessionRegistry.PresenceListener, ConnectionListener {
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final ConnectionFactory connectionFactory;
+    private final Queue chatNodeQueue;
+    private final DirectExchange chatDeliveryExchange;
+    private final UserSessionRegistry sessionRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final long bindingRetryMillis;
+
+    private final ScheduledExecutorService bindingExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "chat-presence-binding");
+        t.setDaemon(true);
+        return t;
+    });
+    // User đang chờ đồng bộ binding (tránh xếp lịch trùng)
+    private final Set<Long> pendingSync = ConcurrentHashMap.newKeySet();
+    // User đã được bind routing key vào queue của node; chỉ truy cập trên bindingExecutor
+    private final Set<Long> boundUsers = new HashSet<>();
+
+    public ClusterDeliveryRelay(RabbitTemplate rabbitTemplate,
+                                AmqpAdmin amqpAdmin,
+                                ConnectionFactory connectionFactory,
+                                Queue chatNodeQueue,
+                                DirectExchange chatDeliveryExchange,
+                                UserSessionRegistry sessionRegistry,
+                                SimpMessagingTemplate messagingTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${app.chat.cluster.binding-retry-ms:2000}") long bindingRetryMillis) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.connectionFactory = connectionFactory;
+        this.chatNodeQueue = chatNodeQueue;
+        this.chatDeliveryExchange = chatDeliveryExchange;
+        this.sessionRegistry = sessionRegistry;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.bindingRetryMillis = bindingRetryMillis;
+    }
+
+    @PostConstruct
+    public void register() {
+        sessionRegistry.addListener(this);
+        connectionFactory.addConnectionListener(this);
+        log.info("Cluster delivery bật: node {} dùng queue {}", nodeId, chatNodeQueue.getName());
+    }
+
+    /**
+     * Gửi bản tin tới các node khác đang giữ phiên của người nhận (lỗi chỉ log, không ném ra).
+     */
+    public void forward(String destination, Object payload, String coalesceKey) {
+        Long userId = UserSessionRegistry.userIdOf(destination);
+        String routingKey = userId != null
+                ? ClusterMessagingConfig.USER_ROUTING_PREFIX + userId
+                : ClusterMessagingConfig.BROADCAST_ROUTING_KEY;
+        try {
+            ClusterDelivery delivery = new ClusterDelivery(nodeId, destination, objectMapper.valueToTree(payload), coalesceKey);
+            rabbitTemplate.convertAndSend(ClusterMessagingConfig.DELIVERY_EXCHANGE, routingKey, delivery);
+        } catch (Exception e) {
+            log.error("Không thể chuyển tiếp bản tin tới {} qua cluster: {}", destination, e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{chatNodeQueue.name}")
+    public void receive(ClusterDelivery delivery) {
+        if (nodeId.equals(delivery.getOriginNode())) {
+            return; // Node gửi đã giao cho các phiên cục bộ rồi
+        }
+        if (delivery.getCoalesceKey() != null) {
+            messagingTemplate.convertAndSend(delivery.getDestination(), delivery.getPayload(),
+                    Map.of(OutboundFlowControlInterceptor.COALESCE_KEY_HEADER, delivery.getCoalesceKey()));
+        } else {
+            messagingTemplate.convertAndSend(delivery.getDestination(), delivery.getPayload());
+        }
+    }
+
+    @Override
+    public void userOnline(Long userId) {
+        requestSync(userId);
+    }
+
+    @Override
+    public void userOffline(Long userId) {
+        requestSync(userId);
+    }
+
+    @Override
+    public void onCreate(Connection connection) {
+        // Chạy sau khi RabbitAdmin khai báo lại queue của node: binding cũ đã mất cùng queue, bind lại các user đang online
+        bindingExecutor.execute(() -> {
+            boundUsers.clear();
+            sessionRegistry.onlineUserIds().forEach(this::requestSync);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bindingExecutor.shutdownNow();
+    }
+
+    private void requestSync(Long userId) {
+        if (pendingSync.add(userId)) {
+            bindingExecutor.execute(() -> syncBinding(userId));
+        }
+    }
+
+    /**
+     * Đưa binding của user về đúng trạng thái presence hiện tại (chạy trên bindingExecutor).
+     */
+    void syncBinding(Long userId) {
+        pendingSync.remove(userId);
+        boolean online = sessionRegistry.isOnline(userId);
+        if (online == boundUsers.contains(userId)) {
+            return;
+        }
+        try {
+            if (online) {
+                amqpAdmin.declareBinding(userBinding(userId));
+                boundUsers.add(userId);
+            } else {
+                amqpAdmin.removeBinding(userBinding(userId));
+                boundUsers.remove(userId);
+            }
+        } catch (Exception e) {
+            log.warn("Không thể {} presence cho User {}, thử lại sau {} ms: {}",
+                    online ? "bind" : "unbind", userId, bindingRetryMillis, e.getMessage());
+            if (pendingSync.add(userId)) {
+                bindingExecutor.schedule(() -> syncBinding(userId), bindingRetryMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private Binding userBinding(Long userId) {
+        return BindingBuilder.bind(chatNodeQueue).to(chatDeliveryExchange)
+                .with(ClusterMessagingConfig.USER_ROUTING_PREFIX + userId);
+    }
+}
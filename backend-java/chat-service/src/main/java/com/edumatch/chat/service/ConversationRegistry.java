@@ -0,0 +1,193 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.repository.ConversationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quản lý hội thoại theo cặp người dùng cho luồng gửi tin nhắn.
+ *
+ * - Cache (min, max) -> conversationId trong bộ nhớ; hội thoại không bị xóa nên cache không cần TTL.
+ * - Tạo mới bằng INSERT IGNORE trên unique key uk_conv_pair (trong transaction riêng) nên
+ *   hai tin nhắn đầu tiên gửi đồng thời luôn dùng chung một hội thoại.
+ * - Khóa cặp của hội thoại cũ được backfill khi các singleton vừa tạo xong, trước khi web server / listener
+ *   nhận tin nhắn; nếu backfill lỗi thì tra cứu theo cách cũ (participant1/participant2) trước khi tạo mới.
+ * - Tin nhắn cuối (lastMessageAt + preview) được gộp trong bộ nhớ và ghi định kỳ bằng một JDBC batch,
+ *   thay vì UPDATE conversations cho mỗi tin nhắn.
+ */
+@Component
+@Slf4j
+public class ConversationRegistry implements SmartInitializingSingleton {
+
+    private record PairKey(Long lowId, Long highId) {
+        static PairKey of(Long a, Long b) {
+            return a <= b ? new PairKey(a, b) : new PairKey(b, a);
+        }
+    }
+
+    public record LastMessage(LocalDateTime sentAt, String preview, Long senderId) {
+        LastMessage newer(LastMessage other) {
+            return other == null || !other.sentAt().isAfter(sentAt) ? this : other;
+        }
+    }
+
+    // Không ghi đè nếu DB đã có tin nhắn mới hơn (ví dụ do instance khác ghi)
+    private static final String UPDATE_SQL =
+            "UPDATE conversations SET last_message_at = ?, last_message_preview = ?, last_message_sender_id = ? " +
+            "WHERE id = ? AND (last_message_at IS NULL OR last_message_at <= ?)";
+
+    private final ConversationRepository conversationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final int maxCachedPairs;
+
+    private final Map<PairKey, Long> pairCache = new ConcurrentHashMap<>();
+    private final Map<Long, LastMessage> pendingLastMessages = new ConcurrentHashMap<>();
+    private volatile boolean pairKeysBackfilled;
+
+    public ConversationRegistry(ConversationRepository conversationRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.chat.pair-cache.max-size:100000}") int maxCachedPairs) {
+        this.conversationRepository = conversationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCachedPairs = maxCachedPairs;
+    }
+
+    /**
+     * Trả về ID hội thoại giữa 2 user, tạo mới nếu chưa có.
+     * Chạy trong transaction riêng (đã commit khi trả về) để không phụ thuộc snapshot của transaction gọi.
+     */
+    public Long resolveConversationId(Long senderId, Long receiverId) {
+        PairKey key = PairKey.of(senderId, receiverId);
+        Long cached = pairCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Long conversationId = newTransaction.execute(status ->
+                conversationRepository.findIdByPair(key.lowId(), key.highId())
+                        .or(() -> pairKeysBackfilled ? Optional.empty()
+                                : conversationRepository.findLatestIdByParticipants(key.lowId(), key.highId()))
+                        .orElse(null));
+        if (conversationId == null) {
+            // INSERT trước rồi mới SELECT: nếu transaction khác vừa tạo cùng cặp thì INSERT chờ khóa
+            // unique rồi bỏ qua, SELECT sau đó thấy được bản ghi đã commit.
+            conversationId = newTransaction.execute(status -> {
+                if (conversationRepository.insertIgnore(senderId, receiverId, LocalDateTime.now()) > 0) {
+                    log.info("Tạo cuộc hội thoại mới giữa User {} và User {}", senderId, receiverId);
+                }
+                return conversationRepository.findIdByPair(key.lowId(), key.highId())
+                        .orElseThrow(() -> new IllegalStateException("Không thể tạo cuộc hội thoại"));
+            });
+        }
+
+        if (pairCache.size() >= maxCachedPairs) {
+            pairCache.clear();
+        }
+        pairCache.put(key, conversationId);
+        return conversationId;
+    }
+
+    /**
+     * Ghi nhận tin nhắn cuối của hội thoại; chỉ áp dụng sau khi transaction lưu tin nhắn commit.
+     */
+    public void recordLastMessage(Long conversationId, LocalDateTime sentAt, String preview, Long senderId) {
+        LastMessage lastMessage = new LastMessage(sentAt, preview, senderId);
+        Runnable apply = () -> pendingLastMessages.merge(conversationId, lastMessage, LastMessage::newer);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Tin nhắn cuối chưa được flush xuống DB (để inbox hiển thị ngay trên instance này).
+     */
+    public LastMessage pendingLastMessage(Long conversationId) {
+        return pendingLastMessages.get(conversationId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.last-message-flush-ms:1000}")
+    public void flush() {
+        if (pendingLastMessages.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(pendingLastMessages.keySet());
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        Map<Long, LastMessage> drained = new ConcurrentHashMap<>();
+        for (Long id : ids) {
+            LastMessage lastMessage = pendingLastMessages.remove(id);
+            if (lastMessage != null) {
+                drained.put(id, lastMessage);
+                Timestamp sentAt = Timestamp.valueOf(lastMessage.sentAt());
+                batch.add(new Object[]{sentAt, lastMessage.preview(), lastMessage.senderId(), id, sentAt});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            log.debug("Đã flush tin nhắn cuối cho {} cuộc hội thoại", batch.size());
+        } catch (Exception e) {
+            // Trả lại để thử ở lần sau (giữ bản mới hơn nếu có tin nhắn đến trong lúc flush)
+            log.warn("Không thể flush tin nhắn cuối ({} hội thoại): {}", batch.size(), e.getMessage());
+            drained.forEach((id, lastMessage) -> pendingLastMessages.merge(id, lastMessage, LastMessage::newer));
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    /**
+     * Gán khóa cặp cho các hội thoại tạo trước khi có cột pair_low_id/pair_high_id.
+     * Chạy khi mọi singleton đã tạo xong nhưng trước khi web server (STOMP) và listener RabbitMQ khởi động:
+     * nếu chạy sau khi đã nhận tin nhắn, tin nhắn đầu tiên của cặp cũ sẽ tạo hội thoại trùng.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillPairKeys();
+    }
+
+    void backfillPairKeys() {
+        try {
+            Integer updated = newTransaction.execute(status -> conversationRepository.backfillPairKeys());
+            if (updated != null && updated > 0) {
+                log.info("Đã gán khóa cặp cho {} cuộc hội thoại", updated);
+            }
+            pairKeysBackfilled = true;
+        } catch (Exception e) {
+            log.warn("Không thể backfill khóa cặp hội thoại, dùng cách tra cứu cũ: {}", e.getMessage());
+        }
+    }
+}
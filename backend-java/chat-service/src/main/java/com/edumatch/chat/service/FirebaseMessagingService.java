@@ -3,24 +3,52 @@ package com.edumatch.chat.service;
 import com.edumatch.chat.model.FcmToken;
 import com.edumatch.chat.repository.FcmTokenRepository;
 import com.google.firebase.messaging.*;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Chuẩn bị push notification cho user: tra token (có cache) rồi giao cho PushDispatcher gửi bất đồng bộ.
+ * Không gọi Firebase trên thread của người gọi.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FirebaseMessagingService {
 
+    private record CachedToken(String deviceToken, long expiresAt) {
+    }
+
     private final FcmTokenRepository fcmTokenRepository;
+    private final PushDispatcher pushDispatcher;
+    private final long tokenTtlMillis;
+    private final int maxCachedTokens;
+
+    // userId -> token (null = user không có token)
+    private final Map<Long, CachedToken> tokenCache = new ConcurrentHashMap<>();
+
+    public FirebaseMessagingService(FcmTokenRepository fcmTokenRepository,
+                                    PushDispatcher pushDispatcher,
+                                    @Value("${app.push.token-cache.ttl-seconds:300}") long tokenTtlSeconds,
+                                    @Value("${app.push.token-cache.max-size:50000}") int maxCachedTokens) {
+        this.fcmTokenRepository = fcmTokenRepository;
+        this.pushDispatcher = pushDispatcher;
+        this.tokenTtlMillis = tokenTtlSeconds * 1000;
+        this.maxCachedTokens = maxCachedTokens;
+        // Token bị FCM từ chối: bỏ khỏi cache (chỉ khi cache vẫn đang giữ đúng token đó)
+        pushDispatcher.setInvalidTokenHandler((userId, token) ->
+                tokenCache.computeIfPresent(userId, (id, cached) -> token.equals(cached.deviceToken()) ? null : cached));
+    }
 
     /**
-     * Gửi Push Notification đến một UserID cụ thể
+     * Gửi Push Notification đến một UserID cụ thể (bất đồng bộ)
      */
     public void sendNotification(Long userId, String title, String body, String type, String referenceId) {
-        log.info("🔔 [FCM] Bắt đầu gửi notification cho User ID: {}", userId);
+        log.debug("🔔 [FCM] Bắt đầu gửi notification cho User ID: {}", userId);
         log.debug("🔔 [FCM] Notification details - Title: '{}', Body: '{}', Type: '{}', Ref: '{}'", 
                   title, body, type, referenceId);
         
@@ -40,101 +68,89 @@ public class FirebaseMessagingService {
             body = "You have a new notification";
         }
         
-        // 2. Lấy device token của người dùng từ CSDL
-        Optional<FcmToken> fcmTokenOptional = fcmTokenRepository.findByUserId(userId);
-
-        if (fcmTokenOptional.isEmpty()) {
-            log.warn("⚠️ [FCM] Không tìm thấy FCM token cho User ID: {}. User chưa đăng ký device.", userId);
-            log.info("💡 [FCM] Hint: User cần gọi POST /api/fcm/register với FCM token từ mobile app");
-            return;
-        }
+        // 2. Lấy device token của người dùng (cache trong bộ nhớ, chỉ đọc CSDL khi cache miss)
+        String deviceToken = resolveToken(userId);
 
-        FcmToken fcmTokenEntity = fcmTokenOptional.get();
-        String deviceToken = fcmTokenEntity.getDeviceToken();
-        
         if (deviceToken == null || deviceToken.trim().isEmpty()) {
-            log.error("❌ [FCM] Device token rỗng cho User ID: {}", userId);
+            log.debug("⚠️ [FCM] Không có FCM token cho User ID: {}. User chưa đăng ký device.", userId);
             return;
         }
-        
-        log.info("✅ [FCM] Tìm thấy device token cho User {}: {}...", userId, 
-                 deviceToken.length() > 20 ? deviceToken.substring(0, 20) : deviceToken);
 
         // 3. Xây dựng nội dung thông báo
-        try {
-            Notification notification = Notification.builder()
-                    .setTitle(title)
-                    .setBody(body)
-                    .build();
-            
-            Message.Builder messageBuilder = Message.builder()
-                    .setNotification(notification)
-                    .putData("type", type != null ? type : "GENERAL")
-                    .putData("referenceId", referenceId != null ? referenceId : "")
-                    .putData("userId", userId.toString())
-                    .setToken(deviceToken);
-            
-            // Thêm Android config để hiển thị đúng
-            AndroidConfig androidConfig = AndroidConfig.builder()
-                    .setPriority(AndroidConfig.Priority.HIGH)
-                    .setNotification(AndroidNotification.builder()
-                            .setClickAction("FLUTTER_NOTIFICATION_CLICK")
-                            .setSound("default")
-                            .build())
-                    .build();
-            
-            messageBuilder.setAndroidConfig(androidConfig);
-            
-            // Thêm APNS config cho iOS
-            ApnsConfig apnsConfig = ApnsConfig.builder()
-                    .setAps(Aps.builder()
-                            .setSound("default")
-                            .setBadge(1)
-                            .build())
-                    .build();
-            
-            messageBuilder.setApnsConfig(apnsConfig);
-            
-            Message message = messageBuilder.build();
-            
-            log.debug("📦 [FCM] Message payload created: {}", message);
-
-            // 4. Gửi qua Firebase
-            log.info("📤 [FCM] Đang gửi notification qua Firebase Cloud Messaging...");
-            String response = FirebaseMessaging.getInstance().send(message);
-            
-            log.info("✅ [FCM] Gửi thành công! User: {}, Response ID: {}", userId, response);
-            log.debug("✅ [FCM] Full response: {}", response);
-            
-        } catch (FirebaseMessagingException e) {
-            log.error("❌ [FCM] Lỗi khi gửi notification đến User {}", userId);
-            log.error("❌ [FCM] Error message: {}", e.getMessage());
-            
-            // Xử lý các loại lỗi cụ thể
-            String errorCode = e.getMessagingErrorCode() != null ? e.getMessagingErrorCode().name() : "UNKNOWN";
-            log.error("❌ [FCM] Error code: {}", errorCode);
-            log.error("❌ [FCM] Stack trace: ", e);
-            
-            if ("NOT_FOUND".equals(errorCode) || "INVALID_ARGUMENT".equals(errorCode) || "UNREGISTERED".equals(errorCode)) {
-                log.warn("🗑️ [FCM] Token không hợp lệ hoặc đã hết hạn. Xóa token khỏi DB cho User {}", userId);
-                try {
-                    fcmTokenRepository.deleteById(fcmTokenEntity.getId());
-                    log.info("✅ [FCM] Đã xóa token không hợp lệ cho User {}", userId);
-                } catch (Exception ex) {
-                    log.error("❌ [FCM] Lỗi khi xóa token: {}", ex.getMessage());
+        Notification notification = Notification.builder()
+                .setTitle(title)
+                .setBody(body)
+                .build();
+
+        Message.Builder messageBuilder = Message.builder()
+                .setNotification(notification)
+                .putData("type", type != null ? type : "GENERAL")
+                .putData("referenceId", referenceId != null ? referenceId : "")
+                .putData("userId", userId.toString())
+                .setToken(deviceToken);
+
+        // Thêm Android config để hiển thị đúng
+        AndroidConfig androidConfig = AndroidConfig.builder()
+                .setPriority(AndroidConfig.Priority.HIGH)
+                .setNotification(AndroidNotification.builder()
+                        .setClickAction("FLUTTER_NOTIFICATION_CLICK")
+                        .setSound("default")
+                        .build())
+                .build();
+
+        messageBuilder.setAndroidConfig(androidConfig);
+
+        // Thêm APNS config cho iOS
+        ApnsConfig apnsConfig = ApnsConfig.builder()
+                .setAps(Aps.builder()
+                        .setSound("default")
+                        .setBadge(1)
+                        .build())
+                .build();
+
+        messageBuilder.setApnsConfig(apnsConfig);
+
+        // 4. Đưa vào hàng đợi gửi (PushDispatcher gửi theo lô, retry và dọn token hỏng)
+        if (pushDispatcher.enqueue(userId, deviceToken, messageBuilder.build())) {
+            log.debug("📤 [FCM] Đã đưa notification của User {} vào hàng đợi gửi", userId);
+        }
+    }
+
+    /**
+     * Xóa token của user khỏi cache sau khi transaction hiện tại commit
+     * (gọi khi đăng ký / hủy đăng ký token).
+     */
+    public void invalidateToken(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokenCache.remove(userId);
                 }
-            } else if ("QUOTA_EXCEEDED".equals(errorCode)) {
-                log.error("❌ [FCM] Vượt quá quota FCM. Kiểm tra Firebase Console.");
-            } else if ("UNAVAILABLE".equals(errorCode)) {
-                log.error("❌ [FCM] Firebase service tạm thời không khả dụng. Thử lại sau.");
-            } else if ("INTERNAL".equals(errorCode)) {
-                log.error("❌ [FCM] Lỗi internal từ Firebase. Kiểm tra cấu hình Firebase Admin SDK.");
-            } else {
-                log.error("❌ [FCM] Lỗi không xác định: {}", errorCode);
+            });
+        } else {
+            tokenCache.remove(userId);
+        }
+    }
+
+    private String resolveToken(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedToken cached = tokenCache.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.deviceToken();
+        }
+        // Cache cả trường hợp không có token: phần lớn user web không đăng ký thiết bị
+        String deviceToken = fcmTokenRepository.findByUserId(userId)
+                .map(FcmToken::getDeviceToken)
+                .orElse(null);
+        if (tokenCache.size() >= maxCachedTokens) {
+            tokenCache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (tokenCache.size() >= maxCachedTokens) {
+                tokenCache.clear();
             }
-        } catch (Exception e) {
-            log.error("❌ [FCM] Lỗi không mong đợi khi gửi notification cho User {}: {}", userId, e.getMessage(), e);
         }
+        tokenCache.put(userId, new CachedToken(deviceToken, now + tokenTtlMillis));
+        return deviceToken;
     }
     
     /**
@@ -0,0 +1,34 @@
+package com.edumatch.chat.service;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.SendResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gửi push qua Firebase Cloud Messaging (mặc định).
+ */
+@Component
+@ConditionalOnProperty(name = "app.push.client", havingValue = "firebase", matchIfMissing = true)
+public class FirebasePushClient implements PushClient {
+
+    @Override
+    public List<Result> sendEach(List<Message> messages) throws Exception {
+        BatchResponse response = FirebaseMessaging.getInstance().sendEach(messages);
+        List<Result> results = new ArrayList<>(messages.size());
+        for (SendResponse sendResponse : response.getResponses()) {
+            if (sendResponse.isSuccessful()) {
+                results.add(Result.ok(sendResponse.getMessageId()));
+            } else {
+                results.add(Result.failed(sendResponse.getException().getMessagingErrorCode(),
+                        sendResponse.getException().getMessage()));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,68 @@
+package com.edumatch.chat.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sinh ID tin nhắn theo thời gian ngay trong service (không cần IDENTITY của DB),
+ * để có ID trước khi ghi và cho phép insert nhiều dòng một lần.
+ *
+ * Bố cục 53 bit (an toàn với Number của JavaScript): 41 bit mili-giây từ 2024-01-01 | 6 bit node | 6 bit sequence.
+ * ID tăng dần theo thời gian và luôn lớn hơn các ID AUTO_INCREMENT cũ.
+ * Khi chạy nhiều instance (app.chat.cluster.enabled=true) bắt buộc đặt app.chat.node-id khác nhau
+ * cho mỗi instance - thiếu thì service không khởi động (ID suy ra từ hostname có thể trùng giữa các node).
+ */
+@Component
+@Slf4j
+public class MessageIdGenerator {
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 6;
+    private static final int SEQUENCE_BITS = 6;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private long lastMillis = -1L;
+    private long sequence = 0L;
+
+    public MessageIdGenerator(@Value("${app.chat.node-id:-1}") long configuredNodeId,
+                              @Value("${app.chat.cluster.enabled:false}") boolean clusterEnabled) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.chat.node-id phải nằm trong khoảng 0.." + MAX_NODE_ID);
+        }
+        if (configuredNodeId >= 0) {
+            this.nodeId = configuredNodeId;
+        } else if (clusterEnabled) {
+            throw new IllegalStateException(
+                    "app.chat.cluster.enabled=true nhưng chưa cấu hình app.chat.node-id (CHAT_NODE_ID) cho instance này");
+        } else {
+            // Chỉ một instance: node-id nào cũng không thể trùng
+            this.nodeId = 0L;
+            log.info("Chưa cấu hình app.chat.node-id, chạy một node với node-id 0");
+        }
+    }
+
+    public synchronized long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        if (now < lastMillis) {
+            // Đồng hồ lùi: tiếp tục dùng mốc cũ để ID vẫn tăng dần
+            now = lastMillis;
+        }
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // Hết sequence trong mili-giây này: chờ sang mili-giây kế tiếp
+                while (now <= lastMillis) {
+                    Thread.onSpinWait();
+                    now = System.currentTimeMillis() - EPOCH_MILLIS;
+                }
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return (now << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
@@ -0,0 +1,191 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.model.Message;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi tin nhắn theo nhóm (group commit).
+ *
+ * - submit() gán ID (MessageIdGenerator) + sentAt rồi đưa vào hàng đợi có giới hạn; đầy thì từ chối ngay.
+ * - Một thread ghi gom tối đa max-batch tin nhắn hoặc chờ tối đa linger-ms, rồi ghi bằng một câu
+ *   INSERT nhiều dòng (autocommit). Lỗi cả lô thì ghi lại từng dòng để chỉ tin nhắn lỗi bị từ chối.
+ * - Future trong Submission chỉ hoàn thành khi tin nhắn đã nằm trong DB: dùng để xác nhận cho người gửi.
+ */
+@Component
+@Slf4j
+public class MessageIngestionPipeline {
+
+    public record Submission(Message message, CompletableFuture<Message> persisted) {
+    }
+
+    /**
+     * Hàng đợi đầy (hoặc pipeline đang dừng): tin nhắn (đã có ID) không được nhận để ghi.
+     */
+    public static class RejectedException extends IllegalStateException {
+
+        private final transient Message rejected;
+
+        public RejectedException(Message rejected) {
+            super("Hệ thống chat đang quá tải, vui lòng thử lại.");
+            this.rejected = rejected;
+        }
+
+        public Message getRejected() {
+            return rejected;
+        }
+    }
+
+    private record Pending(Message message, CompletableFuture<Message> persisted) {
+    }
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO messages (id, conversation_id, sender_id, content, sent_at) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageIdGenerator idGenerator;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long lingerNanos;
+
+    // Hoàn thành future ngoài thread ghi để callback (broadcast, push...) không làm chậm lô kế tiếp
+    private final ExecutorService callbackExecutor = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "message-ingest-callback");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public MessageIngestionPipeline(JdbcTemplate jdbcTemplate,
+                                    MessageIdGenerator idGenerator,
+                                    @Value("${app.chat.ingest.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${app.chat.ingest.max-batch:200}") int maxBatch,
+                                    @Value("${app.chat.ingest.linger-ms:5}") long lingerMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGenerator = idGenerator;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.writer = new Thread(this::writeLoop, "message-ingest-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Nhận tin nhắn (chưa có ID) vào hàng đợi. Message trả về đã có id/sentAt để broadcast ngay.
+     */
+    public Submission submit(Message message) {
+        message.setId(idGenerator.nextId());
+        message.setSentAt(LocalDateTime.now());
+
+        CompletableFuture<Message> persisted = new CompletableFuture<>();
+        if (!running || !queue.offer(new Pending(message, persisted))) {
+            throw new RejectedException(message);
+        }
+        return new Submission(message, persisted);
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Lỗi không mong đợi trong message-ingest-writer: {}", e.getMessage(), e);
+                batch.forEach(p -> fail(p, e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        try {
+            insertRows(batch);
+            log.debug("Đã ghi lô {} tin nhắn", batch.size());
+            batch.forEach(this::complete);
+        } catch (Exception batchError) {
+            log.warn("Ghi lô {} tin nhắn thất bại, thử ghi từng tin: {}", batch.size(), batchError.getMessage());
+            for (Pending pending : batch) {
+                try {
+                    insertRows(List.of(pending));
+                    complete(pending);
+                } catch (Exception rowError) {
+                    log.error("Không thể lưu tin nhắn {}: {}", pending.message().getId(), rowError.getMessage());
+                    fail(pending, rowError);
+                }
+            }
+        }
+    }
+
+    private void insertRows(List<Pending> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        Object[] args = new Object[rows.size() * 5];
+        int i = 0;
+        for (Pending pending : rows) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+            Message m = pending.message();
+            args[i++] = m.getId();
+            args[i++] = m.getConversationId();
+            args[i++] = m.getSenderId();
+            args[i++] = m.getContent();
+            args[i++] = Timestamp.valueOf(m.getSentAt());
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private void complete(Pending pending) {
+        callbackExecutor.execute(() -> pending.persisted().complete(pending.message()));
+    }
+
+    private void fail(Pending pending, Exception e) {
+        callbackExecutor.execute(() -> pending.persisted().completeExceptionally(e));
+    }
+
+    /**
+     * Ngừng nhận tin mới, ghi nốt hàng đợi rồi mới tắt.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        callbackExecutor.shutdown();
+        callbackExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -3,51 +3,173 @@ package com.edumatch.chat.service;
 import com.edumatch.chat.config.RabbitMQConfig;
 import com.edumatch.chat.dto.NotificationEvent;
 import com.edumatch.chat.model.Notification;
-import com.edumatch.chat.repository.NotificationRepository;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.QueueInformation;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+/**
+ * Xử lý notification từ các service (Scholarship, Matching, Application) theo lô.
+ *
+ * - Container batch (notificationBatchContainerFactory) giao cả lô tin nhắn cho một lần gọi.
+ * - Cả lô được lưu bằng một JDBC batch trong một transaction; listener trả về thì lô mới được ack.
+ * - Gửi WebSocket + FCM chạy song song trên thread pool riêng, không giữ thread listener.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationConsumer {
 
-    private final NotificationRepository notificationRepository;
+    private record NotificationContent(Long recipientId, String title, String body, String type,
+                                       String referenceId, String opportunityTitle) {
+    }
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, title, body, type, reference_id, is_read, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
     private final FirebaseMessagingService firebaseMessagingService;
-    private final SimpMessagingTemplate messagingTemplate; // WebSocket
+    private final RealtimeDeliveryService realtimeDeliveryService; // WebSocket (cục bộ + các node khác)
+    private final UnreadCountService unreadCountService;
+    private final ExecutorService dispatchExecutor;
+
+    private final DistributionSummary batchSize;
+    private final Timer persistTimer;
+    private final Timer queueLag;
+
+    public NotificationConsumer(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                FirebaseMessagingService firebaseMessagingService,
+                                RealtimeDeliveryService realtimeDeliveryService,
+                                UnreadCountService unreadCountService,
+                                AmqpAdmin amqpAdmin,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.notification.dispatch.threads:8}") int dispatchThreads,
+                                @Value("${app.notification.dispatch.queue-capacity:2000}") int dispatchQueueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.firebaseMessagingService = firebaseMessagingService;
+        this.realtimeDeliveryService = realtimeDeliveryService;
+        this.unreadCountService = unreadCountService;
+
+        // Hàng đợi đầy thì thread listener tự gửi (CallerRuns): giảm tốc độ nhận thay vì bỏ thông báo
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.dispatchExecutor = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(dispatchQueueCapacity), r -> {
+                    Thread t = new Thread(r, "notification-dispatch-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.batchSize = DistributionSummary.builder("notification.consumer.batch.size")
+                .description("Số notification trong mỗi lô nhận từ notification_queue")
+                .register(meterRegistry);
+        this.persistTimer = Timer.builder("notification.consumer.batch.persist")
+                .description("Thời gian lưu một lô notification")
+                .register(meterRegistry);
+        this.queueLag = Timer.builder("notification.queue.lag")
+                .description("Thời gian từ lúc sự kiện được tạo tới lúc được xử lý (cần timestamp từ producer)")
+                .register(meterRegistry);
+        Gauge.builder("notification.queue.depth", amqpAdmin, NotificationConsumer::queueDepth)
+                .description("Số tin nhắn đang chờ trong notification_queue")
+                .register(meterRegistry);
+    }
 
     /**
-     * Lắng nghe Queue "notification_queue"
-     * Xử lý notification từ các service: Scholarship, Matching, Application
+     * Lắng nghe Queue "notification_queue" theo lô
+     * Lỗi khi lưu CSDL sẽ ném ra ngoài -> cả lô bị reject và được giao lại.
      */
-    @RabbitListener(queues = RabbitMQConfig.NOTIFICATION_QUEUE)
-    @Transactional
-    public void handleNotificationEvent(NotificationEvent event) {
-        log.info("📬 [NotificationConsumer] ============================================");
-        log.info("📬 [NotificationConsumer] Received new event from RabbitMQ");
+    @RabbitListener(queues = RabbitMQConfig.NOTIFICATION_QUEUE, containerFactory = "notificationBatchContainerFactory")
+    public void handleNotificationEvents(List<Message> messages) {
+        batchSize.record(messages.size());
+        long now = System.currentTimeMillis();
+
+        List<NotificationContent> contents = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (message.getMessageProperties().getTimestamp() != null) {
+                long lagMillis = now - message.getMessageProperties().getTimestamp().getTime();
+                queueLag.record(Duration.ofMillis(Math.max(0, lagMillis)));
+            }
+            NotificationContent content = toContent(message);
+            if (content != null) {
+                contents.add(content);
+            }
+        }
+        if (contents.isEmpty()) {
+            return;
+        }
+
+        // 1. Lưu cả lô vào CSDL
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<Notification> saved = persistTimer.record(() -> transactionTemplate.execute(status -> insertAll(contents, createdAt)));
+        log.info("✅ [NotificationConsumer] Đã lưu {} notification (lô {} tin nhắn)", saved.size(), messages.size());
+
+        unreadCountService.recordInserted(saved.stream().map(Notification::getUserId).collect(Collectors.toSet()));
+
+        // 2. Gửi WebSocket + FCM song song, ngoài thread listener
+        for (int i = 0; i < saved.size(); i++) {
+            Notification notification = saved.get(i);
+            NotificationContent content = contents.get(i);
+            dispatchExecutor.execute(() -> dispatch(notification, content));
+        }
+    }
+
+    /**
+     * Đọc event và tạo nội dung thông báo; trả về null nếu event không hợp lệ (bỏ qua, không làm hỏng cả lô).
+     */
+    private NotificationContent toContent(Message message) {
+        NotificationEvent event;
+        try {
+            event = objectMapper.readValue(message.getBody(), NotificationEvent.class);
+        } catch (Exception e) {
+            log.error("❌ [NotificationConsumer] Không đọc được event (bỏ qua): {}", e.getMessage());
+            return null;
+        }
         log.debug("📬 [NotificationConsumer] Event details: {}", event);
-        
-        Long recipientId = event.getRecipientId();
 
+        Long recipientId = event.getRecipientId();
         if (recipientId == null) {
             log.error("❌ [NotificationConsumer] CRITICAL: Không xác định được ID người nhận");
             log.error("❌ [NotificationConsumer] Event data: {}", event);
             log.error("❌ [NotificationConsumer] Kiểm tra: recipientId, userId, creatorUserId trong event");
-            log.error("📬 [NotificationConsumer] ============================================");
-            return;
+            return null;
         }
 
-        log.info("📬 [NotificationConsumer] Recipient User ID: {}", recipientId);
-        log.info("📬 [NotificationConsumer] Event Type: {}", event.getType());
-
         // Xử lý logic và tạo nội dung
         String type = Optional.ofNullable(event.getType()).orElse("GENERAL");
         String title = Optional.ofNullable(event.getTitle()).orElse("Cập nhật từ EduMatch");
@@ -56,92 +178,122 @@ public class NotificationConsumer {
 
         // Xử lý các loại event cụ thể
         if ("SCHOLARSHIP_APPROVED".equals(type) || "SCHOLARSHIP_REJECTED".equals(type)) {
-            log.info("📬 [NotificationConsumer] Processing SCHOLARSHIP status event");
             // scholarship.updated - thông báo cho người tạo
             title = Optional.ofNullable(event.getTitle()).orElse("Cập nhật học bổng");
             referenceId = event.getOpportunityId();
-            log.debug("📬 [NotificationConsumer] Scholarship ID: {}", referenceId);
-            
+
         } else if (event.getApplicationId() != null) {
-            log.info("📬 [NotificationConsumer] Processing APPLICATION status event");
             // Application status changed
             type = "APPLICATION_STATUS";
             title = String.format("Cập nhật đơn: %s", event.getStatus());
             referenceId = event.getApplicationId().toString();
-            log.debug("📬 [NotificationConsumer] Application ID: {}", referenceId);
-            
+
         } else if (event.getOpportunityId() != null && "NEW_MATCH".equals(type)) {
-            log.info("📬 [NotificationConsumer] Processing NEW_MATCH event");
             // New match from matching service
             type = "NEW_MATCH";
             title = "🎯 Cơ hội mới phù hợp với bạn!";
             referenceId = event.getOpportunityId();
-            log.debug("📬 [NotificationConsumer] Matched Opportunity ID: {}", referenceId);
         }
 
-        log.info("📬 [NotificationConsumer] Final notification content:");
-        log.info("📬 [NotificationConsumer]   Title: {}", title);
-        log.info("📬 [NotificationConsumer]   Body: {}", body);
-        log.info("📬 [NotificationConsumer]   Type: {}", type);
-        log.info("📬 [NotificationConsumer]   Reference ID: {}", referenceId);
-
-        // 1. Lưu vào CSDL
-        log.info("💾 [NotificationConsumer] Saving to database...");
-        Notification notification = Notification.builder()
-                .userId(recipientId)
-                .title(title)
-                .body(body)
-                .type(type)
-                .referenceId(referenceId)
-                .isRead(false)
-                .build();
-
-        notification = notificationRepository.save(notification);
-        log.info("✅ [NotificationConsumer] Saved Notification ID: {} for User {}", notification.getId(), recipientId);
-
-        // 2. Gửi qua WebSocket (Real-time cho web)
+        log.debug("📬 [NotificationConsumer] User {} - Type: {}, Title: {}, Ref: {}", recipientId, type, title, referenceId);
+        return new NotificationContent(recipientId, title, body, type, referenceId, event.getOpportunityTitle());
+    }
+
+    /**
+     * Insert cả lô bằng JDBC batch, lấy lại ID tự tăng theo đúng thứ tự.
+     */
+    private List<Notification> insertAll(List<NotificationContent> contents, LocalDateTime createdAt) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Notification>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp createdAtTs = Timestamp.valueOf(createdAt);
+                for (NotificationContent content : contents) {
+                    ps.setLong(1, content.recipientId());
+                    ps.setString(2, content.title());
+                    ps.setString(3, content.body());
+                    ps.setString(4, content.type());
+                    ps.setString(5, content.referenceId());
+                    ps.setBoolean(6, false);
+                    ps.setTimestamp(7, createdAtTs);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Notification> saved = new ArrayList<>(contents.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (NotificationContent content : contents) {
+                        Long id = keys.next() ? keys.getLong(1) : null;
+                        saved.add(Notification.builder()
+                                .id(id)
+                                .userId(content.recipientId())
+                                .title(content.title())
+                                .body(content.body())
+                                .type(content.type())
+                                .referenceId(content.referenceId())
+                                .isRead(false)
+                                .createdAt(createdAt)
+                                .build());
+                    }
+                }
+                return saved;
+            }
+        });
+    }
+
+    private void dispatch(Notification notification, NotificationContent content) {
+        Long recipientId = notification.getUserId();
+
+        // 1. Gửi qua WebSocket (Real-time cho web)
         try {
-            log.info("📡 [NotificationConsumer] Sending via WebSocket...");
             Map<String, Object> notifPayload = new HashMap<>();
             notifPayload.put("id", notification.getId());
-            notifPayload.put("title", title);
-            notifPayload.put("body", body);
-            notifPayload.put("message", body); // Add 'message' field for frontend compatibility
-            notifPayload.put("type", type);
-            notifPayload.put("referenceId", referenceId);
+            notifPayload.put("title", notification.getTitle());
+            notifPayload.put("body", notification.getBody());
+            notifPayload.put("message", notification.getBody()); // Add 'message' field for frontend compatibility
+            notifPayload.put("type", notification.getType());
+            notifPayload.put("referenceId", notification.getReferenceId());
             notifPayload.put("createdAt", notification.getCreatedAt());
             notifPayload.put("isRead", false);
             notifPayload.put("read", false); // Add 'read' field for frontend compatibility
-            
+            notifPayload.put("unreadCount", unreadCountService.getUnreadCount(recipientId));
+
             // Add opportunityTitle if present (for scholarship details in notification)
-            if (event.getOpportunityTitle() != null) {
-                notifPayload.put("opportunityTitle", event.getOpportunityTitle());
-                log.info("📬 [NotificationConsumer] Added opportunityTitle: {}", event.getOpportunityTitle());
+            if (content.opportunityTitle() != null) {
+                notifPayload.put("opportunityTitle", content.opportunityTitle());
             }
-            
+
             String destination = "/topic/notifications/" + recipientId;
-            messagingTemplate.convertAndSend(destination, notifPayload);
-            log.info("✅ [NotificationConsumer] WebSocket sent to: {}", destination);
+            realtimeDeliveryService.send(destination, notifPayload);
+            log.debug("✅ [NotificationConsumer] WebSocket sent to: {}", destination);
         } catch (Exception e) {
             log.error("❌ [NotificationConsumer] WebSocket ERROR: {}", e.getMessage(), e);
         }
 
-        // 3. Gửi Push Notification (FCM cho mobile)
-        log.info("📱 [NotificationConsumer] Delegating to FirebaseMessagingService...");
+        // 2. Gửi Push Notification (FCM cho mobile)
         try {
             firebaseMessagingService.sendNotification(
                     recipientId,
-                    title,
-                    body,
-                    type,
-                    referenceId
+                    notification.getTitle(),
+                    notification.getBody(),
+                    notification.getType(),
+                    notification.getReferenceId()
             );
-            log.info("✅ [NotificationConsumer] FCM delegation completed (check FCM logs above)");
         } catch (Exception e) {
             log.error("❌ [NotificationConsumer] FCM delegation ERROR: {}", e.getMessage(), e);
         }
-        
-        log.info("✅ [NotificationConsumer] Event processing COMPLETE for User {}", recipientId);
-        log.info("📬 [NotificationConsumer] ============================================");
     }
-}
\ No newline at end of file
+
+    private static double queueDepth(AmqpAdmin amqpAdmin) {
+        try {
+            QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.NOTIFICATION_QUEUE);
+            return info != null ? info.getMessageCount() : Double.NaN;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatchExecutor.shutdown();
+        dispatchExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
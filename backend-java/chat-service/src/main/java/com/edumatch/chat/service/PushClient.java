@@ -0,0 +1,35 @@
+package com.edumatch.chat.service;
+
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+
+import java.util.List;
+
+/**
+ * Lớp gửi push thực tế (Firebase hoặc stub cục bộ), được PushDispatcher gọi theo lô.
+ */
+public interface PushClient {
+
+    /**
+     * Giới hạn số tin nhắn trong một lần sendEach của FCM.
+     */
+    int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Kết quả cho từng tin nhắn, cùng thứ tự với danh sách gửi đi.
+     */
+    record Result(boolean success, String messageId, MessagingErrorCode errorCode, String errorMessage) {
+        public static Result ok(String messageId) {
+            return new Result(true, messageId, null, null);
+        }
+
+        public static Result failed(MessagingErrorCode errorCode, String errorMessage) {
+            return new Result(false, null, errorCode, errorMessage);
+        }
+    }
+
+    /**
+     * Gửi tối đa MAX_BATCH_SIZE tin nhắn. Ném exception nếu cả lần gọi thất bại (lỗi mạng, auth...).
+     */
+    List<Result> sendEach(List<Message> messages) throws Exception;
+}
@@ -0,0 +1,236 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.repository.FcmTokenRepository;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Gửi push bất đồng bộ: hàng đợi có giới hạn + nhóm worker.
+ *
+ * - Mỗi worker gom tối đa 500 tin nhắn đang chờ thành một lần sendEach.
+ * - UNAVAILABLE / QUOTA_EXCEEDED / INTERNAL: thử lại với backoff lũy thừa + jitter (tối đa max-attempts lần).
+ * - UNREGISTERED / INVALID_ARGUMENT / SENDER_ID_MISMATCH: token không còn dùng được -> xóa khỏi DB và cache.
+ * - Hàng đợi đầy: bỏ push (tin nhắn/thông báo vẫn đã được lưu), chỉ log + đếm metric.
+ */
+@Component
+@Slf4j
+public class PushDispatcher {
+
+    /**
+     * Một push đang chờ gửi; userId + token giữ lại để xử lý lỗi token.
+     */
+    public record PushTask(Long userId, String deviceToken, Message message, int attempt) {
+        PushTask nextAttempt() {
+            return new PushTask(userId, deviceToken, message, attempt + 1);
+        }
+    }
+
+    private final PushClient pushClient;
+    private final FcmTokenRepository fcmTokenRepository;
+    private final BlockingQueue<PushTask> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "push-retry");
+        t.setDaemon(true);
+        return t;
+    });
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private volatile boolean running = true;
+
+    // Được FirebaseMessagingService đăng ký để xóa token khỏi cache khi token hỏng
+    private volatile BiConsumer<Long, String> invalidTokenHandler = (userId, token) -> { };
+
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter retried;
+    private final Counter dropped;
+
+    public PushDispatcher(PushClient pushClient,
+                          FcmTokenRepository fcmTokenRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.push.queue-capacity:20000}") int queueCapacity,
+                          @Value("${app.push.workers:4}") int workerCount,
+                          @Value("${app.push.max-attempts:5}") int maxAttempts,
+                          @Value("${app.push.retry.base-ms:500}") long baseBackoffMillis,
+                          @Value("${app.push.retry.max-ms:30000}") long maxBackoffMillis) {
+        this.pushClient = pushClient;
+        this.fcmTokenRepository = fcmTokenRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        this.sent = Counter.builder("push.sent").description("Push gửi thành công").register(meterRegistry);
+        this.failed = Counter.builder("push.failed").description("Push thất bại hẳn").register(meterRegistry);
+        this.retried = Counter.builder("push.retried").description("Push được lên lịch gửi lại").register(meterRegistry);
+        this.dropped = Counter.builder("push.dropped").description("Push bị bỏ do hàng đợi đầy").register(meterRegistry);
+        Gauge.builder("push.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::workLoop, "push-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public void setInvalidTokenHandler(BiConsumer<Long, String> invalidTokenHandler) {
+        this.invalidTokenHandler = invalidTokenHandler;
+    }
+
+    /**
+     * Đưa push vào hàng đợi; trả về false nếu hàng đợi đầy.
+     */
+    public boolean enqueue(Long userId, String deviceToken, Message message) {
+        if (running && queue.offer(new PushTask(userId, deviceToken, message, 1))) {
+            return true;
+        }
+        dropped.increment();
+        log.warn("⚠️ [FCM] Hàng đợi push đầy, bỏ push cho User {}", userId);
+        return false;
+    }
+
+    private void workLoop() {
+        List<PushTask> batch = new ArrayList<>(PushClient.MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PushTask first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, PushClient.MAX_BATCH_SIZE - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ [FCM] Lỗi không mong đợi trong push worker: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<PushTask> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        batch.forEach(task -> messages.add(task.message()));
+
+        List<PushClient.Result> results;
+        try {
+            results = pushClient.sendEach(messages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(this::retryOrGiveUp);
+            return;
+        } catch (Exception e) {
+            // Cả lần gọi thất bại (mạng, hết hạn credentials...): coi như lỗi tạm thời
+            log.warn("⚠️ [FCM] sendEach thất bại cho {} tin nhắn: {}", batch.size(), e.getMessage());
+            batch.forEach(this::retryOrGiveUp);
+            return;
+        }
+
+        int succeeded = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PushTask task = batch.get(i);
+            PushClient.Result result = i < results.size() ? results.get(i) : null;
+            if (result != null && result.success()) {
+                succeeded++;
+                continue;
+            }
+            handleFailure(task, result);
+        }
+        sent.increment(succeeded);
+        log.debug("📤 [FCM] Lô {} push: {} thành công", batch.size(), succeeded);
+    }
+
+    private void handleFailure(PushTask task, PushClient.Result result) {
+        MessagingErrorCode code = result != null ? result.errorCode() : null;
+        if (code == null) {
+            log.error("❌ [FCM] Lỗi không xác định khi gửi cho User {}: {}", task.userId(),
+                    result != null ? result.errorMessage() : "không có kết quả");
+            failed.increment();
+            return;
+        }
+        switch (code) {
+            case UNAVAILABLE, QUOTA_EXCEEDED, INTERNAL -> retryOrGiveUp(task);
+            case UNREGISTERED, INVALID_ARGUMENT, SENDER_ID_MISMATCH -> {
+                log.warn("🗑️ [FCM] Token không hợp lệ ({}) cho User {}, xóa khỏi DB", code, task.userId());
+                removeToken(task);
+                failed.increment();
+            }
+            case THIRD_PARTY_AUTH_ERROR -> {
+                log.error("❌ [FCM] Lỗi xác thực APNs/Web push cho User {}: {}", task.userId(), result.errorMessage());
+                failed.increment();
+            }
+            default -> {
+                log.error("❌ [FCM] Lỗi {} khi gửi cho User {}: {}", code, task.userId(), result.errorMessage());
+                failed.increment();
+            }
+        }
+    }
+
+    private void retryOrGiveUp(PushTask task) {
+        if (task.attempt() >= maxAttempts || !running) {
+            log.error("❌ [FCM] Bỏ push cho User {} sau {} lần thử", task.userId(), task.attempt());
+            failed.increment();
+            return;
+        }
+        long delay = backoffMillis(task.attempt());
+        retried.increment();
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(task.nextAttempt())) {
+                dropped.increment();
+                log.warn("⚠️ [FCM] Hàng đợi push đầy, bỏ lần thử lại cho User {}", task.userId());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private long backoffMillis(int attempt) {
+        long exp = baseBackoffMillis << Math.min(attempt - 1, 20);
+        long capped = Math.min(exp, maxBackoffMillis);
+        // Full jitter: tránh mọi worker cùng thử lại một lúc khi FCM quá tải
+        return ThreadLocalRandom.current().nextLong(capped / 2, capped + 1);
+    }
+
+    private void removeToken(PushTask task) {
+        try {
+            // Chỉ xóa nếu user chưa đăng ký token mới trong lúc gửi
+            fcmTokenRepository.deleteByUserIdAndDeviceToken(task.userId(), task.deviceToken());
+        } catch (Exception e) {
+            log.error("❌ [FCM] Lỗi khi xóa token: {}", e.getMessage());
+        }
+        invalidTokenHandler.accept(task.userId(), task.deviceToken());
+    }
+
+    /**
+     * Ngừng nhận push mới, gửi nốt hàng đợi rồi mới tắt.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.config.OutboundFlowControlInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Điểm gửi duy nhất ra WebSocket cho các kênh /topic/...
+ *
+ * Luôn gửi qua broker cục bộ (cho các phiên trên node này). Khi bật app.chat.cluster.enabled,
+ * bản tin được chuyển tiếp thêm qua RabbitMQ tới các node khác đang giữ phiên của người nhận.
+ */
+@Service
+@Slf4j
+public class RealtimeDeliveryService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterDeliveryRelay clusterRelay; // null khi chạy 1 node
+
+    public RealtimeDeliveryService(SimpMessagingTemplate messagingTemplate,
+                                   ObjectProvider<ClusterDeliveryRelay> clusterRelay) {
+        this.messagingTemplate = messagingTemplate;
+        this.clusterRelay = clusterRelay.getIfAvailable();
+    }
+
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        if (clusterRelay != null) {
+            clusterRelay.forward(destination, payload, null);
+        }
+    }
+
+    /**
+     * Gửi bản tin chỉ có giá trị mới nhất là quan trọng (ví dụ số chưa đọc): nếu phiên còn một bản
+     * cùng coalesceKey chưa gửi xong thì các bản trung gian được gộp (OutboundFlowControlInterceptor).
+     */
+    public void sendCoalesced(String destination, Object payload, String coalesceKey) {
+        messagingTemplate.convertAndSend(destination, payload,
+                Map.of(OutboundFlowControlInterceptor.COALESCE_KEY_HEADER, coalesceKey));
+        if (clusterRelay != null) {
+            clusterRelay.forward(destination, payload, coalesceKey);
+        }
+    }
+}
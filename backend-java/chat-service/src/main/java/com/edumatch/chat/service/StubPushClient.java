@@ -0,0 +1,47 @@
+package com.edumatch.chat.service;
+
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Client giả lập FCM để chạy/load-test khi không có Firebase (app.push.client=stub).
+ * Mô phỏng độ trễ mỗi lần gọi và tỉ lệ lỗi tạm thời (UNAVAILABLE) để kiểm tra cơ chế retry.
+ */
+@Component
+@ConditionalOnProperty(name = "app.push.client", havingValue = "stub")
+@Slf4j
+public class StubPushClient implements PushClient {
+
+    private final long latencyMillis;
+    private final double failureRate;
+
+    public StubPushClient(@Value("${app.push.stub.latency-ms:50}") long latencyMillis,
+                          @Value("${app.push.stub.failure-rate:0.0}") double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        log.warn("🧪 [FCM] Đang dùng StubPushClient: push KHÔNG được gửi tới thiết bị thật");
+    }
+
+    @Override
+    public List<Result> sendEach(List<Message> messages) throws InterruptedException {
+        Thread.sleep(latencyMillis);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Result> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            results.add(random.nextDouble() < failureRate
+                    ? Result.failed(MessagingErrorCode.UNAVAILABLE, "stub: simulated failure")
+                    : Result.ok("stub-" + UUID.randomUUID()));
+        }
+        log.debug("🧪 [FCM] Stub đã 'gửi' {} tin nhắn", messages.size());
+        return results;
+    }
+}
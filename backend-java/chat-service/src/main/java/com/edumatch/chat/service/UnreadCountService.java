@@ -0,0 +1,120 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Số thông báo chưa đọc của từng user (badge), có cache trong bộ nhớ theo TTL.
+ *
+ * - Cache miss: đếm trên index (user_id, is_read, created_at).
+ * - Thông báo mới / đánh dấu đã đọc: vô hiệu cache sau khi commit, lần đọc sau đếm lại (một range scan).
+ *   Không cộng dồn vào giá trị cache: một lần đếm chạy giữa lúc commit và lúc cộng sẽ bị cộng hai lần.
+ * - Mỗi entry mang version; vô hiệu hóa ghi một tombstone version mới hơn, nên kết quả đếm bắt đầu
+ *   trước lúc vô hiệu hóa (đã cũ) không ghi đè được vào cache.
+ * Mỗi lần số thay đổi được đẩy qua /topic/notifications/{userId} với type = UNREAD_COUNT.
+ * TTL giới hạn độ lệch khi nhiều node cùng cập nhật một user.
+ */
+@Service
+@Slf4j
+public class UnreadCountService {
+
+    public static final String UNREAD_COUNT_TYPE = "UNREAD_COUNT";
+
+    private record Entry(long count, long expiresAt, long version) {
+        boolean isTombstone() {
+            return count < 0;
+        }
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final RealtimeDeliveryService realtimeDeliveryService;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final Map<Long, Entry> counts = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    public UnreadCountService(NotificationRepository notificationRepository,
+                              RealtimeDeliveryService realtimeDeliveryService,
+                              @Value("${app.notification.unread-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${app.notification.unread-cache.max-size:50000}") int maxEntries) {
+        this.notificationRepository = notificationRepository;
+        this.realtimeDeliveryService = realtimeDeliveryService;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getUnreadCount(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = counts.get(userId);
+        if (entry != null && !entry.isTombstone() && entry.expiresAt() > now) {
+            return entry.count();
+        }
+        long version = versions.incrementAndGet();
+        long count = notificationRepository.countUnread(userId);
+        if (counts.size() >= maxEntries) {
+            counts.values().removeIf(e -> e.expiresAt() <= now);
+            if (counts.size() >= maxEntries) {
+                counts.clear();
+            }
+        }
+        // Bị vô hiệu hóa (hoặc đã có kết quả mới hơn) trong lúc đếm -> giữ entry hiện tại
+        counts.compute(userId, (id, current) -> current != null && current.version() > version
+                ? current : new Entry(count, now + ttlMillis, version));
+        return count;
+    }
+
+    /**
+     * Ghi nhận thông báo mới đã commit: vô hiệu cache của các user nhận. Không đẩy WebSocket riêng:
+     * payload của từng thông báo đã kèm unreadCount (đếm lại).
+     */
+    public void recordInserted(Collection<Long> userIds) {
+        userIds.forEach(this::invalidate);
+    }
+
+    private void invalidate(Long userId) {
+        counts.put(userId, new Entry(-1, System.currentTimeMillis() + ttlMillis, versions.incrementAndGet()));
+    }
+
+    /**
+     * Gọi sau khi đánh dấu đã đọc: đếm lại và đẩy số mới cho user (sau khi transaction commit).
+     */
+    public void refresh(Long userId) {
+        Runnable apply = () -> {
+            invalidate(userId);
+            publish(userId, getUnreadCount(userId));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private void publish(Long userId, long count) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("type", UNREAD_COUNT_TYPE);
+            payload.put("unreadCount", count);
+            // Chỉ giá trị mới nhất có ý nghĩa: cho phép gộp khi client nhận chậm
+            realtimeDeliveryService.sendCoalesced("/topic/notifications/" + userId, payload, UNREAD_COUNT_TYPE);
+        } catch (Exception e) {
+            log.warn("Không thể đẩy số thông báo chưa đọc cho User {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.dto.UserDetailDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tra cứu tên hiển thị (userId -> username) cho inbox, có cache cục bộ theo TTL.
+ *
+ * resolveNames() nhận cả danh sách ID: ID đã có trong cache trả ngay, các ID còn thiếu
+ * được tra bằng MỘT lời gọi batch tới Auth-Service (AuthUserBatchClient) thay vì từng ID một.
+ */
+@Service
+@Slf4j
+public class UserDirectoryService {
+
+    private record Entry(String username, long expiresAt) {
+    }
+
+    private final AuthUserBatchClient authUserBatchClient;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final Map<Long, Entry> cache = new ConcurrentHashMap<>();
+
+    public UserDirectoryService(AuthUserBatchClient authUserBatchClient,
+                                @Value("${app.user-directory.ttl-seconds:600}") long ttlSeconds,
+                                @Value("${app.user-directory.max-size:20000}") int maxEntries) {
+        this.authUserBatchClient = authUserBatchClient;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Trả về map userId -> username cho tất cả ID; ID không tra được sẽ vắng mặt trong map.
+     */
+    public Map<Long, String> resolveNames(Collection<Long> userIds, String token) {
+        Map<Long, String> names = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        for (Long id : userIds) {
+            Entry entry = cache.get(id);
+            if (entry != null && entry.expiresAt() > now) {
+                names.put(id, entry.username());
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return names;
+        }
+
+        Map<Long, UserDetailDto> fetched;
+        try {
+            fetched = authUserBatchClient.findByIds(missing, token);
+        } catch (Exception ex) {
+            log.error("Lỗi khi gọi Auth-Service để lấy {} user: {}", missing.size(), ex.getMessage());
+            return names;
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        fetched.forEach((id, user) -> {
+            if (user.getUsername() != null) {
+                names.put(id, user.getUsername());
+                cache.put(id, new Entry(user.getUsername(), expiresAt));
+            }
+        });
+        if (cache.size() > maxEntries) {
+            evictExpired();
+        }
+        return names;
+    }
+
+    public void invalidate(Long userId) {
+        cache.remove(userId);
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (cache.size() > maxEntries) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.config.RabbitMQConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Nhận event user.identity.changed từ Auth-Service: ghi nhận version identity mới (IdentityVersionStore)
+ * để claim trong token cấp trước đó không còn được tin, và xóa tên hiển thị đã cache của user.
+ * Mỗi instance có queue riêng (anonymous) để event được broadcast tới mọi replica; ngoài ra queue durable
+ * dùng chung lưu version identity vào DB (onIdentityVersion) để không mất khi restart.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserIdentityEventListener {
+
+    private final IdentityVersionStore identityVersionStore;
+    private final UserDirectoryService userDirectoryService;
+
+    @RabbitListener(queues = "#{" + RabbitMQConfig.USER_IDENTITY_QUEUE_BEAN + ".name}")
+    public void onUserIdentityChanged(Map<String, Object> event) {
+        Object userId = event.get("userId");
+        log.debug("Nhận user.identity.changed: username={}, userId={}", event.get("username"), userId);
+
+        if (userId != null) {
+            Long id = Long.valueOf(userId.toString());
+            Integer version = identityVersion(event);
+            if (version != null) {
+                identityVersionStore.remember(id, version);
+            }
+            userDirectoryService.invalidate(id);
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.USER_IDENTITY_VERSION_QUEUE)
+    public void onIdentityVersion(Map<String, Object> event) {
+        Object userId = event.get("userId");
+        Integer version = identityVersion(event);
+        if (userId != null && version != null) {
+            identityVersionStore.persist(Long.valueOf(userId.toString()), version);
+        }
+    }
+
+    private static Integer identityVersion(Map<String, Object> event) {
+        Object version = event.get("identityVersion");
+        return version != null ? Integer.valueOf(version.toString()) : null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.edumatch.chat.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sổ đăng ký cục bộ userId -> các phiên WebSocket đang subscribe trên instance này.
+ *
+ * Suy ra userId từ đích subscribe (/topic/messages/{userId}, /topic/notifications/{userId}).
+ * Khi user có subscription đầu tiên / mất subscription cuối cùng trên node này thì báo cho
+ * các PresenceListener (ví dụ ClusterDeliveryRelay để bind/unbind routing key của user).
+ *
+ * Bộ đếm chỉ được cập nhật trong lock; listener được gọi SAU khi nhả lock (không giữ thread sự kiện STOMP
+ * của các phiên khác khi listener chậm). Vì vậy thông báo của cùng một user có thể tới lệch thứ tự:
+ * listener cần đọc lại trạng thái thật qua isOnline() thay vì tin vào loại thông báo.
+ */
+@Component
+@Slf4j
+public class UserSessionRegistry {
+
+    /**
+     * Được gọi ngoài lock, có thể lệch thứ tự giữa các thread (xem mô tả lớp).
+     */
+    public interface PresenceListener {
+        void userOnline(Long userId);
+
+        void userOffline(Long userId);
+    }
+
+    private static final Pattern USER_DESTINATION = Pattern.compile("^/topic/[^/]+/(\\d+)$");
+
+    // sessionId -> (subscriptionId -> userId)
+    private final Map<String, Map<String, Long>> sessions = new HashMap<>();
+    // userId -> số subscription đang mở trên node này
+    private final Map<Long, Integer> subscriptionCounts = new HashMap<>();
+    private final List<PresenceListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Lấy userId từ đích dạng /topic/{kênh}/{userId}; null nếu không phải kênh cá nhân.
+     */
+    public static Long userIdOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = USER_DESTINATION.matcher(destination);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    public void addListener(PresenceListener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized boolean isOnline(Long userId) {
+        return subscriptionCounts.containsKey(userId);
+    }
+
+    public synchronized Set<Long> onlineUserIds() {
+        return Set.copyOf(subscriptionCounts.keySet());
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Long userId = userIdOf(accessor.getDestination());
+        if (userId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        List<Runnable> notifications = new ArrayList<>(2);
+        synchronized (this) {
+            Long previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new HashMap<>())
+                    .put(accessor.getSubscriptionId(), userId);
+            if (previous != null) {
+                release(previous, notifications);
+            }
+            if (subscriptionCounts.merge(userId, 1, Integer::sum) == 1) {
+                log.debug("User {} online trên node này", userId);
+                notifications.add(() -> listeners.forEach(listener -> listener.userOnline(userId)));
+            }
+        }
+        notifications.forEach(Runnable::run);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        List<Runnable> notifications = new ArrayList<>(1);
+        synchronized (this) {
+            Map<String, Long> subscriptions = sessions.get(accessor.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            Long userId = subscriptions.remove(accessor.getSubscriptionId());
+            if (subscriptions.isEmpty()) {
+                sessions.remove(accessor.getSessionId());
+            }
+            if (userId != null) {
+                release(userId, notifications);
+            }
+        }
+        notifications.forEach(Runnable::run);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        List<Runnable> notifications = new ArrayList<>();
+        synchronized (this) {
+            Map<String, Long> subscriptions = sessions.remove(event.getSessionId());
+            if (subscriptions != null) {
+                subscriptions.values().forEach(userId -> release(userId, notifications));
+            }
+        }
+        notifications.forEach(Runnable::run);
+    }
+
+    private void release(Long userId, List<Runnable> notifications) {
+        Integer remaining = subscriptionCounts.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            log.debug("User {} offline trên node này", userId);
+            notifications.add(() -> listeners.forEach(listener -> listener.userOffline(userId)));
+        }
+    }
+}
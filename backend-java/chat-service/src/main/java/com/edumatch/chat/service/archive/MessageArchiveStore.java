@@ -0,0 +1,290 @@
+package com.edumatch.chat.service.archive;
+
+import com.edumatch.chat.model.Message;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Kho lưu trữ lạnh cho tin nhắn cũ: mỗi hội thoại là một thư mục chứa các segment nén
+ * ({firstId}-{lastId}.seg, ID tăng dần, không chồng lấn).
+ *
+ * - append(): ghi segment mới ra file tạm, fsync rồi rename (nguyên tử) - chỉ MessageArchiver gọi.
+ * - compact(): gộp nhiều segment nhỏ thành một; segment cũ bị xóa sau khi segment gộp đã được rename.
+ * - merge(): như compact() nhưng thêm các tin nhắn ghi muộn có ID <= maxArchivedId.
+ * - Đọc: danh sách segment (đã mmap) của mỗi hội thoại được cache, nạp lại khi thư mục thay đổi
+ *   (cho phép nhiều node cùng đọc một thư mục chia sẻ).
+ *
+ * Bất biến: mọi tin nhắn có ID <= maxArchivedId(hội thoại) đều nằm trong kho lưu trữ.
+ */
+@Component
+@Slf4j
+public class MessageArchiveStore {
+
+    private record ConversationArchive(long dirModified, List<MessageSegment> segments) {
+        static final ConversationArchive EMPTY = new ConversationArchive(-1, List.of());
+
+        long maxArchivedId() {
+            return segments.isEmpty() ? 0L : segments.get(segments.size() - 1).lastId();
+        }
+
+        long count() {
+            return segments.stream().mapToLong(MessageSegment::messageCount).sum();
+        }
+    }
+
+    private record BlockRef(MessageSegment segment, MessageSegment.Block block) {
+    }
+
+    private final Path baseDir;
+    private final int blockSize;
+    private final int maxOpenConversations;
+    private final Map<Long, ConversationArchive> cache = new ConcurrentHashMap<>();
+
+    public MessageArchiveStore(@Value("${app.chat.archive.dir:./data/message-archive}") String baseDir,
+                               @Value("${app.chat.archive.block-size:64}") int blockSize,
+                               @Value("${app.chat.archive.max-open-conversations:1024}") int maxOpenConversations) {
+        this.baseDir = Paths.get(baseDir).toAbsolutePath();
+        this.blockSize = blockSize;
+        this.maxOpenConversations = maxOpenConversations;
+    }
+
+    public long maxArchivedId(Long conversationId) {
+        return load(conversationId).maxArchivedId();
+    }
+
+    public long count(Long conversationId) {
+        return load(conversationId).count();
+    }
+
+    public List<MessageSegment> segments(Long conversationId) {
+        return load(conversationId).segments();
+    }
+
+    /**
+     * Các hội thoại đang có dữ liệu lưu trữ (cho công cụ verify).
+     */
+    public List<Long> conversationIds() {
+        if (!Files.isDirectory(baseDir)) {
+            return List.of();
+        }
+        try (Stream<Path> dirs = Files.list(baseDir)) {
+            return dirs.filter(Files::isDirectory)
+                    .map(dir -> dir.getFileName().toString())
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Long::valueOf)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Đọc tối đa limit tin nhắn lưu trữ, mới nhất trước: ID < beforeId (nếu có), bỏ qua skip tin đầu tiên.
+     * Block nằm trọn trong phần bị bỏ qua được nhảy qua nhờ index, không cần giải nén.
+     */
+    public List<Message> readDesc(Long conversationId, Long beforeId, long skip, int limit) {
+        List<BlockRef> blocks = blocksOf(conversationId);
+        List<Message> result = new ArrayList<>(Math.min(limit, 256));
+        for (int i = blocks.size() - 1; i >= 0 && result.size() < limit; i--) {
+            BlockRef ref = blocks.get(i);
+            MessageSegment.Block block = ref.block();
+            if (beforeId != null && block.firstId() >= beforeId) {
+                continue;
+            }
+            boolean wholeBlock = beforeId == null || block.lastId() < beforeId;
+            if (wholeBlock && skip >= block.count()) {
+                skip -= block.count();
+                continue;
+            }
+            List<Message> messages = decode(ref, conversationId);
+            for (int j = messages.size() - 1; j >= 0 && result.size() < limit; j--) {
+                Message message = messages.get(j);
+                if (beforeId != null && message.getId() >= beforeId) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Đọc tối đa limit tin nhắn lưu trữ có ID > afterId, cũ nhất trước.
+     */
+    public List<Message> readAsc(Long conversationId, long afterId, int limit) {
+        List<BlockRef> blocks = blocksOf(conversationId);
+        List<Message> result = new ArrayList<>(Math.min(limit, 256));
+        for (BlockRef ref : blocks) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (ref.block().lastId() <= afterId) {
+                continue;
+            }
+            for (Message message : decode(ref, conversationId)) {
+                if (message.getId() > afterId && result.size() < limit) {
+                    result.add(message);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ghi các tin nhắn (ID tăng dần, tất cả > maxArchivedId) thành segment mới. Trả về đường dẫn segment.
+     */
+    public Path append(Long conversationId, List<Message> messages) throws IOException {
+        Path dir = baseDir.resolve(conversationId.toString());
+        Files.createDirectories(dir);
+        String name = messages.get(0).getId() + "-" + messages.get(messages.size() - 1).getId() + MessageSegment.FILE_SUFFIX;
+        Path target = dir.resolve(name);
+        Path tmp = dir.resolve(name + ".tmp");
+        Files.deleteIfExists(tmp);
+        MessageSegment.write(tmp, messages, blockSize);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        cache.remove(conversationId);
+        return target;
+    }
+
+    /**
+     * Bỏ segment vừa append khi bước xóa DB bị rollback (chỉ dùng cho segment mới nhất, chưa gộp).
+     */
+    public void discard(Long conversationId, Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+        cache.remove(conversationId);
+        log.warn("Đã bỏ segment lưu trữ {} của hội thoại {}", segment.getFileName(), conversationId);
+    }
+
+    /**
+     * Gộp các segment của hội thoại thành một khi số segment vượt ngưỡng. Trả về true nếu đã gộp.
+     */
+    public boolean compact(Long conversationId, int maxSegments) throws IOException {
+        List<MessageSegment> segments = segments(conversationId);
+        if (segments.size() <= maxSegments) {
+            return false;
+        }
+        int merged = rewrite(conversationId, segments, List.of());
+        log.info("Đã gộp {} segment lưu trữ của hội thoại {} ({} tin nhắn)", segments.size(), conversationId, merged);
+        return true;
+    }
+
+    /**
+     * Đưa các tin nhắn có ID nằm trong khoảng đã lưu trữ (được ghi vào DB muộn, sau khi đoạn của chúng đã lưu trữ)
+     * vào kho: viết lại mọi segment của hội thoại thành một segment sắp theo ID để giữ bất biến
+     * "mọi ID <= maxArchivedId đều đã lưu trữ". Tin nhắn đã có trong kho được bỏ qua.
+     */
+    public void merge(Long conversationId, List<Message> messages) throws IOException {
+        int merged = rewrite(conversationId, segments(conversationId), messages);
+        log.info("Đã gộp {} tin nhắn ghi muộn vào kho lưu trữ của hội thoại {} ({} tin nhắn)",
+                messages.size(), conversationId, merged);
+    }
+
+    private int rewrite(Long conversationId, List<MessageSegment> segments, List<Message> extra) throws IOException {
+        Map<Long, Message> all = new TreeMap<>();
+        for (MessageSegment segment : segments) {
+            for (MessageSegment.Block block : segment.blocks()) {
+                for (Message message : segment.readBlock(block, conversationId)) {
+                    all.put(message.getId(), message);
+                }
+            }
+        }
+        extra.forEach(message -> all.putIfAbsent(message.getId(), message));
+        Path merged = append(conversationId, new ArrayList<>(all.values()));
+        // Segment gộp đã bền vững: xóa các segment cũ (nếu sập giữa chừng, lần nạp sau sẽ bỏ qua segment bị bao phủ)
+        for (MessageSegment segment : segments) {
+            if (!segment.path().equals(merged)) {
+                Files.deleteIfExists(segment.path());
+            }
+        }
+        cache.remove(conversationId);
+        return all.size();
+    }
+
+    private List<BlockRef> blocksOf(Long conversationId) {
+        List<BlockRef> blocks = new ArrayList<>();
+        for (MessageSegment segment : segments(conversationId)) {
+            for (MessageSegment.Block block : segment.blocks()) {
+                blocks.add(new BlockRef(segment, block));
+            }
+        }
+        return blocks;
+    }
+
+    private List<Message> decode(BlockRef ref, Long conversationId) {
+        try {
+            return ref.segment().readBlock(ref.block(), conversationId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đọc được segment " + ref.segment().path(), e);
+        }
+    }
+
+    private ConversationArchive load(Long conversationId) {
+        Path dir = baseDir.resolve(conversationId.toString());
+        long modified;
+        try {
+            if (!Files.isDirectory(dir)) {
+                return ConversationArchive.EMPTY;
+            }
+            modified = Files.getLastModifiedTime(dir).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ConversationArchive cached = cache.get(conversationId);
+        if (cached != null && cached.dirModified() == modified) {
+            return cached;
+        }
+
+        ConversationArchive loaded = new ConversationArchive(modified, openSegments(dir));
+        if (cache.size() >= maxOpenConversations) {
+            cache.clear();
+        }
+        cache.put(conversationId, loaded);
+        return loaded;
+    }
+
+    private List<MessageSegment> openSegments(Path dir) {
+        List<MessageSegment> opened = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(MessageSegment.FILE_SUFFIX)).toList()) {
+                opened.add(MessageSegment.open(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không mở được thư mục lưu trữ " + dir, e);
+        }
+
+        // Sắp theo firstId; bỏ segment nằm trọn trong segment khác (còn sót lại khi compaction bị ngắt)
+        opened.sort(Comparator.comparingLong(MessageSegment::firstId)
+                .thenComparing(Comparator.comparingLong(MessageSegment::lastId).reversed()));
+        List<MessageSegment> segments = new ArrayList<>(opened.size());
+        for (MessageSegment segment : opened) {
+            MessageSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && segment.lastId() <= last.lastId()) {
+                log.warn("Bỏ qua segment bị bao phủ bởi {}: {}", last.path().getFileName(), segment.path());
+                continue;
+            }
+            segments.add(segment);
+        }
+        return Collections.unmodifiableList(segments);
+    }
+}
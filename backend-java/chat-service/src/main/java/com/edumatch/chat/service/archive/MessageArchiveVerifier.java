@@ -0,0 +1,129 @@
+package com.edumatch.chat.service.archive;
+
+import com.edumatch.chat.repository.MessageArchiveBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Công cụ kiểm tra kho lưu trữ tin nhắn. Với mỗi hội thoại có segment:
+ * - CRC của từng block khớp và số tin nhắn giải nén được khớp với index/footer;
+ * - Tổng số tin nhắn trong segment = tổng số dòng đã xóa khỏi bảng messages (message_archive_batches);
+ * - Bảng messages không còn dòng nào có ID <= maxArchivedId (nếu còn, job lưu trữ sẽ dọn ở lần chạy sau).
+ *
+ * Chạy dạng CLI: khởi động service với app.chat.archive.verify-and-exit=true
+ * (mã thoát 0 nếu mọi hội thoại khớp, 1 nếu có sai lệch).
+ */
+@Component
+@Slf4j
+public class MessageArchiveVerifier implements ApplicationRunner {
+
+    public record Report(Long conversationId,
+                         long archivedMessages,
+                         long recordedArchivedRows,
+                         long sourceRowsDeleted,
+                         long sourceRowsRemaining,
+                         List<String> problems) {
+        public boolean ok() {
+            return problems.isEmpty();
+        }
+    }
+
+    private static final String REMAINING_SQL = "SELECT COUNT(*) FROM messages WHERE conversation_id = ? AND id <= ?";
+
+    private final MessageArchiveStore archiveStore;
+    private final MessageArchiveBatchRepository batchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext applicationContext;
+    private final boolean verifyAndExit;
+
+    public MessageArchiveVerifier(MessageArchiveStore archiveStore,
+                                  MessageArchiveBatchRepository batchRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  ConfigurableApplicationContext applicationContext,
+                                  @Value("${app.chat.archive.verify-and-exit:false}") boolean verifyAndExit) {
+        this.archiveStore = archiveStore;
+        this.batchRepository = batchRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationContext = applicationContext;
+        this.verifyAndExit = verifyAndExit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!verifyAndExit) {
+            return;
+        }
+        List<Report> reports = verifyAll();
+        long failed = reports.stream().filter(r -> !r.ok()).count();
+        log.info("🔎 Kiểm tra kho lưu trữ: {} hội thoại, {} sai lệch", reports.size(), failed);
+        int exitCode = failed == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+
+    public List<Report> verifyAll() {
+        List<Report> reports = new ArrayList<>();
+        for (Long conversationId : archiveStore.conversationIds()) {
+            Report report = verify(conversationId);
+            if (!report.ok()) {
+                log.warn("❌ Hội thoại {}: {}", conversationId, report.problems());
+            }
+            reports.add(report);
+        }
+        return reports;
+    }
+
+    public Report verify(Long conversationId) {
+        List<String> problems = new ArrayList<>();
+        long archivedMessages = 0;
+        for (MessageSegment segment : archiveStore.segments(conversationId)) {
+            long decoded = 0;
+            for (MessageSegment.Block block : segment.blocks()) {
+                if (!segment.checksumMatches(block)) {
+                    problems.add("CRC sai ở block " + block.firstId() + "-" + block.lastId() + " của " + segment.path().getFileName());
+                    continue;
+                }
+                try {
+                    int count = segment.readBlock(block, conversationId).size();
+                    if (count != block.count()) {
+                        problems.add("Block " + block.firstId() + "-" + block.lastId() + " giải nén được " + count + "/" + block.count());
+                    }
+                    decoded += count;
+                } catch (IOException e) {
+                    problems.add("Không giải nén được block " + block.firstId() + "-" + block.lastId() + ": " + e.getMessage());
+                }
+            }
+            if (decoded != segment.messageCount()) {
+                problems.add("Segment " + segment.path().getFileName() + " có " + decoded + " tin nhắn, footer ghi " + segment.messageCount());
+            }
+            archivedMessages += segment.messageCount();
+        }
+
+        long recordedArchivedRows = batchRepository.sumArchivedRows(conversationId);
+        long sourceRowsDeleted = batchRepository.sumSourceRowsDeleted(conversationId);
+        if (archivedMessages != sourceRowsDeleted) {
+            problems.add("Segment có " + archivedMessages + " tin nhắn nhưng đã xóa " + sourceRowsDeleted + " dòng nguồn");
+        }
+        if (archivedMessages != recordedArchivedRows) {
+            problems.add("Segment có " + archivedMessages + " tin nhắn nhưng nhật ký ghi " + recordedArchivedRows);
+        }
+
+        Long remaining = jdbcTemplate.queryForObject(REMAINING_SQL, Long.class,
+                conversationId, archiveStore.maxArchivedId(conversationId));
+        long sourceRowsRemaining = remaining != null ? remaining : 0L;
+        if (sourceRowsRemaining > 0) {
+            problems.add(sourceRowsRemaining + " dòng đã lưu trữ vẫn còn trong bảng messages");
+        }
+        return new Report(conversationId, archivedMessages, recordedArchivedRows, sourceRowsDeleted,
+                sourceRowsRemaining, List.copyOf(problems));
+    }
+}
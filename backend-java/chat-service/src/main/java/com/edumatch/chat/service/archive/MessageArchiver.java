@@ -0,0 +1,227 @@
+package com.edumatch.chat.service.archive;
+
+import com.edumatch.chat.model.Message;
+import com.edumatch.chat.model.MessageArchiveBatch;
+import com.edumatch.chat.repository.MessageArchiveBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Job định kỳ chuyển tin nhắn cũ hơn min-age-days từ bảng messages sang kho lưu trữ lạnh.
+ *
+ * Với mỗi hội thoại:
+ * 1. Chọn đoạn ID liên tục ngay sau maxArchivedId mà mọi tin nhắn đều cũ hơn cutoff (dừng ở tin nhắn mới đầu tiên,
+ *    kể cả khi tin nhắn cũ hơn nằm sau nó do lệch đồng hồ) - giữ bất biến "mọi ID <= maxArchivedId đều đã lưu trữ"
+ *    mà ChatService dựa vào để đọc.
+ * 2. Ghi đoạn đó thành segment mới - file đã fsync + rename trước khi xóa DB.
+ * 3. Trong một transaction: xóa đúng các dòng đã lưu trữ (ID trong [first, last] và sent_at < cutoff), ghi
+ *    MessageArchiveBatch. Số dòng xóa khác số tin trong segment -> rollback và bỏ segment vừa ghi.
+ * 4. Gộp segment khi số segment vượt compact-threshold.
+ *
+ * Nếu sập giữa bước 2 và 3, lần chạy sau chỉ xóa các dòng có ID nằm trong kho lưu trữ (bước "dọn dẹp")
+ * nên tin nhắn không bao giờ bị mất hay bị trả về hai lần. Dòng có ID <= maxArchivedId nhưng chưa có trong kho
+ * (commit muộn, sau khi đoạn của nó đã lưu trữ) được gộp vào kho trước khi xóa khỏi DB.
+ * Chỉ bật trên MỘT node (các node khác vẫn đọc được nếu dùng chung thư mục lưu trữ).
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.archive.enabled", havingValue = "true")
+@Slf4j
+public class MessageArchiver {
+
+    private static final String CANDIDATES_SQL =
+            "SELECT conversation_id FROM messages GROUP BY conversation_id HAVING MIN(sent_at) < ? LIMIT ?";
+
+    // ID của tin nhắn đầu tiên (sau maxArchivedId) chưa đủ cũ: đoạn lưu trữ phải dừng trước nó
+    private static final String BOUNDARY_SQL =
+            "SELECT MIN(id) FROM messages WHERE conversation_id = ? AND id > ? AND (sent_at >= ? OR sent_at IS NULL)";
+
+    private static final String SELECT_SQL =
+            "SELECT id, conversation_id, sender_id, content, sent_at FROM messages " +
+            "WHERE conversation_id = ? AND id > ? AND id < ? ORDER BY id LIMIT ?";
+
+    // Lần dọn dẹp: các dòng bị xóa thuộc segment đã ghi ở lần chạy bị ngắt (chưa có nhật ký)
+    private static final String RECOVERY_SEGMENT = "recovery";
+    private static final int DELETE_CHUNK = 1000;
+
+    private static final String LEFTOVER_SQL =
+            "SELECT id, conversation_id, sender_id, content, sent_at FROM messages " +
+            "WHERE conversation_id = ? AND id <= ? ORDER BY id";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM messages WHERE conversation_id = ? AND id BETWEEN ? AND ? AND sent_at < ?";
+
+    private static final RowMapper<Message> MESSAGE_ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp sentAt = rs.getTimestamp("sent_at");
+        return Message.builder()
+                .id(rs.getLong("id"))
+                .conversationId(rs.getLong("conversation_id"))
+                .senderId(rs.getLong("sender_id"))
+                .content(rs.getString("content"))
+                .sentAt(sentAt != null ? sentAt.toLocalDateTime() : null)
+                .build();
+    };
+
+    private final MessageArchiveStore archiveStore;
+    private final MessageArchiveBatchRepository batchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int minAgeDays;
+    private final int maxRowsPerConversation;
+    private final int maxConversationsPerRun;
+    private final int compactThreshold;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public MessageArchiver(MessageArchiveStore archiveStore,
+                           MessageArchiveBatchRepository batchRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.chat.archive.min-age-days:180}") int minAgeDays,
+                           @Value("${app.chat.archive.max-rows-per-conversation:50000}") int maxRowsPerConversation,
+                           @Value("${app.chat.archive.max-conversations-per-run:500}") int maxConversationsPerRun,
+                           @Value("${app.chat.archive.compact-threshold:8}") int compactThreshold) {
+        this.archiveStore = archiveStore;
+        this.batchRepository = batchRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAgeDays = minAgeDays;
+        this.maxRowsPerConversation = maxRowsPerConversation;
+        this.maxConversationsPerRun = maxConversationsPerRun;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @Scheduled(cron = "${app.chat.archive.cron:0 30 3 * * *}")
+    public void archiveOldMessages() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Job lưu trữ tin nhắn lần trước chưa xong, bỏ qua lần chạy này");
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+            List<Long> conversationIds = jdbcTemplate.queryForList(CANDIDATES_SQL, Long.class,
+                    Timestamp.valueOf(cutoff), maxConversationsPerRun);
+            long archived = 0;
+            for (Long conversationId : conversationIds) {
+                try {
+                    archived += archiveConversation(conversationId, cutoff);
+                } catch (Exception e) {
+                    // Lỗi một hội thoại không chặn các hội thoại khác; dữ liệu DB chưa bị xóa
+                    log.error("❌ Lỗi khi lưu trữ hội thoại {}: {}", conversationId, e.getMessage(), e);
+                }
+            }
+            log.info("📦 Đã lưu trữ {} tin nhắn của {} hội thoại (cũ hơn {})", archived, conversationIds.size(), cutoff);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Lưu trữ tin nhắn cũ hơn cutoff của một hội thoại. Trả về số tin nhắn đã chuyển sang segment.
+     */
+    int archiveConversation(Long conversationId, LocalDateTime cutoff) throws Exception {
+        long archivedMax = archiveStore.maxArchivedId(conversationId);
+
+        // Dọn dẹp: dòng đã nằm trong segment nhưng chưa bị xóa (sập ở lần chạy trước)
+        if (archivedMax > 0) {
+            recoverLeftovers(conversationId, archivedMax);
+        }
+
+        Long boundary = jdbcTemplate.queryForObject(BOUNDARY_SQL, Long.class,
+                conversationId, archivedMax, Timestamp.valueOf(cutoff));
+        List<Message> messages = jdbcTemplate.query(SELECT_SQL, MESSAGE_ROW_MAPPER,
+                conversationId, archivedMax, boundary != null ? boundary : Long.MAX_VALUE, maxRowsPerConversation);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        Path segment = archiveStore.append(conversationId, messages);
+        Message first = messages.get(0);
+        Message last = messages.get(messages.size() - 1);
+        try {
+            deleteArchivedRange(conversationId, segment.getFileName().toString(),
+                    first.getId(), last.getId(), cutoff, messages.size());
+        } catch (RuntimeException e) {
+            // DB đã rollback: bỏ segment để kho lưu trữ không chứa tin nhắn vẫn còn trong DB
+            archiveStore.discard(conversationId, segment);
+            throw e;
+        }
+
+        archiveStore.compact(conversationId, compactThreshold);
+        return messages.size();
+    }
+
+    private void deleteArchivedRange(Long conversationId, String segmentName, long firstId, long lastId,
+                                     LocalDateTime cutoff, int archivedRows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int deleted = jdbcTemplate.update(DELETE_RANGE_SQL, conversationId, firstId, lastId, Timestamp.valueOf(cutoff));
+            if (deleted != archivedRows) {
+                // Có dòng được ghi vào khoảng ID này sau khi đọc (hoặc đã bị xóa): không xóa gì cả
+                throw new IllegalStateException("Hội thoại " + conversationId + ": segment " + segmentName + " có "
+                        + archivedRows + " tin nhắn nhưng khoảng ID khớp " + deleted + " dòng");
+            }
+            record(conversationId, segmentName, firstId, lastId, archivedRows, deleted);
+        });
+    }
+
+    /**
+     * Dọn các dòng có ID <= archivedMax còn trong DB. Dòng chưa có trong kho (ghi muộn) được gộp vào kho trước,
+     * vì ChatService chỉ đọc DB với ID > archivedMax - để lại trong DB thì không ai đọc được chúng.
+     */
+    private void recoverLeftovers(Long conversationId, long archivedMax) throws IOException {
+        List<Message> leftovers = jdbcTemplate.query(LEFTOVER_SQL, MESSAGE_ROW_MAPPER, conversationId, archivedMax);
+        if (leftovers.isEmpty()) {
+            return;
+        }
+        Set<Long> archivedIds = new HashSet<>();
+        archiveStore.readAsc(conversationId, leftovers.get(0).getId() - 1, Integer.MAX_VALUE)
+                .forEach(message -> archivedIds.add(message.getId()));
+        List<Message> missing = leftovers.stream().filter(message -> !archivedIds.contains(message.getId())).toList();
+        if (!missing.isEmpty()) {
+            log.warn("Hội thoại {}: {} tin nhắn có ID <= {} chưa nằm trong kho lưu trữ, gộp vào kho",
+                    conversationId, missing.size(), archivedMax);
+            archiveStore.merge(conversationId, missing);
+        }
+        List<Long> toDelete = leftovers.stream().map(Message::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            int deleted = 0;
+            for (int start = 0; start < toDelete.size(); start += DELETE_CHUNK) {
+                List<Long> chunk = toDelete.subList(start, Math.min(start + DELETE_CHUNK, toDelete.size()));
+                String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                List<Object> args = new ArrayList<>(chunk.size() + 1);
+                args.add(conversationId);
+                args.addAll(chunk);
+                deleted += jdbcTemplate.update("DELETE FROM messages WHERE conversation_id = ? AND id IN (" + placeholders + ")",
+                        args.toArray());
+            }
+            record(conversationId, RECOVERY_SEGMENT, toDelete.get(0), toDelete.get(toDelete.size() - 1), deleted, deleted);
+        });
+    }
+
+    private void record(Long conversationId, String segmentName, long firstId, long lastId, int archivedRows, int deleted) {
+        batchRepository.save(MessageArchiveBatch.builder()
+                .conversationId(conversationId)
+                .segmentName(segmentName)
+                .firstMessageId(firstId)
+                .lastMessageId(lastId)
+                .archivedRows(archivedRows)
+                .sourceRowsDeleted(deleted)
+                .build());
+    }
+}
@@ -0,0 +1,223 @@
+package com.edumatch.chat.service.archive;
+
+import com.edumatch.chat.model.Message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Một file segment (chỉ ghi một lần, không sửa) chứa tin nhắn đã lưu trữ của một hội thoại, sắp theo ID tăng dần.
+ *
+ * Bố cục file:
+ * <pre>
+ * [MAGIC int][VERSION int]
+ * [block 0][block 1]...            mỗi block = tối đa blockSize tin nhắn, nén Deflate
+ * [index: mỗi block -> firstId long, lastId long, offset long, length int, count int, crc int]
+ * [footer: indexOffset long, blockCount int, messageCount int, VERSION int, MAGIC int]
+ * </pre>
+ * Index thưa (theo block) cho phép bỏ qua/nhảy tới block cần đọc mà không giải nén các block khác.
+ * File được đọc qua memory-mapping.
+ */
+public final class MessageSegment {
+
+    public record Block(long firstId, long lastId, long offset, int length, int count, int crc) {
+    }
+
+    static final String FILE_SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x454D5347; // "EMSG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 36;
+    private static final int FOOTER_BYTES = 24;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final List<Block> blocks;
+    private final int messageCount;
+
+    private MessageSegment(Path path, MappedByteBuffer buffer, List<Block> blocks, int messageCount) {
+        this.path = path;
+        this.buffer = buffer;
+        this.blocks = blocks;
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * Ghi danh sách tin nhắn (đã sắp theo ID tăng dần) thành một segment mới; fsync trước khi trả về.
+     */
+    public static void write(Path file, List<Message> messages, int blockSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(channel, header);
+
+            long offset = HEADER_BYTES;
+            List<Block> blocks = new ArrayList<>();
+            for (int start = 0; start < messages.size(); start += blockSize) {
+                List<Message> chunk = messages.subList(start, Math.min(start + blockSize, messages.size()));
+                byte[] compressed = compress(chunk);
+                CRC32 crc = new CRC32();
+                crc.update(compressed);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                blocks.add(new Block(chunk.get(0).getId(), chunk.get(chunk.size() - 1).getId(),
+                        offset, compressed.length, chunk.size(), (int) crc.getValue()));
+                offset += compressed.length;
+            }
+
+            ByteBuffer index = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+            for (Block block : blocks) {
+                index.putLong(block.firstId()).putLong(block.lastId()).putLong(block.offset())
+                        .putInt(block.length()).putInt(block.count()).putInt(block.crc());
+            }
+            index.putLong(offset).putInt(blocks.size()).putInt(messages.size()).putInt(VERSION).putInt(MAGIC);
+            writeFully(channel, index.flip());
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Mở segment (memory-mapped, chỉ đọc) và nạp index.
+     */
+    public static MessageSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES) {
+                throw new IOException("Segment quá nhỏ: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt((int) size - 4) != MAGIC) {
+                throw new IOException("Segment không hợp lệ (sai magic): " + file);
+            }
+            int footer = (int) size - FOOTER_BYTES;
+            long indexOffset = buffer.getLong(footer);
+            int blockCount = buffer.getInt(footer + 8);
+            int messageCount = buffer.getInt(footer + 12);
+
+            List<Block> blocks = new ArrayList<>(blockCount);
+            int pos = (int) indexOffset;
+            for (int i = 0; i < blockCount; i++, pos += INDEX_ENTRY_BYTES) {
+                blocks.add(new Block(buffer.getLong(pos), buffer.getLong(pos + 8), buffer.getLong(pos + 16),
+                        buffer.getInt(pos + 24), buffer.getInt(pos + 28), buffer.getInt(pos + 32)));
+            }
+            return new MessageSegment(file, buffer, List.copyOf(blocks), messageCount);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public List<Block> blocks() {
+        return blocks;
+    }
+
+    public int messageCount() {
+        return messageCount;
+    }
+
+    public long firstId() {
+        return blocks.isEmpty() ? 0L : blocks.get(0).firstId();
+    }
+
+    public long lastId() {
+        return blocks.isEmpty() ? 0L : blocks.get(blocks.size() - 1).lastId();
+    }
+
+    /**
+     * Giải nén một block thành danh sách tin nhắn (ID tăng dần).
+     */
+    public List<Message> readBlock(Block block, Long conversationId) throws IOException {
+        byte[] compressed = new byte[block.length()];
+        buffer.slice((int) block.offset(), block.length()).get(compressed);
+
+        List<Message> messages = new ArrayList<>(block.count());
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            for (int i = 0; i < block.count(); i++) {
+                long id = in.readLong();
+                long senderId = in.readLong();
+                long sentAtMicros = in.readLong();
+                String content = null;
+                int length = in.readInt();
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    content = new String(bytes, StandardCharsets.UTF_8);
+                }
+                messages.add(Message.builder()
+                        .id(id)
+                        .conversationId(conversationId)
+                        .senderId(senderId)
+                        .content(content)
+                        .sentAt(sentAtMicros == Long.MIN_VALUE ? null : fromMicros(sentAtMicros))
+                        .build());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Kiểm tra CRC của block (dùng cho công cụ verify).
+     */
+    public boolean checksumMatches(Block block) {
+        byte[] compressed = new byte[block.length()];
+        buffer.slice((int) block.offset(), block.length()).get(compressed);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        return (int) crc.getValue() == block.crc();
+    }
+
+    private static byte[] compress(List<Message> chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            for (Message message : chunk) {
+                out.writeLong(message.getId());
+                out.writeLong(message.getSenderId());
+                out.writeLong(message.getSentAt() == null ? Long.MIN_VALUE : toMicros(message.getSentAt()));
+                if (message.getContent() == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(content.length);
+                    out.write(content);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    // sent_at là LocalDateTime (không có múi giờ): lưu nguyên giá trị "đồng hồ" theo micro-giây (coi như UTC)
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.edumatch.chat.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.edumatch.chat.support.OutboundMessages.coalesced;
+import static com.edumatch.chat.support.OutboundMessages.destination;
+import static com.edumatch.chat.support.OutboundMessages.to;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Gộp bản tin cùng coalesce-key và bỏ thông báo khi phiên gửi chậm - tin nhắn chat không bao giờ bị bỏ.
+ */
+class OutboundFlowControlInterceptorTest {
+
+    private static final String SESSION = "s1";
+    private static final int MAX_PENDING = 5;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Message<?>> handled = new CopyOnWriteArrayList<>();
+    private final CountDownLatch clientStalled = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+    private ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.initialize();
+        channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(new OutboundFlowControlInterceptor(meterRegistry, MAX_PENDING));
+        channel.subscribe(message -> {
+            try {
+                // Client không đọc kịp: mọi lần ghi bị treo tới khi test "mở" lại
+                clientStalled.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.add(message);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientStalled.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void pendingUpdatesWithSameKeyAreCoalescedIntoLatest() {
+        channel.send(to(SESSION, "/topic/messages/1", "chat"));
+        for (int i = 0; i < 20; i++) {
+            channel.send(coalesced(SESSION, "/topic/unread/1", "unread-" + i, "unread"));
+        }
+        clientStalled.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> handled.size() == 2);
+        assertThat(handled).extracting(message -> (Object) message.getPayload()).containsExactly("chat", "unread-19");
+        assertThat(meterRegistry.get("websocket.outbound.coalesced").counter().count()).isEqualTo(19);
+        assertThat(pendingMax()).isZero();
+    }
+
+    @Test
+    void notificationsAreDroppedForSlowSessionButChatIsNot() {
+        for (int i = 0; i < MAX_PENDING; i++) {
+            channel.send(to(SESSION, "/topic/messages/1", "chat-" + i));
+        }
+        assertThat(pendingMax()).isEqualTo(MAX_PENDING);
+
+        for (int i = 0; i < 3; i++) {
+            channel.send(to(SESSION, "/topic/notifications/1", "notification-" + i));
+        }
+        channel.send(to(SESSION, "/topic/messages/1", "chat-late"));
+        clientStalled.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> handled.size() == MAX_PENDING + 1);
+        assertThat(handled).extracting(message -> (Object) destination(message))
+                .containsOnly("/topic/messages/1");
+        assertThat(handled).extracting(message -> (Object) message.getPayload()).contains("chat-late");
+        assertThat(meterRegistry.get("websocket.outbound.dropped").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void otherSessionsAreNotAffectedBySlowOne() {
+        for (int i = 0; i < MAX_PENDING; i++) {
+            channel.send(to(SESSION, "/topic/messages/1", "chat-" + i));
+        }
+        channel.send(to("s2", "/topic/notifications/2", "notification"));
+        clientStalled.countDown();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> handled.size() == MAX_PENDING + 1);
+        assertThat(handled).extracting(message -> (Object) message.getPayload()).contains("notification");
+        assertThat(meterRegistry.get("websocket.outbound.dropped").counter().count()).isZero();
+    }
+
+    private double pendingMax() {
+        return meterRegistry.get("websocket.outbound.pending.max").gauge().value();
+    }
+}
@@ -0,0 +1,123 @@
+package com.edumatch.chat.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.edumatch.chat.support.OutboundMessages.coalesced;
+import static com.edumatch.chat.support.OutboundMessages.destination;
+import static com.edumatch.chat.support.OutboundMessages.sessionId;
+import static com.edumatch.chat.support.OutboundMessages.to;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Tải giả lập: vài nghìn phiên cùng nhận chậm (mọi lần ghi bị treo) trong khi server vẫn đẩy
+ * số chưa đọc, thông báo và tin nhắn chat. Số bản tin giữ lại cho mỗi phiên phải bị chặn trên,
+ * tin nhắn chat và giá trị chưa đọc cuối cùng vẫn tới đủ khi client đọc lại được.
+ */
+class OutboundFlowControlLoadTest {
+
+    private static final int SESSIONS = 2000;
+    private static final int ROUNDS = 30;
+    private static final int CHATS_PER_SESSION = 3;
+    private static final int MAX_PENDING = 10;
+    private static final int POOL_SIZE = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch clientsStalled = new CountDownLatch(1);
+    private final AtomicInteger handledTotal = new AtomicInteger();
+    private final Map<String, AtomicInteger> chatsBySession = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> notificationsBySession = new ConcurrentHashMap<>();
+    private final Map<String, Object> lastUnreadBySession = new ConcurrentHashMap<>();
+    private ThreadPoolTaskExecutor executor;
+    private ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(POOL_SIZE);
+        executor.setMaxPoolSize(POOL_SIZE);
+        executor.initialize();
+        channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(new OutboundFlowControlInterceptor(meterRegistry, MAX_PENDING));
+        channel.subscribe(this::deliver);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientsStalled.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void slowSubscribersKeepBoundedBacklogAndStillGetChatAndLatestState() {
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int s = 0; s < SESSIONS; s++) {
+                String session = "session-" + s;
+                channel.send(coalesced(session, "/topic/unread/" + s, "unread-" + round, "unread"));
+                channel.send(to(session, "/topic/notifications/" + s, "notification-" + round));
+                if (round % (ROUNDS / CHATS_PER_SESSION) == 0) {
+                    channel.send(to(session, "/topic/messages/" + s, "chat-" + round));
+                }
+            }
+        }
+
+        // Trong lúc mọi client đều chậm: backlog mỗi phiên bị chặn, không tăng theo số bản tin đã đẩy
+        assertThat(gauge("websocket.outbound.pending.max")).isLessThanOrEqualTo(MAX_PENDING + CHATS_PER_SESSION);
+        assertThat(gauge("websocket.outbound.pending")).isLessThanOrEqualTo(SESSIONS * (MAX_PENDING + CHATS_PER_SESSION));
+        // Chỉ vài bản đầu tiên đã được worker lấy ra (đang treo) trước khi bị gộp
+        assertThat(counter("websocket.outbound.coalesced")).isGreaterThanOrEqualTo(SESSIONS * (ROUNDS - 1) - POOL_SIZE);
+        assertThat(counter("websocket.outbound.dropped")).isPositive();
+
+        clientsStalled.countDown();
+        await().atMost(60, TimeUnit.SECONDS).until(() -> gauge("websocket.outbound.pending") == 0);
+
+        for (int s = 0; s < SESSIONS; s++) {
+            String session = "session-" + s;
+            assertThat(chatsBySession.get(session)).hasValue(CHATS_PER_SESSION);
+            assertThat(lastUnreadBySession.get(session)).isEqualTo("unread-" + (ROUNDS - 1));
+            assertThat(notificationsBySession.get(session).get()).isLessThanOrEqualTo(MAX_PENDING);
+        }
+        int sent = SESSIONS * (ROUNDS * 2 + CHATS_PER_SESSION);
+        assertThat(handledTotal.get()).isLessThan(sent / 3);
+    }
+
+    private void deliver(Message<?> message) {
+        // Như ConcurrentWebSocketSessionDecorator: bản tin vào buffer của phiên theo thứ tự tới,
+        // sau đó lần ghi socket bị treo vì client không đọc
+        handledTotal.incrementAndGet();
+        String session = sessionId(message);
+        String destination = destination(message);
+        if (destination.startsWith("/topic/messages/")) {
+            chatsBySession.computeIfAbsent(session, k -> new AtomicInteger()).incrementAndGet();
+        } else if (destination.startsWith("/topic/notifications/")) {
+            notificationsBySession.computeIfAbsent(session, k -> new AtomicInteger()).incrementAndGet();
+        } else {
+            lastUnreadBySession.put(session, message.getPayload());
+        }
+        try {
+            clientsStalled.await(60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}
@@ -0,0 +1,89 @@
+package com.edumatch.chat.controller;
+
+import com.edumatch.chat.dto.ChatMessageRequest;
+import com.edumatch.chat.dto.MessageDto;
+import com.edumatch.chat.model.Message;
+import com.edumatch.chat.service.ChatService;
+import com.edumatch.chat.service.MessageIngestionPipeline;
+import com.edumatch.chat.service.RealtimeDeliveryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Người gửi luôn nhận phản hồi trên kênh của mình: bản sao khi lưu xong, bản sao kèm error khi lưu lỗi.
+ */
+class ChatControllerTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final RealtimeDeliveryService delivery = mock(RealtimeDeliveryService.class);
+    private final ChatController controller = new ChatController(chatService, delivery);
+    private final Authentication authentication = new UsernamePasswordAuthenticationToken("alice", null, List.of());
+
+    private ChatMessageRequest request;
+    private Message message;
+
+    @BeforeEach
+    void setUp() {
+        request = new ChatMessageRequest();
+        request.setReceiverId(2L);
+        request.setContent("hi");
+        message = Message.builder().id(100L).conversationId(9L).senderId(1L).content("hi").build();
+    }
+
+    @Test
+    void senderGetsAckAfterPersist() {
+        when(chatService.submitMessage(any(), any())).thenReturn(
+                new MessageIngestionPipeline.Submission(message, CompletableFuture.completedFuture(message)));
+
+        controller.handleChatMessage(request, authentication);
+
+        MessageDto ack = sentTo("/topic/messages/1");
+        assertThat(ack.getId()).isEqualTo(100L);
+        assertThat(ack.getError()).isNull();
+    }
+
+    @Test
+    void senderGetsNackWhenPersistFails() {
+        when(chatService.submitMessage(any(), any())).thenReturn(
+                new MessageIngestionPipeline.Submission(message,
+                        CompletableFuture.failedFuture(new IllegalStateException("db down"))));
+
+        controller.handleChatMessage(request, authentication);
+
+        MessageDto nack = sentTo("/topic/messages/1");
+        assertThat(nack.getId()).isEqualTo(100L);
+        assertThat(nack.getError()).isEqualTo(ChatController.PERSIST_FAILED);
+    }
+
+    @Test
+    void senderGetsNackWhenPipelineRejects() {
+        when(chatService.submitMessage(any(), any())).thenThrow(new MessageIngestionPipeline.RejectedException(message));
+
+        controller.handleChatMessage(request, authentication);
+
+        MessageDto nack = sentTo("/topic/messages/1");
+        assertThat(nack.getId()).isEqualTo(100L);
+        assertThat(nack.getError()).isEqualTo(ChatController.PERSIST_FAILED);
+        verify(delivery, never()).send(eq("/topic/messages/2"), any());
+    }
+
+    private MessageDto sentTo(String destination) {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(delivery).send(eq(destination), payload.capture());
+        return (MessageDto) payload.getValue();
+    }
+}
@@ -0,0 +1,110 @@
+package com.edumatch.chat.security;
+
+import com.edumatch.chat.support.TestTokens;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh đường xác thực JWT của filter:
+ * - cachedFilter: JwtAuthenticationFilter hiện tại (JwtVerifier, token đã có trong cache);
+ * - uncachedFilter: JwtVerifier mới nhưng token chưa từng gặp (verify 1 lần, không trúng cache);
+ * - legacyFilter: filter cũ (LegacyJwtAuthenticationFilter + LegacyJwtTokenProvider, bản sao trong test) -
+ *   validateToken rồi getAuthentication, mỗi bước dựng parser và verify lại; cùng token với cachedFilter.
+ * Cả ba đều chạy qua doFilterInternal với cùng request/SecurityContext nên so sánh ngang hàng.
+ *
+ * Chạy thủ công (không thuộc mvn test):
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.edumatch.chat.security.JwtFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final int DISTINCT_TOKENS = 1024;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    // doFilterInternal là protected: gọi qua method reference (cùng package)
+    @FunctionalInterface
+    private interface FilterUnderTest {
+        void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws Exception;
+    }
+
+    private JwtAuthenticationFilter filter;
+    private LegacyJwtAuthenticationFilter legacyJwtFilter;
+    private JwtVerifier verifier;
+    private String cachedToken;
+    private String[] freshTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Cache nhỏ hơn số token "mới" để đường uncached luôn trượt cache
+        verifier = new JwtVerifier(TestTokens.SECRET, DISTINCT_TOKENS / 4);
+        filter = new JwtAuthenticationFilter(verifier);
+        ReflectionTestUtils.setField(filter, "headerName", "Authorization");
+        ReflectionTestUtils.setField(filter, "headerPrefix", "Bearer");
+        legacyJwtFilter = new LegacyJwtAuthenticationFilter(new LegacyJwtTokenProvider(TestTokens.SECRET), "Authorization", "Bearer");
+
+        cachedToken = TestTokens.access("alice", 7L);
+        freshTokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            freshTokens[i] = TestTokens.access("user" + i, i);
+        }
+        verifier.authenticate(cachedToken);
+    }
+
+    @Benchmark
+    public Object cachedFilter() throws Exception {
+        return runFilter(filter::doFilterInternal, cachedToken);
+    }
+
+    @Benchmark
+    public Object uncachedFilter() throws Exception {
+        next = (next + 1) % DISTINCT_TOKENS;
+        return runFilter(filter::doFilterInternal, freshTokens[next]);
+    }
+
+    @Benchmark
+    public Object legacyFilter() throws Exception {
+        return runFilter(legacyJwtFilter::doFilterInternal, cachedToken);
+    }
+
+    private Object runFilter(FilterUnderTest target, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        target.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
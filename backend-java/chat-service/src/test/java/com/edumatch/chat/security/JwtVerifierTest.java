@@ -0,0 +1,74 @@
+package com.edumatch.chat.security;
+
+import com.edumatch.chat.support.TestTokens;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token hợp lệ chỉ được verify một lần rồi lấy từ cache; cache đầy (không có mục hết hạn) thì bị xóa sạch.
+ */
+class JwtVerifierTest {
+
+    @Test
+    void validTokenIsAuthenticatedWithRolesAndIdentity() {
+        JwtVerifier verifier = new JwtVerifier(TestTokens.SECRET, 10);
+
+        Authentication authentication = verifier.authenticate(TestTokens.access("alice", 7L));
+
+        assertThat(authentication.getName()).isEqualTo("alice");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_EMPLOYER");
+        assertThat(authentication.getDetails()).isInstanceOfSatisfying(TokenIdentity.class,
+                identity -> assertThat(identity.userId()).isEqualTo(7L));
+    }
+
+    @Test
+    void repeatedTokenIsServedFromCache() {
+        JwtVerifier verifier = new JwtVerifier(TestTokens.SECRET, 10);
+        String token = TestTokens.access("alice", 7L);
+
+        Authentication first = verifier.authenticate(token);
+        Authentication second = verifier.authenticate(token);
+
+        // Cùng một instance dựng sẵn: lần thứ hai không parse/verify lại
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void cacheIsClearedWhenFullOfLiveTokens() {
+        JwtVerifier verifier = new JwtVerifier(TestTokens.SECRET, 2);
+        String first = TestTokens.access("alice", 1L);
+        String second = TestTokens.access("bob", 2L);
+        String third = TestTokens.access("carol", 3L);
+
+        Authentication firstCached = verifier.authenticate(first);
+        Authentication secondCached = verifier.authenticate(second);
+        Authentication thirdCached = verifier.authenticate(third);
+
+        // Đầy mà không có mục hết hạn -> xóa hết, chỉ còn token vừa thêm
+        assertThat(verifier.authenticate(third)).isSameAs(thirdCached);
+        Authentication firstAgain = verifier.authenticate(first);
+        assertThat(firstAgain).isNotSameAs(firstCached);
+        assertThat(firstAgain.getName()).isEqualTo("alice");
+        assertThat(verifier.authenticate(second)).isNotSameAs(secondCached);
+    }
+
+    @Test
+    void invalidTokensAreRejected() {
+        JwtVerifier verifier = new JwtVerifier(TestTokens.SECRET, 10);
+        String forged = TestTokens.signedBy(
+                Keys.hmacShaKeyFor("another_secret_key_that_is_long_enough_0123456".getBytes(StandardCharsets.UTF_8)),
+                "mallory", 9L);
+
+        assertThat(verifier.authenticate(forged)).isNull();
+        assertThat(verifier.authenticate("not-a-jwt")).isNull();
+        assertThat(verifier.authenticate(TestTokens.withoutRoles("alice"))).isNull();
+        assertThat(verifier.authenticate(null)).isNull();
+    }
+}
@@ -0,0 +1,58 @@
+package com.edumatch.chat.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Bản sao JwtAuthenticationFilter trước khi có JwtVerifier (validateToken rồi getAuthentication),
+ * cùng hình dạng với filter hiện tại để JwtFilterBenchmark so sánh ngang hàng. Không phải @Component.
+ */
+@Slf4j
+class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final LegacyJwtTokenProvider tokenProvider;
+    private final String headerName;
+    private final String headerPrefix;
+
+    LegacyJwtAuthenticationFilter(LegacyJwtTokenProvider tokenProvider, String headerName, String headerPrefix) {
+        this.tokenProvider = tokenProvider;
+        this.headerName = headerName;
+        this.headerPrefix = headerPrefix;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try {
+            String jwt = getJwtFromRequest(request);
+
+            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
+                Authentication authentication = tokenProvider.getAuthentication(jwt);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        } catch (Exception ex) {
+            log.error("Could not set user authentication in security context", ex);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String getJwtFromRequest(HttpServletRequest request) {
+        String bearerToken = request.getHeader(headerName);
+
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith(headerPrefix + " ")) {
+            return bearerToken.substring(headerPrefix.length() + 1);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.config.ClusterMessagingConfig;
+import com.edumatch.chat.dto.ClusterDelivery;
+import com.edumatch.chat.support.EmbeddedAmqpBroker;
+import com.edumatch.chat.support.StompEvents;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Ba node chat-service (relay + registry thật) trên một broker AMQP nhúng:
+ * bản tin chỉ tới node đang giữ phiên của người nhận, và ngừng tới sau khi phiên đóng.
+ */
+class ClusterDeliveryMultiNodeTest {
+
+    private static final String DESTINATION = "/topic/messages/42";
+    private static final Object PAYLOAD = Map.of("content", "xin chào");
+
+    private static EmbeddedAmqpBroker broker;
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker = EmbeddedAmqpBroker.start();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @BeforeEach
+    void startNodes() {
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new Node(broker.port()));
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(Node::stop);
+    }
+
+    @Test
+    void deliversOnlyToNodeHoldingRecipientSession() {
+        Node sender = nodes.get(0);
+        Node holder = nodes.get(1);
+        Node idle = nodes.get(2);
+
+        holder.registry.onSubscribe(StompEvents.subscribe("s1", "sub-1", DESTINATION));
+
+        // Binding được khai báo bất đồng bộ: gửi lại cho tới khi node giữ phiên nhận được
+        await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(100)).untilAsserted(() -> {
+            sender.relay.forward(DESTINATION, PAYLOAD, null);
+            verify(holder.messaging, atLeastOnce()).convertAndSend(eq(DESTINATION), any(Object.class));
+        });
+
+        verify(idle.messaging, never()).convertAndSend(eq(DESTINATION), any(Object.class));
+        verify(sender.messaging, never()).convertAndSend(eq(DESTINATION), any(Object.class));
+    }
+
+    @Test
+    void stopsDeliveringAfterLastSessionCloses() {
+        Node sender = nodes.get(0);
+        Node holder = nodes.get(1);
+
+        holder.registry.onSubscribe(StompEvents.subscribe("s1", "sub-1", DESTINATION));
+        await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(100)).untilAsserted(() -> {
+            sender.relay.forward(DESTINATION, PAYLOAD, null);
+            verify(holder.messaging, atLeastOnce()).convertAndSend(eq(DESTINATION), any(Object.class));
+        });
+
+        holder.registry.onDisconnect(StompEvents.disconnect("s1"));
+
+        // Sau khi unbind: một bản tin gửi đi không còn tới node cũ
+        await().atMost(Duration.ofSeconds(10)).pollDelay(Duration.ofMillis(200)).untilAsserted(() -> {
+            clearInvocations(holder.messaging);
+            sender.relay.forward(DESTINATION, PAYLOAD, null);
+            Thread.sleep(300);
+            verify(holder.messaging, never()).convertAndSend(eq(DESTINATION), any(Object.class));
+        });
+    }
+
+    /**
+     * Một node: connection, queue riêng, relay thật và SimpMessagingTemplate giả để quan sát việc giao tin.
+     */
+    private static final class Node {
+        final CachingConnectionFactory connectionFactory;
+        final SimpleMessageListenerContainer container;
+        final UserSessionRegistry registry = new UserSessionRegistry();
+        final SimpMessagingTemplate messaging = mock(SimpMessagingTemplate.class);
+        final ClusterDeliveryRelay relay;
+
+        Node(int port) {
+            connectionFactory = new CachingConnectionFactory("localhost", port);
+            connectionFactory.setUsername("guest");
+            connectionFactory.setPassword("guest");
+
+            RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+            DirectExchange exchange = new DirectExchange(ClusterMessagingConfig.DELIVERY_EXCHANGE, true, false);
+            // Như AnonymousQueue của ClusterMessagingConfig (exclusive, auto-delete) nhưng không có
+            // x-queue-master-locator - tham số riêng của RabbitMQ mà broker nhúng không nhận
+            Queue queue = new Queue("chat.node." + UUID.randomUUID(), false, true, true);
+            admin.declareExchange(exchange);
+            admin.declareQueue(queue);
+            admin.declareBinding(BindingBuilder.bind(queue).to(exchange).with(ClusterMessagingConfig.BROADCAST_ROUTING_KEY));
+
+            ObjectMapper objectMapper = new ObjectMapper();
+            RabbitTemplate template = new RabbitTemplate(connectionFactory);
+            template.setMessageConverter(new Jackson2JsonMessageConverter(objectMapper));
+
+            relay = new ClusterDeliveryRelay(template, admin, connectionFactory, queue, exchange, registry,
+                    messaging, objectMapper, 100);
+            relay.register();
+
+            container = new SimpleMessageListenerContainer(connectionFactory);
+            container.setQueues(queue);
+            container.setMessageListener(message -> {
+                try {
+                    relay.receive(objectMapper.readValue(message.getBody(), ClusterDelivery.class));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            container.start();
+        }
+
+        void stop() {
+            container.stop();
+            relay.shutdown();
+            connectionFactory.destroy();
+        }
+    }
+}
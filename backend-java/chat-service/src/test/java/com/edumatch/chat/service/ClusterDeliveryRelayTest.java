@@ -0,0 +1,120 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.support.StompEvents;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Bind/unbind presence chạy ngoài thread sự kiện STOMP, được thử lại khi broker lỗi
+ * và luôn hội tụ về trạng thái online thật của user.
+ */
+class ClusterDeliveryRelayTest {
+
+    private static final String DESTINATION = "/topic/messages/42";
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private UserSessionRegistry registry;
+    private ClusterDeliveryRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        registry = new UserSessionRegistry();
+        relay = new ClusterDeliveryRelay(mock(RabbitTemplate.class), amqpAdmin, mock(ConnectionFactory.class),
+                new AnonymousQueue(), new DirectExchange("chat.delivery"), registry,
+                mock(SimpMessagingTemplate.class), new ObjectMapper(), 50);
+        relay.register();
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+    }
+
+    @Test
+    void subscribeDoesNotWaitForBroker() throws Exception {
+        CountDownLatch brokerReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            brokerReleased.await();
+            return null;
+        }).when(amqpAdmin).declareBinding(any(Binding.class));
+
+        long start = System.nanoTime();
+        registry.onSubscribe(StompEvents.subscribe("s1", "sub-1", DESTINATION));
+        registry.onSubscribe(StompEvents.subscribe("s2", "sub-1", "/topic/messages/43"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis).isLessThan(500);
+        assertThat(registry.isOnline(42L)).isTrue();
+        assertThat(registry.isOnline(43L)).isTrue();
+
+        brokerReleased.countDown();
+        verify(amqpAdmin, timeout(2000).times(2)).declareBinding(any(Binding.class));
+    }
+
+    @Test
+    void retriesBindingAfterBrokerFailure() {
+        doThrow(new RuntimeException("broker down"))
+                .doNothing()
+                .when(amqpAdmin).declareBinding(any(Binding.class));
+
+        registry.onSubscribe(StompEvents.subscribe("s1", "sub-1", DESTINATION));
+
+        verify(amqpAdmin, timeout(2000).times(2)).declareBinding(any(Binding.class));
+    }
+
+    @Test
+    void quickSubscribeAndDisconnectConvergeToUnbound() throws Exception {
+        CountDownLatch bindingStarted = new CountDownLatch(1);
+        CountDownLatch brokerReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            bindingStarted.countDown();
+            brokerReleased.await();
+            return null;
+        }).when(amqpAdmin).declareBinding(any(Binding.class));
+        doNothing().when(amqpAdmin).removeBinding(any(Binding.class));
+
+        registry.onSubscribe(StompEvents.subscribe("s1", "sub-1", DESTINATION));
+        assertThat(bindingStarted.await(2, TimeUnit.SECONDS)).isTrue();
+        // Bind đầu tiên đang chờ broker; user rời đi rồi quay lại rồi rời đi lần nữa
+        registry.onDisconnect(StompEvents.disconnect("s1"));
+        registry.onSubscribe(StompEvents.subscribe("s2", "sub-1", DESTINATION));
+        registry.onDisconnect(StompEvents.disconnect("s2"));
+        brokerReleased.countDown();
+
+        // Lần đồng bộ sau cùng thấy user đã offline -> gỡ đúng binding đã khai báo, không bind thêm
+        verify(amqpAdmin, timeout(2000)).removeBinding(any(Binding.class));
+        verify(amqpAdmin, times(1)).declareBinding(any(Binding.class));
+        assertThat(registry.isOnline(42L)).isFalse();
+    }
+
+    @Test
+    void nonUserDestinationsAreIgnored() {
+        registry.onSubscribe(StompEvents.subscribe("s1", "sub-1", "/topic/public"));
+
+        assertThat(registry.onlineUserIds()).isEmpty();
+        verify(amqpAdmin, never()).declareBinding(any(Binding.class));
+    }
+}
@@ -0,0 +1,35 @@
+package com.edumatch.chat.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chạy nhiều node thì node-id phải được cấu hình tường minh - không tự suy ra (có thể trùng).
+ */
+class MessageIdGeneratorTest {
+
+    @Test
+    void clusterWithoutNodeIdFailsAtStartup() {
+        assertThatThrownBy(() -> new MessageIdGenerator(-1, true))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void nodeIdIsEncodedAndIdsIncrease() {
+        MessageIdGenerator generator = new MessageIdGenerator(5, true);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat((first >> 6) & 63).isEqualTo(5);
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void nodeIdOutOfRangeIsRejected() {
+        assertThatThrownBy(() -> new MessageIdGenerator(64, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
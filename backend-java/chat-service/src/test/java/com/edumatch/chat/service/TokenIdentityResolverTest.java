@@ -0,0 +1,78 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.dto.UserDetailDto;
+import com.edumatch.chat.model.UserIdentityVersion;
+import com.edumatch.chat.repository.UserIdentityVersionRepository;
+import com.edumatch.chat.security.JwtVerifier;
+import com.edumatch.chat.security.TokenIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Claim identity được tin suốt thời hạn token, trừ khi version identity của user (uiv) đã tăng sau khi cấp token;
+ * version đã lưu trong DB được nạp lại khi khởi động nên không phụ thuộc vào event nhận được trong bộ nhớ.
+ */
+class TokenIdentityResolverTest {
+
+    private static final String TOKEN = "token";
+
+    private final JwtVerifier jwtVerifier = mock(JwtVerifier.class);
+    private final UserIdentityVersionRepository repository = mock(UserIdentityVersionRepository.class);
+    private final IdentityVersionStore store = new IdentityVersionStore(repository);
+    private final TokenIdentityResolver resolver = new TokenIdentityResolver(jwtVerifier, store, new SimpleMeterRegistry());
+
+    @Test
+    void claimsAreTrustedWhileIdentityVersionIsCurrent() {
+        tokenWithVersion(0);
+
+        UserDetailDto user = resolver.resolve("alice", TOKEN);
+
+        assertThat(user).isNotNull();
+        assertThat(user.getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void tokenWithOlderVersionFallsBack() {
+        tokenWithVersion(1);
+        store.remember(7L, 2);
+
+        assertThat(resolver.resolve("alice", TOKEN)).isNull();
+    }
+
+    @Test
+    void persistedVersionIsKnownAfterRestart() {
+        tokenWithVersion(1);
+        when(repository.findAll()).thenReturn(List.of(new UserIdentityVersion(7L, 2)));
+
+        // Instance mới: chưa nhận event nào, chỉ có dữ liệu đã lưu
+        IdentityVersionStore restarted = new IdentityVersionStore(repository);
+        restarted.reload();
+        TokenIdentityResolver afterRestart = new TokenIdentityResolver(jwtVerifier, restarted, new SimpleMeterRegistry());
+
+        assertThat(afterRestart.resolve("alice", TOKEN)).isNull();
+    }
+
+    @Test
+    void refreshedTokenIsTrustedAgain() {
+        store.persist(7L, 2);
+        verify(repository).upsertMax(7L, 2);
+        tokenWithVersion(2);
+
+        assertThat(resolver.resolve("alice", TOKEN)).isNotNull();
+    }
+
+    private void tokenWithVersion(int identityVersion) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken("alice", null, List.of());
+        authentication.setDetails(new TokenIdentity(7L, null, identityVersion));
+        when(jwtVerifier.authenticate(TOKEN)).thenReturn(authentication);
+    }
+}
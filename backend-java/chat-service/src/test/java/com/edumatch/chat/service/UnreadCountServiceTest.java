@@ -0,0 +1,52 @@
+package com.edumatch.chat.service;
+
+import com.edumatch.chat.repository.NotificationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Thông báo mới vô hiệu cache thay vì cộng dồn; kết quả đếm bắt đầu trước lúc vô hiệu hóa không được ghi vào cache.
+ */
+class UnreadCountServiceTest {
+
+    private static final Long USER = 7L;
+
+    private final NotificationRepository repository = mock(NotificationRepository.class);
+    private final UnreadCountService service =
+            new UnreadCountService(repository, mock(RealtimeDeliveryService.class), 60, 100);
+
+    @Test
+    void cachedCountIsReusedUntilInsert() {
+        when(repository.countUnread(USER)).thenReturn(2L, 3L);
+
+        assertThat(service.getUnreadCount(USER)).isEqualTo(2L);
+        assertThat(service.getUnreadCount(USER)).isEqualTo(2L);
+        service.recordInserted(List.of(USER));
+
+        assertThat(service.getUnreadCount(USER)).isEqualTo(3L);
+        verify(repository, times(2)).countUnread(USER);
+    }
+
+    @Test
+    void countStartedBeforeInsertIsNotCached() {
+        // Lần đếm đầu đọc snapshot trước khi lô thông báo commit; recordInserted chạy trong lúc đó
+        when(repository.countUnread(USER)).thenAnswer(invocation -> {
+            service.recordInserted(List.of(USER));
+            return 2L;
+        }).thenReturn(3L);
+
+        assertThat(service.getUnreadCount(USER)).isEqualTo(2L);
+
+        // Không cộng thành 3 trên giá trị cũ, cũng không giữ số 2 đã cũ: đếm lại
+        assertThat(service.getUnreadCount(USER)).isEqualTo(3L);
+        assertThat(service.getUnreadCount(USER)).isEqualTo(3L);
+        verify(repository, times(2)).countUnread(USER);
+    }
+}
@@ -0,0 +1,118 @@
+package com.edumatch.chat.service.archive;
+
+import com.edumatch.chat.model.Message;
+import com.edumatch.chat.repository.MessageArchiveBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Job lưu trữ chỉ xóa đúng các dòng đã nằm trong segment và giữ bất biến
+ * "mọi ID <= maxArchivedId đều đã lưu trữ".
+ */
+class MessageArchiverTest {
+
+    private static final long CONVERSATION = 7L;
+
+    @TempDir
+    Path archiveDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private MessageArchiveStore store;
+    private MessageArchiver archiver;
+    private final LocalDateTime cutoff = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE messages (id BIGINT PRIMARY KEY, conversation_id BIGINT NOT NULL, " +
+                "sender_id BIGINT NOT NULL, content VARCHAR(1000), sent_at TIMESTAMP)");
+        store = new MessageArchiveStore(archiveDir.toString(), 64, 16);
+        archiver = new MessageArchiver(store, mock(MessageArchiveBatchRepository.class), jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), 180, 1000, 100, 8);
+    }
+
+    @Test
+    void stopsAtFirstRecentMessageEvenIfOlderOnesFollow() throws Exception {
+        insert(1, cutoff.minusDays(3));
+        insert(2, cutoff.minusDays(2));
+        insert(3, cutoff.plusMinutes(5));   // mới
+        insert(4, cutoff.minusDays(1));     // sent_at lùi (lệch đồng hồ) nhưng ID lớn hơn tin mới
+        insert(5, cutoff.minusHours(1));
+
+        int archived = archiver.archiveConversation(CONVERSATION, cutoff);
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(store.maxArchivedId(CONVERSATION)).isEqualTo(2L);
+        assertThat(remainingIds()).containsExactly(3L, 4L, 5L);
+        assertThat(store.readAsc(CONVERSATION, 0, 100)).extracting(Message::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void recoveryMergesRowsMissingFromArchiveBeforeDeleting() throws Exception {
+        insert(1, cutoff.minusDays(3));
+        insert(2, cutoff.minusDays(2));
+        insert(3, cutoff.minusDays(1));
+        // Segment ghi ở lần chạy bị ngắt trước khi xóa DB; ID 2 được commit muộn nên không có trong segment
+        store.append(CONVERSATION, List.of(message(1, cutoff.minusDays(3)), message(3, cutoff.minusDays(1))));
+
+        archiver.archiveConversation(CONVERSATION, cutoff);
+
+        assertThat(remainingIds()).isEmpty();
+        assertThat(store.maxArchivedId(CONVERSATION)).isEqualTo(3L);
+        assertThat(store.readAsc(CONVERSATION, 0, 100)).extracting(Message::getId).containsExactly(1L, 2L, 3L);
+        assertThat(store.segments(CONVERSATION)).hasSize(1);
+    }
+
+    @Test
+    void lateRowBelowArchivedMaxIsMergedOnNextRun() throws Exception {
+        insert(1, cutoff.minusDays(3));
+        insert(3, cutoff.minusDays(1));
+        insert(5, cutoff.plusDays(1));
+        assertThat(archiver.archiveConversation(CONVERSATION, cutoff)).isEqualTo(2);
+        // ID 2 được cấp trước nhưng commit sau khi đoạn [1, 3] đã lưu trữ
+        insert(2, cutoff.minusDays(2));
+
+        archiver.archiveConversation(CONVERSATION, cutoff);
+
+        assertThat(remainingIds()).containsExactly(5L);
+        assertThat(store.readDesc(CONVERSATION, null, 0, 100)).extracting(Message::getId).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void archivesNothingWhenOldestMessageIsRecent() throws Exception {
+        insert(1, cutoff.plusDays(1));
+        insert(2, cutoff.minusDays(1));
+
+        assertThat(archiver.archiveConversation(CONVERSATION, cutoff)).isZero();
+        assertThat(store.maxArchivedId(CONVERSATION)).isZero();
+        assertThat(remainingIds()).containsExactly(1L, 2L);
+    }
+
+    private void insert(long id, LocalDateTime sentAt) {
+        jdbcTemplate.update("INSERT INTO messages (id, conversation_id, sender_id, content, sent_at) VALUES (?, ?, ?, ?, ?)",
+                id, CONVERSATION, 1L, "tin " + id, Timestamp.valueOf(sentAt));
+    }
+
+    private static Message message(long id, LocalDateTime sentAt) {
+        return Message.builder().id(id).conversationId(CONVERSATION).senderId(1L).content("tin " + id).sentAt(sentAt).build();
+    }
+
+    private List<Long> remainingIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM messages WHERE conversation_id = ? ORDER BY id", Long.class, CONVERSATION);
+    }
+}
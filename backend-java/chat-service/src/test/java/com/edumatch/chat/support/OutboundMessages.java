@@ -0,0 +1,42 @@
+package com.edumatch.chat.support;
+
+import com.edumatch.chat.config.OutboundFlowControlInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Bản tin clientOutboundChannel giả lập (như SimpMessagingTemplate tạo cho một phiên đã subscribe).
+ */
+public final class OutboundMessages {
+
+    private OutboundMessages() {
+    }
+
+    public static Message<String> to(String sessionId, String destination, String payload) {
+        return build(sessionId, destination, payload, null);
+    }
+
+    public static Message<String> coalesced(String sessionId, String destination, String payload, String key) {
+        return build(sessionId, destination, payload, key);
+    }
+
+    private static Message<String> build(String sessionId, String destination, String payload, String key) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        if (key != null) {
+            accessor.setNativeHeader(OutboundFlowControlInterceptor.COALESCE_KEY_HEADER, key);
+        }
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    public static String sessionId(Message<?> message) {
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+
+    public static String destination(Message<?> message) {
+        return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+}
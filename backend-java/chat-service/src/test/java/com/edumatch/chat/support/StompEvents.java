@@ -0,0 +1,40 @@
+package com.edumatch.chat.support;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+/**
+ * Dựng các sự kiện phiên STOMP như Spring phát ra, để test UserSessionRegistry mà không cần WebSocket thật.
+ */
+public final class StompEvents {
+
+    private StompEvents() {
+    }
+
+    public static SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        return new SessionSubscribeEvent(StompEvents.class, message(SimpMessageType.SUBSCRIBE, sessionId, subscriptionId, destination));
+    }
+
+    public static SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+        return new SessionUnsubscribeEvent(StompEvents.class, message(SimpMessageType.UNSUBSCRIBE, sessionId, subscriptionId, null));
+    }
+
+    public static SessionDisconnectEvent disconnect(String sessionId) {
+        return new SessionDisconnectEvent(StompEvents.class,
+                message(SimpMessageType.DISCONNECT, sessionId, null, null), sessionId, CloseStatus.NORMAL);
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
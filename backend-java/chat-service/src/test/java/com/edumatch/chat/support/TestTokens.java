@@ -0,0 +1,48 @@
+package com.edumatch.chat.support;
+
+import com.edumatch.chat.security.TokenIdentity;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Token ký giống Auth-Service (HS256, claim roles + identity version 1) cho test và benchmark.
+ */
+public final class TestTokens {
+
+    public static final String SECRET = "test_secret_key_for_unit_tests_only_0123456789";
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+    private TestTokens() {
+    }
+
+    public static String access(String username, long userId) {
+        return signedBy(KEY, username, userId);
+    }
+
+    public static String signedBy(SecretKey key, String username, long userId) {
+        Date now = new Date();
+        return Jwts.builder()
+                .subject(username)
+                .claim("roles", "ROLE_USER,ROLE_EMPLOYER")
+                .claim(TokenIdentity.CLAIM_IDENTITY_VERSION, TokenIdentity.SUPPORTED_VERSION)
+                .claim(TokenIdentity.CLAIM_USER_ID, userId)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3_600_000))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    public static String withoutRoles(String username) {
+        Date now = new Date();
+        return Jwts.builder()
+                .subject(username)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3_600_000))
+                .signWith(KEY, Jwts.SIG.HS256)
+                .compact();
+    }
+}
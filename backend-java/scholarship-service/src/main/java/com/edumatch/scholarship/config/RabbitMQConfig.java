@@ -1,5 +1,9 @@
 package com.edumatch.scholarship.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -14,11 +18,64 @@ public class RabbitMQConfig {
     // Tên Exchange chung, như trong tài liệu yêu cầu
     public static final String EXCHANGE_NAME = "events_exchange";
 
+    // Event từ Auth-Service khi identity của user thay đổi (xóa cache identity)
+    public static final String USER_IDENTITY_CHANGED_KEY = "user.identity.changed";
+    public static final String USER_IDENTITY_QUEUE_BEAN = "userIdentityQueue";
+    // Queue durable dùng chung (một instance xử lý mỗi event) để lưu version identity vào DB, không mất khi mọi instance tắt
+    public static final String USER_IDENTITY_VERSION_QUEUE = "scholarship_user_identity_queue";
+
+    // Event thay đổi cơ hội (gửi qua outbox) để search index của mọi instance được cập nhật
+    public static final String SCHOLARSHIP_CREATED_KEY = "scholarship.created";
+    public static final String SCHOLARSHIP_UPDATED_KEY = "scholarship.updated";
+    public static final String SCHOLARSHIP_DELETED_KEY = "scholarship.deleted";
+    public static final String OPPORTUNITY_INDEX_QUEUE_BEAN = "opportunityIndexQueue";
+
     @Bean
     public TopicExchange exchange() {
         return new TopicExchange(EXCHANGE_NAME);
     }
 
+    // Queue tạm (auto-delete) riêng cho mỗi instance để mọi replica đều nhận event
+    @Bean(name = USER_IDENTITY_QUEUE_BEAN)
+    public Queue userIdentityQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding userIdentityBinding(Queue userIdentityQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(userIdentityQueue).to(exchange).with(USER_IDENTITY_CHANGED_KEY);
+    }
+
+    @Bean
+    public Queue userIdentityVersionQueue() {
+        return new Queue(USER_IDENTITY_VERSION_QUEUE, true);
+    }
+
+    @Bean
+    public Binding userIdentityVersionBinding(Queue userIdentityVersionQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(userIdentityVersionQueue).to(exchange).with(USER_IDENTITY_CHANGED_KEY);
+    }
+
+    @Bean(name = OPPORTUNITY_INDEX_QUEUE_BEAN)
+    public Queue opportunityIndexQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding opportunityCreatedBinding(Queue opportunityIndexQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(opportunityIndexQueue).to(exchange).with(SCHOLARSHIP_CREATED_KEY);
+    }
+
+    @Bean
+    public Binding opportunityUpdatedBinding(Queue opportunityIndexQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(opportunityIndexQueue).to(exchange).with(SCHOLARSHIP_UPDATED_KEY);
+    }
+
+    @Bean
+    public Binding opportunityDeletedBinding(Queue opportunityIndexQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(opportunityIndexQueue).to(exchange).with(SCHOLARSHIP_DELETED_KEY);
+    }
+
     // Bean này giúp RabbitTemplate gửi/nhận object Java dưới dạng JSON
     @Bean
     public MessageConverter jsonMessageConverter() {
@@ -2,6 +2,7 @@ package com.edumatch.scholarship.controller;
 
 import com.edumatch.scholarship.dto.CreateOpportunityRequest;
 import com.edumatch.scholarship.dto.OpportunityDto;
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
 import com.edumatch.scholarship.service.ScholarshipService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -47,10 +48,10 @@ public class OpportunityController {
     //API để Provider lấy danh sách các cơ hội HỌ ĐÃ TẠO.
     @GetMapping("/my")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<OpportunityDto>> getMyOpportunities(
+    public ResponseEntity<List<OpportunitySummaryDto>> getMyOpportunities(
             @AuthenticationPrincipal UserDetails userDetails
     ) {
-        List<OpportunityDto> myOpps = scholarshipService.getMyOpportunities(userDetails);
+        List<OpportunitySummaryDto> myOpps = scholarshipService.getMyOpportunities(userDetails);
         return ResponseEntity.ok(myOpps);
     }
 
@@ -83,11 +84,11 @@ public class OpportunityController {
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ROLE_ADMIN')") // Chỉ ADMIN
-    public ResponseEntity<Page<OpportunityDto>> getAllOpportunities(
+    public ResponseEntity<Page<OpportunitySummaryDto>> getAllOpportunities(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String keyword,
             Pageable pageable) {
-        Page<OpportunityDto> page = scholarshipService.getAllOpportunitiesForAdmin(status, keyword, pageable);
+        Page<OpportunitySummaryDto> page = scholarshipService.getAllOpportunitiesForAdmin(status, keyword, pageable);
         return ResponseEntity.ok(page);
     }
 
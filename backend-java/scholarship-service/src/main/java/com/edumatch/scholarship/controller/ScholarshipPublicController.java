@@ -1,7 +1,9 @@
 package com.edumatch.scholarship.controller;
 
+import com.edumatch.scholarship.dto.CursorPageDto;
 import com.edumatch.scholarship.dto.OpportunityDetailDto;
-import com.edumatch.scholarship.dto.OpportunityDto;
+import com.edumatch.scholarship.repository.specification.OpportunityCursor;
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
 import com.edumatch.scholarship.service.ScholarshipService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -31,7 +33,7 @@ public class ScholarshipPublicController {
      * Endpoint: GET /api/scholarships
      */
     @GetMapping
-    public ResponseEntity<Page<OpportunityDto>> searchOpportunities(
+    public ResponseEntity<Page<OpportunitySummaryDto>> searchOpportunities(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) BigDecimal gpa,
 
@@ -42,14 +44,41 @@ public class ScholarshipPublicController {
             @RequestParam(required = false) LocalDate currentDate,
             // --- ------------------------------------ ---
 
-            Pageable pageable
+            Pageable pageable,
+            @AuthenticationPrincipal UserDetails userDetails
     ) {
         // Lấy ngày hiện tại nếu không được cung cấp (cho check deadline trong Specification)
         LocalDate date = Optional.ofNullable(currentDate).orElse(LocalDate.now());
 
         // Gọi service với tất cả các tham số lọc mới
-        Page<OpportunityDto> results = scholarshipService.searchOpportunities(
-                q, gpa, studyMode, level, isPublic, date, pageable
+        Page<OpportunitySummaryDto> results = scholarshipService.searchOpportunities(
+                q, gpa, studyMode, level, isPublic, date, pageable, userDetails
+        );
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * API tìm kiếm theo cursor (cho mobile cuộn vô hạn), không trả về tổng số bản ghi
+     * Endpoint: GET /api/scholarships/scroll?cursor=...&size=20&order=DEADLINE|NEWEST
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<OpportunitySummaryDto>> scrollOpportunities(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) BigDecimal gpa,
+            @RequestParam(required = false) String studyMode,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) Boolean isPublic,
+            @RequestParam(required = false) LocalDate currentDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "DEADLINE") OpportunityCursor.Order order,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserDetails userDetails
+    ) {
+        LocalDate date = Optional.ofNullable(currentDate).orElse(LocalDate.now());
+        int pageSize = Math.max(1, Math.min(size, 100));
+
+        CursorPageDto<OpportunitySummaryDto> results = scholarshipService.searchOpportunitiesByCursor(
+                q, gpa, studyMode, level, isPublic, date, cursor, order, pageSize, userDetails
         );
         return ResponseEntity.ok(results);
     }
@@ -0,0 +1,96 @@
+package com.edumatch.scholarship.dto;
+
+import com.edumatch.scholarship.model.Opportunity;
+import com.edumatch.scholarship.model.Skill;
+import com.edumatch.scholarship.model.Tag;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO rút gọn cho các trang danh sách (/api/scholarships, /api/opportunities/my, /api/opportunities/all).
+ * Không chứa full_description: "description" chỉ là đoạn trích đầu (tối đa DESCRIPTION_EXCERPT_LENGTH ký tự)
+ * để hiển thị trên card; mô tả đầy đủ lấy từ API chi tiết GET /{id}.
+ */
+@Data
+@Builder(toBuilder = true)
+public class OpportunitySummaryDto {
+
+    public static final int DESCRIPTION_EXCERPT_LENGTH = 200;
+
+    private Long id;
+    private String title;
+    private String description; // Đoạn trích, KHÔNG phải mô tả đầy đủ
+    private Long organizationId;
+    private Long creatorUserId;
+
+    private LocalDate applicationDeadline;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    private BigDecimal minGpa;
+    private BigDecimal scholarshipAmount;
+
+    private String studyMode;
+    private String level;
+    private Boolean isPublic;
+
+    private String contactEmail;
+    private String website;
+
+    private String location;
+    private String university;
+    private String department;
+    private Integer durationMonths;
+
+    private List<String> tags;
+    private List<String> requiredSkills;
+
+    private String moderationStatus;
+    private Integer viewsCnt;
+    private LocalDateTime createdAt;
+
+    // Điểm phù hợp với user đang đăng nhập (chỉ có trong kết quả tìm kiếm khi đã login)
+    private Float matchScore;
+
+    public static String excerpt(String description) {
+        if (description == null || description.length() <= DESCRIPTION_EXCERPT_LENGTH) {
+            return description;
+        }
+        return description.substring(0, DESCRIPTION_EXCERPT_LENGTH);
+    }
+
+    // Dùng khi đã có entity trong tay (ví dụ nạp search index); trang danh sách đọc qua OpportunityListingRepository
+    public static OpportunitySummaryDto fromEntity(Opportunity opp) {
+        return OpportunitySummaryDto.builder()
+                .id(opp.getId())
+                .title(opp.getTitle())
+                .description(excerpt(opp.getFullDescription()))
+                .organizationId(opp.getOrganizationId())
+                .creatorUserId(opp.getCreatorUserId())
+                .applicationDeadline(opp.getApplicationDeadline())
+                .startDate(opp.getStartDate())
+                .endDate(opp.getEndDate())
+                .minGpa(opp.getMinGpa())
+                .scholarshipAmount(opp.getScholarshipAmount())
+                .studyMode(opp.getStudyMode())
+                .level(opp.getLevel())
+                .isPublic(opp.getIsPublic())
+                .contactEmail(opp.getContactEmail())
+                .website(opp.getWebsite())
+                .location(opp.getLocation())
+                .university(opp.getUniversity())
+                .department(opp.getDepartment())
+                .durationMonths(opp.getDurationMonths())
+                .tags(opp.getTags().stream().map(Tag::getName).toList())
+                .requiredSkills(opp.getRequiredSkills().stream().map(Skill::getName).toList())
+                .moderationStatus(opp.getModerationStatus())
+                .viewsCnt(opp.getViewsCnt())
+                .createdAt(opp.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.edumatch.scholarship.dto.client;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Body cho POST /api/v1/matching/batch-scores (response: { opportunityId: score })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchScoreRequest {
+    private String applicantId;
+    private List<String> opportunityIds;
+}
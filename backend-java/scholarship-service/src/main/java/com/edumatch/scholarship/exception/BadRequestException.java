@@ -0,0 +1,15 @@
+package com.edumatch.scholarship.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Dữ liệu do client gửi lên không hợp lệ (cursor sai định dạng, tên quá dài...).
+ * Message được trả nguyên văn cho client nên chỉ chứa thông tin an toàn để hiển thị.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
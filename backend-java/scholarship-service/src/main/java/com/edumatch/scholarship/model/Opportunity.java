@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "opportunities")
+@Table(name = "opportunities", indexes = {
+        // Keyset pagination cho tìm kiếm public (xem OpportunityCursor)
+        @Index(name = "idx_opp_status_deadline_id", columnList = "moderation_status, application_deadline, id"),
+        @Index(name = "idx_opp_status_created_id", columnList = "moderation_status, created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
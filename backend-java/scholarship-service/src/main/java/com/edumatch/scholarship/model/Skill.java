@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import java.util.Set;
 
 @Entity
@@ -13,6 +14,8 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+// Reference (getReference) từ TagSkillDictionary được nạp gộp một query IN khi đọc name lần đầu
+@BatchSize(size = 100)
 public class Skill {
 
     @Id
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +14,9 @@ public interface ApplicationDocumentRepository extends JpaRepository<Application
     // Lấy tất cả tài liệu của một đơn ứng tuyển
     List<ApplicationDocument> findByApplicationId(Long applicationId);
 
+    // Lấy tài liệu của nhiều đơn trong 1 query (tránh N+1 khi dựng danh sách)
+    List<ApplicationDocument> findByApplicationIdIn(Collection<Long> applicationIds);
+
     @Transactional
     void deleteAllByApplicationIdIn(List<Long> applicationIds);
 }
\ No newline at end of file
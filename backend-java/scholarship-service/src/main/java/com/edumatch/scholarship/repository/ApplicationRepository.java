@@ -19,6 +19,10 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>
     // Lấy tất cả đơn nộp cho một cơ hội
     List<Application> findByOpportunityId(Long opportunityId);
 
+    // Đếm theo trạng thái đơn (dùng để đối soát bộ đếm thống kê)
+    @Query("SELECT a.status, COUNT(a) FROM Application a GROUP BY a.status")
+    List<Object[]> countGroupByStatus();
+
     // Search applications với filter và pagination (cho admin)
     @Query("""
         SELECT a FROM Application a
@@ -0,0 +1,173 @@
+package com.edumatch.scholarship.repository;
+
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
+import com.edumatch.scholarship.model.Opportunity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read model cho các trang danh sách cơ hội.
+ *
+ * Mỗi trang đúng 2 query (+1 COUNT nếu phân trang có offset):
+ * 1. Projection các cột vô hướng (chỉ lấy đoạn đầu của full_description), không hydrate entity.
+ * 2. Một query UNION ALL lấy tên tag + skill cho toàn bộ ID trong trang.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OpportunityListingRepository {
+
+    // Các thuộc tính được projection trực tiếp (tên alias = tên thuộc tính entity)
+    private static final List<String> SCALAR_COLUMNS = List.of(
+            "id", "title", "organizationId", "creatorUserId",
+            "applicationDeadline", "startDate", "endDate",
+            "minGpa", "scholarshipAmount", "studyMode", "level", "isPublic",
+            "contactEmail", "website", "location", "university", "department", "durationMonths",
+            "moderationStatus", "viewsCnt", "createdAt"
+    );
+
+    private static final String TAGS_AND_SKILLS_SQL =
+            "SELECT ott.opportunity_id, 'T', t.name FROM opportunity_to_tags ott " +
+            "JOIN tags t ON t.id = ott.tag_id WHERE ott.opportunity_id IN (:ids) " +
+            "UNION ALL " +
+            "SELECT ors.opportunity_id, 'S', s.name FROM opportunity_required_skills ors " +
+            "JOIN skills s ON s.id = ors.skill_id WHERE ors.opportunity_id IN (:ids)";
+
+    private final EntityManager entityManager;
+
+    public Page<OpportunitySummaryDto> findPage(Specification<Opportunity> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<OpportunitySummaryDto> all = findList(spec, pageable.getSort(), 0);
+            return PageableExecutionUtils.getPage(all, pageable, all::size);
+        }
+        List<OpportunitySummaryDto> content = select(spec, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    /**
+     * @param limit số dòng tối đa, <= 0 nghĩa là không giới hạn
+     */
+    public List<OpportunitySummaryDto> findList(Specification<Opportunity> spec, Sort sort, int limit) {
+        return select(spec, sort, 0, limit);
+    }
+
+    private List<OpportunitySummaryDto> select(Specification<Opportunity> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Opportunity> root = query.from(Opportunity.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String column : SCALAR_COLUMNS) {
+            selections.add(root.get(column).alias(column));
+        }
+        selections.add(cb.substring(root.get("fullDescription"), 1, OpportunitySummaryDto.DESCRIPTION_EXCERPT_LENGTH)
+                .alias("description"));
+        query.multiselect(selections);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (offset > 0) {
+            typedQuery.setFirstResult((int) offset);
+        }
+        if (limit > 0) {
+            typedQuery.setMaxResults(limit);
+        }
+
+        Map<Long, OpportunitySummaryDto.OpportunitySummaryDtoBuilder> builders = new LinkedHashMap<>();
+        for (Tuple row : typedQuery.getResultList()) {
+            builders.put(row.get("id", Long.class), toBuilder(row));
+        }
+        attachTagsAndSkills(builders);
+
+        return builders.values().stream()
+                .map(OpportunitySummaryDto.OpportunitySummaryDtoBuilder::build)
+                .toList();
+    }
+
+    private long count(Specification<Opportunity> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Opportunity> root = query.from(Opportunity.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static OpportunitySummaryDto.OpportunitySummaryDtoBuilder toBuilder(Tuple row) {
+        return OpportunitySummaryDto.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .description(row.get("description", String.class))
+                .organizationId(row.get("organizationId", Long.class))
+                .creatorUserId(row.get("creatorUserId", Long.class))
+                .applicationDeadline(row.get("applicationDeadline", LocalDate.class))
+                .startDate(row.get("startDate", LocalDate.class))
+                .endDate(row.get("endDate", LocalDate.class))
+                .minGpa(row.get("minGpa", BigDecimal.class))
+                .scholarshipAmount(row.get("scholarshipAmount", BigDecimal.class))
+                .studyMode(row.get("studyMode", String.class))
+                .level(row.get("level", String.class))
+                .isPublic(row.get("isPublic", Boolean.class))
+                .contactEmail(row.get("contactEmail", String.class))
+                .website(row.get("website", String.class))
+                .location(row.get("location", String.class))
+                .university(row.get("university", String.class))
+                .department(row.get("department", String.class))
+                .durationMonths(row.get("durationMonths", Integer.class))
+                .moderationStatus(row.get("moderationStatus", String.class))
+                .viewsCnt(row.get("viewsCnt", Integer.class))
+                .createdAt(row.get("createdAt", LocalDateTime.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void attachTagsAndSkills(Map<Long, OpportunitySummaryDto.OpportunitySummaryDtoBuilder> builders) {
+        if (builders.isEmpty()) {
+            return;
+        }
+        Map<Long, List<String>> tags = new HashMap<>();
+        Map<Long, List<String>> skills = new HashMap<>();
+        List<Object[]> rows = entityManager.createNativeQuery(TAGS_AND_SKILLS_SQL)
+                .setParameter("ids", builders.keySet())
+                .getResultList();
+        for (Object[] row : rows) {
+            Long oppId = ((Number) row[0]).longValue();
+            Map<Long, List<String>> target = "T".equals(String.valueOf(row[1])) ? tags : skills;
+            target.computeIfAbsent(oppId, k -> new ArrayList<>()).add((String) row[2]);
+        }
+        builders.forEach((id, builder) -> builder
+                .tags(tags.getOrDefault(id, List.of()))
+                .requiredSkills(skills.getOrDefault(id, List.of())));
+    }
+}
@@ -4,7 +4,10 @@ import com.edumatch.scholarship.model.Opportunity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
@@ -15,4 +18,26 @@ public interface OpportunityRepository extends JpaRepository<Opportunity, Long>,
      List<Opportunity> findByCreatorUserId(Long creatorUserId);
      List<Opportunity> findByOrganizationId(Long organizationId);
      Page<Opportunity> findByModerationStatus(String status, Pageable pageable);
+
+     // Chỉ lấy (id, title) cho nhiều cơ hội, không hydrate entity
+     @Query("SELECT o.id, o.title FROM Opportunity o WHERE o.id IN :ids")
+     List<Object[]> findTitlesByIdIn(@Param("ids") Collection<Long> ids);
+
+     // Đếm theo trạng thái kiểm duyệt (dùng để đối soát bộ đếm thống kê)
+     @Query("SELECT o.moderationStatus, COUNT(o) FROM Opportunity o GROUP BY o.moderationStatus")
+     List<Object[]> countGroupByModerationStatus();
+
+     // Duyệt ID theo từng lô (keyset theo id) khi nạp lại search index
+     @Query("SELECT o.id FROM Opportunity o WHERE o.moderationStatus = :status AND o.id > :afterId ORDER BY o.id")
+     List<Long> findIdsByModerationStatusAfter(@Param("status") String status,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+     // Hai query fetch riêng cho tags và skills (tránh cartesian product khi fetch 2 collection cùng lúc).
+     // Gọi lần lượt trong cùng một transaction, Hibernate sẽ gộp vào cùng entity.
+     @Query("SELECT DISTINCT o FROM Opportunity o LEFT JOIN FETCH o.tags WHERE o.id IN :ids")
+     List<Opportunity> findWithTagsByIdIn(@Param("ids") Collection<Long> ids);
+
+     @Query("SELECT DISTINCT o FROM Opportunity o LEFT JOIN FETCH o.requiredSkills WHERE o.id IN :ids")
+     List<Opportunity> findWithSkillsByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.edumatch.scholarship.repository;
+
+import com.edumatch.scholarship.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Lấy các sự kiện đến hạn theo thứ tự id và khóa lại (FOR UPDATE) để chỉ một instance relay gửi.
+     * Bỏ qua sự kiện nếu cùng aggregate còn sự kiện cũ hơn đang chờ retry, để không gửi vượt thứ tự.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.nextAttemptAt <= :now " +
+            "AND NOT EXISTS (SELECT 1 FROM OutboxEvent p WHERE p.aggregateKey = e.aggregateKey " +
+            "AND p.id < e.id AND p.nextAttemptAt > :now) " +
+            "ORDER BY e.id ASC")
+    List<OutboxEvent> lockDueEvents(@Param("now") Instant now, Pageable pageable);
+
+    Optional<OutboxEvent> findFirstByOrderByIdAsc();
+}
@@ -3,9 +3,14 @@ package com.edumatch.scholarship.repository;
 import com.edumatch.scholarship.model.Skill;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SkillRepository extends JpaRepository<Skill, Long> {
     Optional<Skill> findByName(String name);
+
+    // Lấy nhiều skill theo tên trong 1 query
+    List<Skill> findByNameIn(Collection<String> names);
 }
\ No newline at end of file
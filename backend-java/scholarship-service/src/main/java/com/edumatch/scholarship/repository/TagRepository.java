@@ -3,9 +3,14 @@ package com.edumatch.scholarship.repository;
 import com.edumatch.scholarship.model.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
     Optional<Tag> findByName(String name);
+
+    // Lấy nhiều tag theo tên trong 1 query
+    List<Tag> findByNameIn(Collection<String> names);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.edumatch.scholarship.repository;
+
+import com.edumatch.scholarship.model.UserIdentityVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserIdentityVersionRepository extends JpaRepository<UserIdentityVersion, Long> {
+
+    /**
+     * Ghi version mới cho user; chỉ tăng (event đến trễ/lặp lại không làm version lùi).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_identity_versions (user_id, version) VALUES (:userId, :version) " +
+            "ON DUPLICATE KEY UPDATE version = GREATEST(version, VALUES(version))",
+            nativeQuery = true)
+    int upsertMax(@Param("userId") Long userId, @Param("version") int version);
+}
@@ -0,0 +1,86 @@
+package com.edumatch.scholarship.repository.specification;
+
+import com.edumatch.scholarship.exception.BadRequestException;
+import com.edumatch.scholarship.model.Opportunity;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor (keyset) cho tìm kiếm public: mã hóa (applicationDeadline, id) hoặc (createdAt, id)
+ * thành chuỗi opaque. Seek predicate dùng được index (moderation_status, application_deadline, id)
+ * và (moderation_status, created_at, id) trên bảng opportunities.
+ */
+public final class OpportunityCursor {
+
+    public enum Order {
+        DEADLINE, // applicationDeadline ASC, id ASC
+        NEWEST    // createdAt DESC, id DESC
+    }
+
+    private final Order order;
+    private final String value;
+    private final Long id;
+
+    private OpportunityCursor(Order order, String value, Long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static OpportunityCursor after(Order order, LocalDate applicationDeadline, LocalDateTime createdAt, Long id) {
+        String value = order == Order.DEADLINE
+                ? String.valueOf(applicationDeadline)
+                : String.valueOf(createdAt);
+        return new OpportunityCursor(order, value, id);
+    }
+
+    public static OpportunityCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            OpportunityCursor decoded = new OpportunityCursor(Order.valueOf(parts[0]), parts[1], Long.valueOf(parts[2]));
+            decoded.seekPredicate(); // kiểm tra giá trị parse được
+            return decoded;
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("Cursor không hợp lệ.");
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public static Sort sortOf(Order order) {
+        return order == Order.DEADLINE
+                ? Sort.by(Sort.Order.asc("applicationDeadline"), Sort.Order.asc("id"))
+                : Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    }
+
+    /**
+     * (col > v) OR (col = v AND id > lastId) cho ASC, ngược lại cho DESC.
+     */
+    public Specification<Opportunity> seekPredicate() {
+        if (order == Order.DEADLINE) {
+            LocalDate deadline = LocalDate.parse(value);
+            return (root, query, cb) -> cb.or(
+                    cb.greaterThan(root.get("applicationDeadline"), deadline),
+                    cb.and(cb.equal(root.get("applicationDeadline"), deadline), cb.greaterThan(root.get("id"), id))
+            );
+        }
+        LocalDateTime createdAt = LocalDateTime.parse(value);
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))
+        );
+    }
+}
@@ -20,7 +20,7 @@ import java.io.IOException;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider tokenProvider;
+    private final JwtVerifier jwtVerifier;
 
     @Value("${app.jwt.header}")
     private String headerName;
@@ -37,13 +37,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             log.debug("JWT Filter - URI: {}, JWT present: {}", request.getRequestURI(), jwt != null);
 
-            // 2. Xác thực token
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                // 3. Lấy thông tin user (username, roles)
-                Authentication authentication = tokenProvider.getAuthentication(jwt);
+            // 2. Xác thực token + lấy thông tin user (username, roles) - một lần, có cache
+            Authentication authentication = StringUtils.hasText(jwt) ? jwtVerifier.authenticate(jwt) : null;
+            if (authentication != null) {
                 log.debug("JWT Filter - Authentication successful for user: {}", authentication.getName());
 
-                // 4. Lưu vào SecurityContext
+                // 3. Lưu vào SecurityContext
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } else {
                 log.debug("JWT Filter - Token validation failed or token missing");
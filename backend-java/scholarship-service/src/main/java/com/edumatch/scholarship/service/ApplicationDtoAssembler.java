@@ -0,0 +1,76 @@
+package com.edumatch.scholarship.service;
+
+import com.edumatch.scholarship.dto.ApplicationDto;
+import com.edumatch.scholarship.model.Application;
+import com.edumatch.scholarship.model.ApplicationDocument;
+import com.edumatch.scholarship.repository.ApplicationDocumentRepository;
+import com.edumatch.scholarship.repository.OpportunityRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Dựng ApplicationDto cho cả một danh sách/trang đơn ứng tuyển với số query cố định:
+ * 1 query IN (...) cho tài liệu và (tùy chọn) 1 query projection cho title của cơ hội.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationDtoAssembler {
+
+    private final ApplicationDocumentRepository applicationDocumentRepository;
+    private final OpportunityRepository opportunityRepository;
+
+    public List<ApplicationDto> toDtos(List<Application> applications, boolean withOpportunityTitle) {
+        if (applications.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. Gom tài liệu theo applicationId
+        Set<Long> appIds = applications.stream()
+                .map(Application::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<ApplicationDocument>> docsByApp = applicationDocumentRepository.findByApplicationIdIn(appIds)
+                .stream()
+                .collect(Collectors.groupingBy(ApplicationDocument::getApplicationId));
+
+        // 2. Gom title theo opportunityId (nếu cần)
+        Map<Long, String> titles = withOpportunityTitle ? loadTitles(applications) : Map.of();
+
+        // 3. Ráp DTO từ các map
+        return applications.stream()
+                .map(app -> {
+                    ApplicationDto dto = ApplicationDto.fromEntity(app, docsByApp.getOrDefault(app.getId(), List.of()));
+                    if (withOpportunityTitle && app.getOpportunityId() != null) {
+                        dto.setOpportunityTitle(titles.get(app.getOpportunityId()));
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public Page<ApplicationDto> toDtoPage(Page<Application> page, boolean withOpportunityTitle) {
+        return new PageImpl<>(toDtos(page.getContent(), withOpportunityTitle), page.getPageable(), page.getTotalElements());
+    }
+
+    private Map<Long, String> loadTitles(List<Application> applications) {
+        Set<Long> oppIds = applications.stream()
+                .map(Application::getOpportunityId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> titles = new HashMap<>();
+        if (!oppIds.isEmpty()) {
+            for (Object[] row : opportunityRepository.findTitlesByIdIn(oppIds)) {
+                titles.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return titles;
+    }
+}
@@ -14,13 +14,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import com.edumatch.scholarship.config.RabbitMQConfig;
 import com.edumatch.scholarship.exception.ResourceNotFoundException;
 import com.edumatch.scholarship.model.Opportunity;
 import com.edumatch.scholarship.repository.OpportunityRepository;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.edumatch.scholarship.service.outbox.OutboxPublisher;
+import com.edumatch.scholarship.service.stats.StatusCounterService;
 import org.springframework.security.access.AccessDeniedException;
-import java.util.stream.Collectors;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -38,7 +37,14 @@ public class ApplicationService {
     // Chúng ta cần ScholarshipService để dùng lại hàm getUserDetails
     private final ScholarshipService scholarshipService;
     private final OpportunityRepository opportunityRepository; //để check quyền sở hữu
-    private final RabbitTemplate rabbitTemplate; // để gửi email
+    private final OutboxPublisher outboxPublisher; // sự kiện email/notification qua outbox
+    private final StatusCounterService statusCounterService;
+    private final ApplicationDtoAssembler applicationDtoAssembler; // dựng DTO theo lô (tránh N+1)
+
+    // Khóa aggregate trong outbox: sự kiện của cùng một đơn được gửi đúng thứ tự
+    private static String applicationKey(Long applicationId) {
+        return "application:" + applicationId;
+    }
 
     /**
      * Chức năng: Applicant (Sinh viên) nộp đơn ứng tuyển
@@ -83,6 +89,7 @@ public class ApplicationService {
         // 3. Lưu Application vào DB để lấy ID
         Application savedApp = applicationRepository.save(app);
         log.info("Đã tạo đơn ứng tuyển mới với ID: {}", savedApp.getId());
+        statusCounterService.applicationStatusChanged(null, savedApp.getStatus());
 
         List<ApplicationDocument> savedDocs = new ArrayList<>();
 
@@ -133,14 +140,8 @@ public class ApplicationService {
         // 2. Lấy các đơn ứng tuyển
         List<Application> applications = applicationRepository.findByOpportunityId(opportunityId);
 
-        // 3. Chuyển đổi sang DTO (bao gồm cả tài liệu của từng đơn)
-        return applications.stream()
-                .map(app -> {
-                    // Lấy tài liệu của đơn này [cite: 344]
-                    List<ApplicationDocument> docs = applicationDocumentRepository.findByApplicationId(app.getId());
-                    return ApplicationDto.fromEntity(app, docs);
-                })
-                .collect(Collectors.toList());
+        // 3. Chuyển đổi sang DTO (tài liệu của cả danh sách lấy trong 1 query)
+        return applicationDtoAssembler.toDtos(applications, false);
     }
 
     /**
@@ -156,8 +157,10 @@ public class ApplicationService {
         checkProviderOwnership(app.getOpportunityId(), userDetails);
 
         // 3. Cập nhật trạng thái
+        String oldStatus = app.getStatus();
         app.setStatus(newStatus); // Ví dụ: "APPROVED", "REJECTED"
         Application savedApp = applicationRepository.save(app);
+        statusCounterService.applicationStatusChanged(oldStatus, newStatus);
         
         // 3.1 Lấy thông tin Opportunity (scholarship) để đưa vào notification
         Opportunity opportunity = opportunityRepository.findById(savedApp.getOpportunityId())
@@ -173,8 +176,8 @@ public class ApplicationService {
                 "body", "Trạng thái đơn ứng tuyển của bạn đã được cập nhật thành: " + newStatus
         );
 
-        rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "notification.send.email", emailEvent);
-        log.info("Đã gửi sự kiện 'notification.send.email' cho user ID: {}", savedApp.getApplicantUserId());
+        outboxPublisher.publish(applicationKey(savedApp.getId()), "notification.send.email", emailEvent);
+        log.info("Đã xếp sự kiện 'notification.send.email' vào outbox cho user ID: {}", savedApp.getApplicantUserId());
 
         // 5. GỬI REAL-TIME NOTIFICATION EVENT
         log.info("📨 [Application Status] Employer changed application {} status to: {}", applicationId, newStatus);
@@ -220,8 +223,8 @@ public class ApplicationService {
             notificationEvent.put("opportunityId", savedApp.getOpportunityId()); // Add for reference
         }
         
-        rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "notification.application.status", notificationEvent);
-        log.info("✅ [Application Status] Sent notification event to RabbitMQ for applicant userId: {}", savedApp.getApplicantUserId());
+        outboxPublisher.publish(applicationKey(savedApp.getId()), "notification.application.status", notificationEvent);
+        log.info("✅ [Application Status] Queued notification event (outbox) for applicant userId: {}", savedApp.getApplicantUserId());
         log.info("📤 [Application Status] Scholarship: '{}', Status: {}", opportunityTitle, newStatus);
         log.info("📤 [Application Status] Event published to routing key: notification.application.status");
 
@@ -242,13 +245,8 @@ public class ApplicationService {
         // 2. Lấy đơn (dùng hàm repo đã có)
         List<Application> applications = applicationRepository.findByApplicantUserId(applicantId);
 
-        // 3. Chuyển đổi sang DTO (gồm cả tài liệu)
-        return applications.stream()
-                .map(app -> {
-                    List<ApplicationDocument> docs = applicationDocumentRepository.findByApplicationId(app.getId());
-                    return ApplicationDto.fromEntity(app, docs);
-                })
-                .collect(Collectors.toList());
+        // 3. Chuyển đổi sang DTO (gồm cả tài liệu, lấy theo lô)
+        return applicationDtoAssembler.toDtos(applications, false);
     }
 
     /**
@@ -265,19 +263,8 @@ public class ApplicationService {
         org.springframework.data.domain.Page<Application> page = applicationRepository.searchApplications(
                 status, opportunityId, keyword, pageable);
 
-        // Chuyển đổi sang DTO và thêm opportunity title
-        return page.map(app -> {
-            List<ApplicationDocument> docs = applicationDocumentRepository.findByApplicationId(app.getId());
-            ApplicationDto dto = ApplicationDto.fromEntity(app, docs);
-            
-            // Lấy opportunity title nếu có
-            if (app.getOpportunityId() != null) {
-                opportunityRepository.findById(app.getOpportunityId())
-                    .ifPresent(opp -> dto.setOpportunityTitle(opp.getTitle()));
-            }
-            
-            return dto;
-        });
+        // Chuyển đổi sang DTO và thêm opportunity title (tài liệu + title lấy theo lô)
+        return applicationDtoAssembler.toDtoPage(page, true);
     }
 
     /**
@@ -310,8 +297,10 @@ public class ApplicationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy đơn ứng tuyển với ID: " + applicationId));
 
         // 2. Cập nhật trạng thái (Admin không cần check ownership)
+        String oldStatus = app.getStatus();
         app.setStatus(newStatus);
         Application savedApp = applicationRepository.save(app);
+        statusCounterService.applicationStatusChanged(oldStatus, newStatus);
         
         // 2.1 Lấy thông tin Opportunity (scholarship) để đưa vào notification
         Opportunity opportunity = opportunityRepository.findById(savedApp.getOpportunityId())
@@ -325,7 +314,7 @@ public class ApplicationService {
                 "body", "Trạng thái đơn ứng tuyển của bạn đã được cập nhật thành: " + newStatus
         );
 
-        rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "notification.send.email", emailEvent);
+        outboxPublisher.publish(applicationKey(savedApp.getId()), "notification.send.email", emailEvent);
         log.info("Admin đã cập nhật trạng thái đơn ứng tuyển ID: {} thành: {}", savedApp.getId(), newStatus);
 
         // 4. GỬI REAL-TIME NOTIFICATION EVENT
@@ -365,7 +354,7 @@ public class ApplicationService {
             notificationEvent.put("opportunityId", savedApp.getOpportunityId());
         }
         
-        rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "notification.application.status", notificationEvent);
+        outboxPublisher.publish(applicationKey(savedApp.getId()), "notification.application.status", notificationEvent);
         log.info("📨 [Admin] Sent notification event for application {} to userId: {}", savedApp.getId(), savedApp.getApplicantUserId());
         log.info("📤 [Admin] Scholarship: '{}', Status: {}", opportunityTitle, newStatus);
 
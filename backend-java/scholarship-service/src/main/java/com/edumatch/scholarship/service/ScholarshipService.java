@@ -1,19 +1,26 @@
 package com.edumatch.scholarship.service;
 
-import com.edumatch.scholarship.config.RabbitMQConfig;
 import com.edumatch.scholarship.dto.CreateOpportunityRequest;
 import com.edumatch.scholarship.dto.OpportunityDto;
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
 import com.edumatch.scholarship.dto.client.UserDetailDto;
 import com.edumatch.scholarship.exception.ResourceNotFoundException;
 import com.edumatch.scholarship.model.Opportunity;
 import com.edumatch.scholarship.model.Skill;
 import com.edumatch.scholarship.model.Tag;
+import com.edumatch.scholarship.repository.OpportunityListingRepository;
 import com.edumatch.scholarship.repository.OpportunityRepository;
-import com.edumatch.scholarship.repository.SkillRepository;
-import com.edumatch.scholarship.repository.TagRepository;
+import com.edumatch.scholarship.service.dictionary.TagSkillDictionary;
+import com.edumatch.scholarship.service.identity.AuthUserBatchClient;
+import com.edumatch.scholarship.service.identity.TokenIdentityResolver;
+import com.edumatch.scholarship.service.identity.UserIdentityCache;
+import com.edumatch.scholarship.service.matching.MatchScoreEnricher;
+import com.edumatch.scholarship.service.outbox.OutboxPublisher;
+import com.edumatch.scholarship.service.search.OpportunitySearchIndex;
+import com.edumatch.scholarship.service.stats.StatusCounterService;
+import com.edumatch.scholarship.service.views.ViewCountBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,10 +30,6 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import com.edumatch.scholarship.repository.ApplicationRepository;
 import com.edumatch.scholarship.repository.ApplicationDocumentRepository;
 import com.edumatch.scholarship.repository.BookmarkRepository;
@@ -35,16 +38,21 @@ import com.edumatch.scholarship.dto.client.ScoreRequest;
 import com.edumatch.scholarship.dto.client.ScoreResponse; 
 import com.edumatch.scholarship.dto.OpportunityDetailDto; 
 import org.springframework.data.domain.Page; 
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable; 
+import org.springframework.data.domain.Sort;
 import java.util.Map;
+import com.edumatch.scholarship.repository.specification.OpportunityCursor;
 import com.edumatch.scholarship.repository.specification.OpportunitySpecification;
+import com.edumatch.scholarship.dto.CursorPageDto;
 import org.springframework.data.jpa.domain.Specification;
 import jakarta.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.time.LocalDate;
 import java.util.stream.Collectors;
 
@@ -55,61 +63,78 @@ public class ScholarshipService {
 
     // (Injects đã có)
     private final OpportunityRepository opportunityRepository;
-    private final TagRepository tagRepository;
-    private final SkillRepository skillRepository;
+    private final OpportunityListingRepository opportunityListingRepository;
     private final ApplicationRepository applicationRepository;
     private final ApplicationDocumentRepository applicationDocumentRepository;
     private final BookmarkRepository bookmarkRepository;
     private final RestTemplate restTemplate;
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxPublisher outboxPublisher;
+    private final OpportunitySearchIndex opportunitySearchIndex;
+    private final StatusCounterService statusCounterService;
+    private final ViewCountBuffer viewCountBuffer;
+    private final UserIdentityCache userIdentityCache;
+    private final TokenIdentityResolver tokenIdentityResolver;
+    private final AuthUserBatchClient authUserBatchClient;
+    private final TagSkillDictionary tagSkillDictionary;
+    private final MatchScoreEnricher matchScoreEnricher;
 
     @Value("${app.services.matching-service.url}")
     private String matchingServiceUrl;
 
-    @Value("${app.services.auth-service.url}")
-    private String authServiceUrl;
+    private static final long AUTH_LOOKUP_TIMEOUT_SECONDS = 5;
+
+    // Khóa aggregate trong outbox: các sự kiện của cùng một cơ hội được gửi đúng thứ tự
+    private static String opportunityKey(Long opportunityId) {
+        return "opportunity:" + opportunityId;
+    }
 
     /**
      * Hàm helper CÔNG KHAI (public) gọi sang Auth-Service.
      * Chỉ kiểm tra ID, dùng cho BẤT KỲ user nào (Applicant, Provider).
      * ApplicationService sẽ gọi hàm này.
+     * (Đọc claim identity trong token trước; token cũ/không có claim mới qua UserIdentityCache -> Auth-Service)
      */
     public UserDetailDto getUserDetailsFromAuthService(String username, String token) {
-        String url = authServiceUrl + "/api/internal/user/" + username;
-        
-        log.info("E2E-Sync-2: Calling Auth-Service to get user details for: {}", username);
-        log.debug("Auth-Service URL: {}", url);
+        UserDetailDto fromToken = tokenIdentityResolver.resolve(username, token);
+        if (fromToken != null) {
+            return fromToken;
+        }
+        return userIdentityCache.get(username, () -> fetchUserDetailsFromAuthService(username, token));
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + token);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
+    private UserDetailDto fetchUserDetailsFromAuthService(String username, String token) {
+        log.info("E2E-Sync-2: Calling Auth-Service to get user details for: {}", username);
 
+        UserDetailDto user;
         try {
-            ResponseEntity<UserDetailDto> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    UserDetailDto.class
-            );
-            UserDetailDto user = response.getBody();
-
-            //Chỉ kiểm tra ID, không kiểm tra organizationId
-            if (user == null || user.getId() == null) {
-                throw new ResourceNotFoundException("Không thể lấy thông tin (ID) user từ Auth-Service.");
+            // Các lượt tra cứu đồng thời được gộp thành một lời gọi POST /api/internal/users/batch
+            user = authUserBatchClient.lookupByUsername(username, token).get(AUTH_LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Không thể kết nối tới Auth-Service.");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof HttpClientErrorException.Unauthorized) {
+                log.error("Token bị từ chối bởi Auth-Service: {}", ex.getCause().getMessage());
+                throw new IllegalStateException("Token không hợp lệ khi gọi Auth-Service.");
             }
-            
-            log.info("E2E-Sync-2: Successfully received user details from Auth-Service, userId={}", user.getId());
-            return user;
-
-        } catch (HttpClientErrorException.NotFound ex) {
-            throw new ResourceNotFoundException("Không tìm thấy User với username: " + username + " bên Auth-Service.");
-        } catch (HttpClientErrorException.Unauthorized ex) {
-            log.error("Token bị từ chối bởi Auth-Service: {}", ex.getMessage());
-            throw new IllegalStateException("Token không hợp lệ khi gọi Auth-Service.");
+            log.error("Lỗi khi gọi Auth-Service: {}", ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+            throw new IllegalStateException("Không thể kết nối tới Auth-Service.");
         } catch (Exception ex) {
             log.error("Lỗi khi gọi Auth-Service: {}", ex.getMessage());
             throw new IllegalStateException("Không thể kết nối tới Auth-Service.");
         }
+
+        // User không tồn tại thì vắng mặt trong kết quả batch
+        if (user == null) {
+            throw new ResourceNotFoundException("Không tìm thấy User với username: " + username + " bên Auth-Service.");
+        }
+        //Chỉ kiểm tra ID, không kiểm tra organizationId
+        if (user.getId() == null) {
+            throw new ResourceNotFoundException("Không thể lấy thông tin (ID) user từ Auth-Service.");
+        }
+
+        log.info("E2E-Sync-2: Successfully received user details from Auth-Service, userId={}", user.getId());
+        return user;
     }
 
     /**
@@ -139,18 +164,8 @@ public class ScholarshipService {
         UserDetailDto user = getProviderDetails(username, token);
 
         log.info("Xử lý Tags và Skills...");
-        Set<Tag> tags = request.getTags() != null && !request.getTags().isEmpty()
-                ? request.getTags().stream()
-                    .map(name -> tagRepository.findByName(name)
-                            .orElseGet(() -> tagRepository.save(new Tag(null, name, null))))
-                    .collect(Collectors.toSet())
-                : new HashSet<>();
-        Set<Skill> skills = request.getRequiredSkills() != null && !request.getRequiredSkills().isEmpty()
-                ? request.getRequiredSkills().stream()
-                    .map(name -> skillRepository.findByName(name)
-                            .orElseGet(() -> skillRepository.save(new Skill(null, name, null))))
-                    .collect(Collectors.toSet())
-                : new HashSet<>();
+        Set<Tag> tags = tagSkillDictionary.resolveTags(request.getTags());
+        Set<Skill> skills = tagSkillDictionary.resolveSkills(request.getRequiredSkills());
 
         Opportunity opportunity = Opportunity.builder()
                 .title(request.getTitle())
@@ -174,16 +189,14 @@ public class ScholarshipService {
                 .build();
         Opportunity savedOpp = opportunityRepository.save(opportunity);
         log.info("Đã tạo Opportunity mới với ID: {}", savedOpp.getId());
+        opportunitySearchIndex.onOpportunitySaved(savedOpp);
+        statusCounterService.opportunityStatusChanged(null, savedOpp.getModerationStatus());
 
         OpportunityDto dtoToSend = OpportunityDto.fromEntity(savedOpp);
         
-        // Publish event to RabbitMQ (non-critical, continue even if fails)
-        try {
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "scholarship.created", dtoToSend);
-            log.info("Đã gửi sự kiện 'scholarship.created' cho ID: {}", savedOpp.getId());
-        } catch (Exception e) {
-            log.warn("Failed to publish scholarship.created event for ID {}: {}", savedOpp.getId(), e.getMessage());
-        }
+        // Ghi sự kiện vào outbox (cùng transaction), relay sẽ gửi lên RabbitMQ
+        outboxPublisher.publish(opportunityKey(savedOpp.getId()), "scholarship.created", dtoToSend);
+        log.info("Đã xếp sự kiện 'scholarship.created' vào outbox cho ID: {}", savedOpp.getId());
 
         return dtoToSend;
     }
@@ -191,14 +204,12 @@ public class ScholarshipService {
     /**
      * Lấy cơ hội do tôi tạo (GET /my)
      */
-    public List<OpportunityDto> getMyOpportunities(UserDetails userDetails) {
+    public List<OpportunitySummaryDto> getMyOpportunities(UserDetails userDetails) {
         UserDetailDto user = getProviderDetails(userDetails.getUsername(),
                 (String) SecurityContextHolder.getContext().getAuthentication().getCredentials());
 
-        List<Opportunity> opps = opportunityRepository.findByCreatorUserId(user.getId());
-        return opps.stream()
-                .map(OpportunityDto::fromEntity)
-                .collect(Collectors.toList());
+        Specification<Opportunity> byCreator = (root, query, cb) -> cb.equal(root.get("creatorUserId"), user.getId());
+        return opportunityListingRepository.findList(byCreator, Sort.unsorted(), 0);
     }
 
     /**
@@ -229,33 +240,16 @@ public class ScholarshipService {
         opp.setWebsite(request.getWebsite());
         opp.setMinGpa(request.getMinGpa());
 
-        Set<Tag> tags = request.getTags() != null && !request.getTags().isEmpty()
-                ? request.getTags().stream()
-                    .map(name -> tagRepository.findByName(name)
-                            .orElseGet(() -> tagRepository.save(new Tag(null, name, null))))
-                    .collect(Collectors.toSet())
-                : new HashSet<>();
-        opp.setTags(tags);
-
-        Set<Skill> skills = request.getRequiredSkills() != null && !request.getRequiredSkills().isEmpty()
-                ? request.getRequiredSkills().stream()
-                    .map(name -> skillRepository.findByName(name)
-                            .orElseGet(() -> skillRepository.save(new Skill(null, name, null))))
-                    .collect(Collectors.toSet())
-                : new HashSet<>();
-        opp.setRequiredSkills(skills);
+        opp.setTags(tagSkillDictionary.resolveTags(request.getTags()));
+        opp.setRequiredSkills(tagSkillDictionary.resolveSkills(request.getRequiredSkills()));
 
         Opportunity updatedOpp = opportunityRepository.save(opp);
+        opportunitySearchIndex.onOpportunitySaved(updatedOpp);
 
         OpportunityDto dto = OpportunityDto.fromEntity(updatedOpp);
         
-        // Publish event to RabbitMQ (non-critical, continue even if fails)
-        try {
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "scholarship.updated", dto);
-            log.info("Đã gửi sự kiện 'scholarship.updated' cho ID: {}", updatedOpp.getId());
-        } catch (Exception e) {
-            log.warn("Failed to publish scholarship.updated event for ID {}: {}", updatedOpp.getId(), e.getMessage());
-        }
+        outboxPublisher.publish(opportunityKey(updatedOpp.getId()), "scholarship.updated", dto);
+        log.info("Đã xếp sự kiện 'scholarship.updated' vào outbox cho ID: {}", updatedOpp.getId());
 
         return dto;
     }
@@ -283,40 +277,126 @@ public class ScholarshipService {
                     .collect(Collectors.toList());
             applicationDocumentRepository.deleteAllByApplicationIdIn(appIds);
             applicationRepository.deleteAll(applications);
+            applications.stream()
+                    .collect(Collectors.groupingBy(Application::getStatus, Collectors.counting()))
+                    .forEach((status, count) -> statusCounterService.applicationStatusChanged(status, null, count));
         }
         opp.getTags().clear();
         opp.getRequiredSkills().clear();
         opportunityRepository.delete(opp);
+        opportunitySearchIndex.onOpportunityDeleted(id);
+        statusCounterService.opportunityStatusChanged(opp.getModerationStatus(), null);
 
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                "scholarship.deleted",
-                Map.of("opportunityId", id)
-        );
-        log.info("Đã gửi sự kiện 'scholarship.deleted' cho ID: {}", id);
+        outboxPublisher.publish(opportunityKey(id), "scholarship.deleted", Map.of("opportunityId", id));
+        log.info("Đã xếp sự kiện 'scholarship.deleted' vào outbox cho ID: {}", id);
     }
 
     /**
      * Tìm kiếm/Lọc cơ hội (phân trang)
-     * (Đã cập nhật để dùng Specification)
+     * Ưu tiên inverted index trong bộ nhớ; quay về Specification khi index chưa sẵn sàng
+     * hoặc sort theo thuộc tính index không hỗ trợ.
      */
-    public Page<OpportunityDto> searchOpportunities(
+    public Page<OpportunitySummaryDto> searchOpportunities(
             // THÊM CÁC THAM SỐ NÀY VÀO
+            String keyword, BigDecimal gpa, String studyMode,
+            String level,
+            Boolean isPublic,
+            LocalDate currentDate, Pageable pageable,
+            UserDetails userDetails
+    ) {
+        Page<OpportunitySummaryDto> result;
+        if (opportunitySearchIndex.canServe(pageable)) {
+            result = opportunitySearchIndex.search(keyword, gpa, studyMode, level, isPublic, currentDate, pageable);
+        } else {
+            result = searchOpportunitiesBySpecification(keyword, gpa, studyMode, level, isPublic, currentDate, pageable);
+        }
+        return withMatchScores(result, userDetails);
+    }
+
+    private Page<OpportunitySummaryDto> searchOpportunitiesBySpecification(
             String keyword, BigDecimal gpa, String studyMode,
             String level,
             Boolean isPublic,
             LocalDate currentDate, Pageable pageable
     ) {
+
         // 1. Tạo Specification từ các tham số
         Specification<Opportunity> spec = OpportunitySpecification.filterBy(
                 keyword, gpa, studyMode, level, isPublic, currentDate
         );
 
-        // 2. Thực thi Specification (Đúng rồi)
-        Page<Opportunity> page = opportunityRepository.findAll(spec, pageable);
+        // 2. Thực thi Specification qua read model (projection + 1 query tag/skill cho cả trang)
+        return opportunityListingRepository.findPage(spec, pageable);
+    }
+
+    /**
+     * Tìm kiếm/Lọc cơ hội theo cursor (keyset pagination, không COUNT)
+     * Trang sâu tốn chi phí như trang đầu vì chỉ seek trên index thay vì OFFSET.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<OpportunitySummaryDto> searchOpportunitiesByCursor(
+            String keyword, BigDecimal gpa, String studyMode,
+            String level,
+            Boolean isPublic,
+            LocalDate currentDate,
+            String cursor,
+            OpportunityCursor.Order order,
+            int size,
+            UserDetails userDetails
+    ) {
+        Specification<Opportunity> spec = OpportunitySpecification.filterBy(
+                keyword, gpa, studyMode, level, isPublic, currentDate
+        );
+        if (cursor != null && !cursor.isEmpty()) {
+            OpportunityCursor decoded = OpportunityCursor.decode(cursor);
+            order = decoded.getOrder(); // Cursor quyết định thứ tự để các trang nhất quán
+            spec = spec.and(decoded.seekPredicate());
+        }
+        final OpportunityCursor.Order sortOrder = order;
+
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không
+        List<OpportunitySummaryDto> rows = opportunityListingRepository.findList(
+                spec, OpportunityCursor.sortOf(sortOrder), size + 1);
 
-        // 3. Chuyển đổi và trả về
-        return page.map(OpportunityDto::fromEntity);
+        boolean hasNext = rows.size() > size;
+        List<OpportunitySummaryDto> content = hasNext ? rows.subList(0, size) : rows;
+        OpportunitySummaryDto last = hasNext ? content.get(content.size() - 1) : null;
+        String nextCursor = last != null
+                ? OpportunityCursor.after(sortOrder, last.getApplicationDeadline(), last.getCreatedAt(), last.getId()).encode()
+                : null;
+
+        content = matchScoreEnricher.enrich(content, resolveApplicantId(userDetails));
+        return new CursorPageDto<>(content, content.size(), nextCursor, hasNext);
+    }
+
+    /**
+     * Gắn matchScore cho cả trang kết quả khi user đã đăng nhập (1 lời gọi batch, có ngân sách thời gian).
+     */
+    private Page<OpportunitySummaryDto> withMatchScores(Page<OpportunitySummaryDto> page, UserDetails userDetails) {
+        Long applicantId = resolveApplicantId(userDetails);
+        if (applicantId == null || page.isEmpty()) {
+            return page;
+        }
+        List<OpportunitySummaryDto> scored = matchScoreEnricher.enrich(page.getContent(), applicantId);
+        return new PageImpl<>(scored, page.getPageable(), page.getTotalElements());
+    }
+
+    /**
+     * Lấy userId của người đang đăng nhập (qua UserIdentityCache); lỗi thì trả null
+     * để tìm kiếm vẫn trả kết quả, chỉ không có điểm.
+     */
+    private Long resolveApplicantId(UserDetails userDetails) {
+        if (userDetails == null) {
+            return null;
+        }
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String token = (String) authentication.getCredentials();
+            return getUserDetailsFromAuthService(userDetails.getUsername(), token).getId();
+        } catch (Exception e) {
+            log.warn("Không thể lấy userId cho {} để chấm điểm: {}", userDetails.getUsername(), e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -381,7 +461,7 @@ public class ScholarshipService {
     /**
      * Lấy TẤT CẢ cơ hội (bao gồm cả PENDING) cho Admin với filter
      */
-    public Page<OpportunityDto> getAllOpportunitiesForAdmin(String status, String keyword, Pageable pageable) {
+    public Page<OpportunitySummaryDto> getAllOpportunitiesForAdmin(String status, String keyword, Pageable pageable) {
         Specification<Opportunity> spec = (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             
@@ -404,8 +484,7 @@ public class ScholarshipService {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
         
-        Page<Opportunity> page = opportunityRepository.findAll(spec, pageable);
-        return page.map(OpportunityDto::fromEntity);
+        return opportunityListingRepository.findPage(spec, pageable);
     }
 
     /**
@@ -418,8 +497,11 @@ public class ScholarshipService {
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy cơ hội với ID: " + opportunityId));
 
         // 2. Cập nhật trạng thái
+        String oldStatus = opp.getModerationStatus();
         opp.setModerationStatus(newStatus); // Ví dụ: "APPROVED" hoặc "REJECTED"
         Opportunity savedOpp = opportunityRepository.save(opp);
+        opportunitySearchIndex.onOpportunitySaved(savedOpp);
+        statusCounterService.opportunityStatusChanged(oldStatus, newStatus);
 
         // 3. (QUAN TRỌNG) Gửi sự kiện 'updated'
         // Khi Admin duyệt bài (APPROVED), chúng ta phải báo cho MatchingService
@@ -427,8 +509,8 @@ public class ScholarshipService {
         if ("APPROVED".equals(newStatus)) {
             // Gửi event cho Matching Service
             OpportunityDto dto = OpportunityDto.fromEntity(savedOpp);
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "scholarship.updated", dto);
-            log.info("Đã gửi sự kiện 'scholarship.updated' (Admin Approved) cho ID: {}", savedOpp.getId());
+            outboxPublisher.publish(opportunityKey(savedOpp.getId()), "scholarship.updated", dto);
+            log.info("Đã xếp sự kiện 'scholarship.updated' (Admin Approved) vào outbox cho ID: {}", savedOpp.getId());
             
             // Gửi notification cho người tạo học bổng
             java.util.Map<String, Object> notificationEvent = new java.util.HashMap<>();
@@ -440,8 +522,8 @@ public class ScholarshipService {
             notificationEvent.put("referenceId", savedOpp.getId().toString());
             notificationEvent.put("opportunityId", savedOpp.getId().toString());
             
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "scholarship.updated", notificationEvent);
-            log.info("Đã gửi notification event cho creator ID: {}", savedOpp.getCreatorUserId());
+            outboxPublisher.publish(opportunityKey(savedOpp.getId()), "scholarship.updated", notificationEvent);
+            log.info("Đã xếp notification event vào outbox cho creator ID: {}", savedOpp.getCreatorUserId());
         } else if ("REJECTED".equals(newStatus)) {
             // Gửi notification cho người tạo khi bị từ chối
             java.util.Map<String, Object> notificationEvent = new java.util.HashMap<>();
@@ -453,8 +535,8 @@ public class ScholarshipService {
             notificationEvent.put("referenceId", savedOpp.getId().toString());
             notificationEvent.put("opportunityId", savedOpp.getId().toString());
             
-            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, "scholarship.updated", notificationEvent);
-            log.info("Đã gửi rejection notification cho creator ID: {}", savedOpp.getCreatorUserId());
+            outboxPublisher.publish(opportunityKey(savedOpp.getId()), "scholarship.updated", notificationEvent);
+            log.info("Đã xếp rejection notification vào outbox cho creator ID: {}", savedOpp.getCreatorUserId());
         }
 
         return OpportunityDto.fromEntity(savedOpp);
@@ -493,72 +575,51 @@ public class ScholarshipService {
                     .collect(Collectors.toList());
             applicationDocumentRepository.deleteAllByApplicationIdIn(appIds);
             applicationRepository.deleteAll(applications);
+            applications.stream()
+                    .collect(Collectors.groupingBy(Application::getStatus, Collectors.counting()))
+                    .forEach((status, count) -> statusCounterService.applicationStatusChanged(status, null, count));
         }
         opp.getTags().clear();
         opp.getRequiredSkills().clear();
         opportunityRepository.delete(opp);
+        opportunitySearchIndex.onOpportunityDeleted(id);
+        statusCounterService.opportunityStatusChanged(opp.getModerationStatus(), null);
 
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.EXCHANGE_NAME,
-                "scholarship.deleted",
-                Map.of("opportunityId", id)
-        );
+        outboxPublisher.publish(opportunityKey(id), "scholarship.deleted", Map.of("opportunityId", id));
         log.info("Admin đã xóa cơ hội với ID: {}", id);
     }
 
     /**
      * Lấy thống kê tổng quan cho admin dashboard
+     * (Đọc từ bộ đếm trong bộ nhớ, không query DB)
      */
-    @Transactional(readOnly = true)
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new java.util.HashMap<>();
-        
+
         // Thống kê scholarships (opportunities)
-        long totalScholarships = opportunityRepository.count();
-        long activeScholarships = opportunityRepository.findAll().stream()
-                .filter(opp -> "APPROVED".equals(opp.getModerationStatus()))
-                .count();
-        long pendingScholarships = opportunityRepository.findAll().stream()
-                .filter(opp -> "PENDING".equals(opp.getModerationStatus()))
-                .count();
-        
+        stats.put("totalScholarships", statusCounterService.totalOpportunities());
+        stats.put("activeScholarships", statusCounterService.opportunityCount("APPROVED"));
+        stats.put("pendingScholarships", statusCounterService.opportunityCount("PENDING"));
+
         // Thống kê applications
-        long totalApplications = applicationRepository.count();
-        long pendingApplications = applicationRepository.findAll().stream()
-                .filter(app -> "PENDING".equals(app.getStatus()) || 
-                              "SUBMITTED".equals(app.getStatus()) || 
-                              "UNDER_REVIEW".equals(app.getStatus()))
-                .count();
-        long acceptedApplications = applicationRepository.findAll().stream()
-                .filter(app -> "ACCEPTED".equals(app.getStatus()))
-                .count();
-        long rejectedApplications = applicationRepository.findAll().stream()
-                .filter(app -> "REJECTED".equals(app.getStatus()))
-                .count();
-        
-        stats.put("totalScholarships", totalScholarships);
-        stats.put("activeScholarships", activeScholarships);
-        stats.put("pendingScholarships", pendingScholarships);
-        stats.put("totalApplications", totalApplications);
-        stats.put("pendingApplications", pendingApplications);
-        stats.put("acceptedApplications", acceptedApplications);
-        stats.put("rejectedApplications", rejectedApplications);
-        
+        stats.put("totalApplications", statusCounterService.totalApplications());
+        stats.put("pendingApplications", statusCounterService.applicationCount("PENDING")
+                + statusCounterService.applicationCount("SUBMITTED")
+                + statusCounterService.applicationCount("UNDER_REVIEW"));
+        stats.put("acceptedApplications", statusCounterService.applicationCount("ACCEPTED"));
+        stats.put("rejectedApplications", statusCounterService.applicationCount("REJECTED"));
+
         return stats;
     }
 
     /**
      * Increment view count for a scholarship
+     * (Ghi vào bộ đệm trong bộ nhớ, ViewCountBuffer flush xuống DB theo lô)
      */
-    @Transactional
     public void incrementViewCount(Long opportunityId) {
-        Opportunity opportunity = opportunityRepository.findById(opportunityId)
-                .orElseThrow(() -> new ResourceNotFoundException("Opportunity not found with id: " + opportunityId));
-        
-        Integer currentViews = opportunity.getViewsCnt();
-        opportunity.setViewsCnt(currentViews != null ? currentViews + 1 : 1);
-        opportunityRepository.save(opportunity);
-        
-        log.debug("Incremented view count for opportunity {} to {}", opportunityId, opportunity.getViewsCnt());
+        if (!opportunityRepository.existsById(opportunityId)) {
+            throw new ResourceNotFoundException("Opportunity not found with id: " + opportunityId);
+        }
+        viewCountBuffer.increment(opportunityId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package com.edumatch.scholarship.service.dictionary;
+
+import com.edumatch.scholarship.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Từ điển tên -> id trong bộ nhớ cho một bảng kiểu (id, name) như tags/skills.
+ *
+ * Tên được chuẩn hóa (trim, gộp khoảng trắng); key tra cứu là bản lowercase của tên chuẩn hóa.
+ * resolve():
+ * - tên đã có trong từ điển -> reference JPA theo id (getReference), không tốn statement nào;
+ * - tên mới -> 1 batch INSERT IGNORE + 1 SELECT ... WHERE name IN (...) chỉ cho các tên mới đó.
+ * Tên dài hơn cột name bị từ chối trước khi ghi (INSERT IGNORE sẽ âm thầm cắt bớt).
+ */
+@Slf4j
+class NameDictionary<E> {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String table;
+    private final JdbcTemplate jdbcTemplate;
+    private final Function<Collection<String>, List<E>> findByNameIn;
+    private final Function<E, Long> idOf;
+    private final Function<E, String> nameOf;
+    private final Function<Long, E> referenceOf;
+    private final Function<String, E> saveOne;
+    private final int maxLength;
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    NameDictionary(String table,
+                   JdbcTemplate jdbcTemplate,
+                   Function<Collection<String>, List<E>> findByNameIn,
+                   Function<E, Long> idOf,
+                   Function<E, String> nameOf,
+                   Function<Long, E> referenceOf,
+                   Function<String, E> saveOne,
+                   int maxLength) {
+        this.table = table;
+        this.jdbcTemplate = jdbcTemplate;
+        this.findByNameIn = findByNameIn;
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.referenceOf = referenceOf;
+        this.saveOne = saveOne;
+        this.maxLength = maxLength;
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : WHITESPACE.matcher(name.trim()).replaceAll(" ");
+    }
+
+    private static String key(String normalizedName) {
+        return normalizedName.toLowerCase(Locale.ROOT);
+    }
+
+    void warmUp() {
+        jdbcTemplate.query("SELECT id, name FROM " + table, rs -> {
+            ids.put(key(normalize(rs.getString("name"))), rs.getLong("id"));
+        });
+        log.info("Đã nạp {} bản ghi từ bảng {} vào từ điển", ids.size(), table);
+    }
+
+    /**
+     * Trả về các entity (đã được JPA quản lý) tương ứng với danh sách tên, tạo mới nếu chưa có.
+     * Phải gọi bên trong transaction.
+     */
+    List<E> resolve(Collection<String> rawNames, Map<String, Long> learned) {
+        // 1. Chuẩn hóa + bỏ trùng (theo key không phân biệt hoa thường), kiểm tra độ dài trước khi ghi gì
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String raw : rawNames) {
+            String name = normalize(raw);
+            if (name.length() > maxLength) {
+                throw new BadRequestException(
+                        "Tên '" + name.substring(0, 20) + "...' trong " + table + " vượt quá " + maxLength + " ký tự.");
+            }
+            if (!name.isEmpty()) {
+                byKey.putIfAbsent(key(name), name);
+            }
+        }
+
+        // 2. Tên đã biết -> reference theo id (không query); còn lại là tên mới
+        List<E> found = new ArrayList<>();
+        Map<String, String> missing = new LinkedHashMap<>();
+        byKey.forEach((k, name) -> {
+            Long id = ids.get(k);
+            if (id != null) {
+                found.add(referenceOf.apply(id));
+            } else {
+                missing.put(k, name);
+            }
+        });
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        // 3. Tên mới -> insert một batch (bỏ qua nếu đã tồn tại do instance khác tạo)
+        List<Object[]> rows = new ArrayList<>();
+        missing.values().forEach(name -> rows.add(new Object[]{name}));
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO " + table + " (name) VALUES (?)", rows);
+
+        // 4. Một query IN (...) chỉ cho các tên mới
+        for (E entity : findByNameIn.apply(missing.values())) {
+            String k = key(normalize(nameOf.apply(entity)));
+            missing.remove(k);
+            learned.put(k, idOf.apply(entity));
+            found.add(entity);
+        }
+
+        // 5. Dự phòng: từ điển lệch với DB (hiếm) -> lưu từng cái như cách cũ
+        for (String name : missing.values()) {
+            log.warn("Tên '{}' không tìm thấy sau khi insert vào {}, lưu riêng lẻ", name, table);
+            E saved = saveOne.apply(name);
+            found.add(saved);
+            learned.put(key(name), idOf.apply(saved));
+        }
+        return found;
+    }
+
+    void remember(Map<String, Long> learned) {
+        ids.putAll(learned);
+    }
+
+    int size() {
+        return ids.size();
+    }
+}
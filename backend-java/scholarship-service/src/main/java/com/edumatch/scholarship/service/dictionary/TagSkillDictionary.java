@@ -0,0 +1,74 @@
+package com.edumatch.scholarship.service.dictionary;
+
+import com.edumatch.scholarship.model.Skill;
+import com.edumatch.scholarship.model.Tag;
+import com.edumatch.scholarship.repository.SkillRepository;
+import com.edumatch.scholarship.repository.TagRepository;
+import com.edumatch.scholarship.service.support.TransactionHooks;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Từ điển Tag/Skill dùng chung cho createOpportunity/updateOpportunity.
+ * Thay cho findByName + save cho từng tag/skill (tối đa 2 statement cho mỗi loại, 0 khi mọi tên đã biết).
+ */
+@Component
+@Slf4j
+public class TagSkillDictionary {
+
+    // Bằng length của cột name trong Tag/Skill
+    static final int NAME_MAX_LENGTH = 100;
+
+    private final NameDictionary<Tag> tags;
+    private final NameDictionary<Skill> skills;
+
+    public TagSkillDictionary(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                              TagRepository tagRepository, SkillRepository skillRepository) {
+        this.tags = new NameDictionary<>("tags", jdbcTemplate, tagRepository::findByNameIn,
+                Tag::getId, Tag::getName, id -> entityManager.getReference(Tag.class, id),
+                name -> tagRepository.save(new Tag(null, name, null)), NAME_MAX_LENGTH);
+        this.skills = new NameDictionary<>("skills", jdbcTemplate, skillRepository::findByNameIn,
+                Skill::getId, Skill::getName, id -> entityManager.getReference(Skill.class, id),
+                name -> skillRepository.save(new Skill(null, name, null)), NAME_MAX_LENGTH);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            tags.warmUp();
+            skills.warmUp();
+        } catch (Exception e) {
+            // Từ điển rỗng vẫn hoạt động đúng, chỉ tốn thêm INSERT IGNORE
+            log.warn("Không thể nạp từ điển Tag/Skill: {}", e.getMessage());
+        }
+    }
+
+    public Set<Tag> resolveTags(Collection<String> names) {
+        return resolve(tags, names);
+    }
+
+    public Set<Skill> resolveSkills(Collection<String> names) {
+        return resolve(skills, names);
+    }
+
+    private static <E> Set<E> resolve(NameDictionary<E> dictionary, Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return new HashSet<>();
+        }
+        Map<String, Long> learned = new HashMap<>();
+        Set<E> result = new HashSet<>(dictionary.resolve(names, learned));
+        // Chỉ ghi nhận id mới khi transaction commit (tránh nhớ id của bản ghi bị rollback)
+        TransactionHooks.afterCommit(() -> dictionary.remember(learned));
+        return result;
+    }
+}
@@ -0,0 +1,202 @@
+package com.edumatch.scholarship.service.identity;
+
+import com.edumatch.scholarship.dto.client.UserDetailDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client cho API tra cứu user hàng loạt của Auth-Service (POST /api/internal/users/batch).
+ *
+ * - findByIds(): tra cứu một danh sách ID bằng một lời gọi (chia lô 1000).
+ * - lookupById() / lookupByUsername(): các lời gọi đơn lẻ đồng thời trong cùng một cửa sổ ngắn (batch-window-ms)
+ *   được gộp thành một lời gọi batch. User không tồn tại -> future hoàn thành với null.
+ * - Xác thực: dùng service token (app.internal.service-token, header X-Service-Token) nếu được cấu hình;
+ *   nếu không, lô được chia theo token của từng người gọi để JWT của user này không bao giờ
+ *   được dùng cho lượt tra cứu của user khác (token hết hạn chỉ làm lỗi lượt của chính user đó).
+ *
+ * Chat-Service có bản sao y hệt của lớp này (chỉ khác package): các service build độc lập, khi sửa cần sửa cả hai.
+ */
+@Component
+@Slf4j
+public class AuthUserBatchClient {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final String SERVICE_TOKEN_HEADER = "X-Service-Token";
+
+    private record Pending(Long id, String username, String token, CompletableFuture<UserDetailDto> future) {
+    }
+
+    private final RestTemplate restTemplate;
+    private final String batchUrl;
+    private final String serviceToken;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+
+    public AuthUserBatchClient(RestTemplate restTemplate,
+                               @Value("${app.services.auth-service.url:http://auth-service:8081}") String authServiceUrl,
+                               @Value("${app.auth-client.batch-window-ms:5}") long windowMillis,
+                               @Value("${app.auth-client.max-batch-size:200}") int maxBatchSize,
+                               @Value("${app.auth-client.threads:4}") int threads,
+                               @Value("${app.internal.service-token:}") String serviceToken) {
+        this.restTemplate = restTemplate;
+        this.batchUrl = authServiceUrl + "/api/internal/users/batch";
+        this.serviceToken = StringUtils.hasText(serviceToken) ? serviceToken : null;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = Math.min(maxBatchSize, MAX_BATCH_SIZE);
+        this.executor = Executors.newScheduledThreadPool(threads, r -> {
+            Thread t = new Thread(r, "auth-user-batch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public CompletableFuture<UserDetailDto> lookupById(Long userId, String token) {
+        return enqueue(new Pending(userId, null, token, new CompletableFuture<>()));
+    }
+
+    public CompletableFuture<UserDetailDto> lookupByUsername(String username, String token) {
+        return enqueue(new Pending(null, username, token, new CompletableFuture<>()));
+    }
+
+    /**
+     * Tra cứu trực tiếp (không chờ cửa sổ gộp) một danh sách ID; ID không tồn tại vắng mặt trong map.
+     */
+    public Map<Long, UserDetailDto> findByIds(Collection<Long> userIds, String token) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<Long, UserDetailDto> result = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += MAX_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + MAX_BATCH_SIZE, ids.size()));
+            for (UserDetailDto user : call(chunk, List.of(), token)) {
+                result.put(user.getId(), user);
+            }
+        }
+        return result;
+    }
+
+    private CompletableFuture<UserDetailDto> enqueue(Pending request) {
+        List<Pending> full = null;
+        synchronized (lock) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                // Request đầu tiên của lô mở cửa sổ gộp
+                executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            List<Pending> batch = full;
+            executor.execute(() -> send(batch));
+        }
+        return request.future();
+    }
+
+    private void flush() {
+        List<Pending> batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<Pending> takePending() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        if (serviceToken != null) {
+            sendGroup(batch, null);
+            return;
+        }
+        // Không có service token: mỗi nhóm chỉ dùng token của chính những người gọi trong nhóm
+        Map<String, List<Pending>> byToken = new LinkedHashMap<>();
+        for (Pending request : batch) {
+            byToken.computeIfAbsent(request.token(), t -> new ArrayList<>()).add(request);
+        }
+        byToken.forEach((token, group) -> sendGroup(group, token));
+    }
+
+    private void sendGroup(List<Pending> batch, String token) {
+        Set<Long> ids = new LinkedHashSet<>();
+        Set<String> usernames = new LinkedHashSet<>();
+        for (Pending request : batch) {
+            if (request.id() != null) {
+                ids.add(request.id());
+            } else {
+                usernames.add(request.username());
+            }
+        }
+        try {
+            List<UserDetailDto> users = call(ids, usernames, token);
+            Map<Long, UserDetailDto> byId = new HashMap<>();
+            Map<String, UserDetailDto> byUsername = new HashMap<>();
+            for (UserDetailDto user : users) {
+                byId.put(user.getId(), user);
+                byUsername.put(user.getUsername(), user);
+            }
+            for (Pending request : batch) {
+                request.future().complete(request.id() != null
+                        ? byId.get(request.id()) : byUsername.get(request.username()));
+            }
+            log.debug("AuthUserBatch: Gộp {} lượt tra cứu thành 1 lời gọi ({} user)", batch.size(), users.size());
+        } catch (Exception ex) {
+            log.error("Lỗi khi gọi Auth-Service (batch {} user): {}", batch.size(), ex.getMessage());
+            batch.forEach(request -> request.future().completeExceptionally(ex));
+        }
+    }
+
+    private List<UserDetailDto> call(Collection<Long> ids, Collection<String> usernames, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serviceToken != null) {
+            headers.set(SERVICE_TOKEN_HEADER, serviceToken);
+        } else {
+            headers.set("Authorization", "Bearer " + token);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        Map<String, Object> body = Map.of("ids", ids, "usernames", usernames);
+
+        ResponseEntity<UserDetailDto[]> response = restTemplate.exchange(
+                batchUrl, HttpMethod.POST, new HttpEntity<>(body, headers), UserDetailDto[].class);
+        UserDetailDto[] users = response.getBody();
+        return users != null ? List.of(users) : List.of();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        synchronized (lock) {
+            takePending().forEach(request ->
+                    request.future().completeExceptionally(new IllegalStateException("AuthUserBatchClient đã dừng")));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.edumatch.scholarship.service.identity;
+
+import com.edumatch.scholarship.repository.UserIdentityVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version identity mới nhất của từng user (userId -> User.identityVersion bên Auth-Service).
+ *
+ * Lưu bền vững trong bảng user_identity_versions (ghi bởi listener của queue durable dùng chung),
+ * nên sau khi restart hoặc khi một instance lỡ event vẫn biết token nào mang claim cũ.
+ * Bản trong bộ nhớ được nạp khi khởi động, cập nhật ngay qua event broadcast và nạp lại định kỳ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdentityVersionStore {
+
+    private final UserIdentityVersionRepository repository;
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${app.identity-version.reload-interval-ms:60000}",
+            fixedDelayString = "${app.identity-version.reload-interval-ms:60000}")
+    public void reload() {
+        try {
+            repository.findAll().forEach(v -> remember(v.getUserId(), v.getVersion()));
+        } catch (Exception e) {
+            log.warn("Không thể nạp user_identity_versions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claim trong token (version tokenVersion) còn đúng với identity hiện tại của user không.
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0);
+    }
+
+    public void remember(Long userId, int version) {
+        versions.merge(userId, version, Math::max);
+    }
+
+    @Transactional
+    public void persist(Long userId, int version) {
+        repository.upsertMax(userId, version);
+        remember(userId, version);
+    }
+}
@@ -0,0 +1,59 @@
+package com.edumatch.scholarship.service.identity;
+
+import com.edumatch.scholarship.dto.client.UserDetailDto;
+import com.edumatch.scholarship.security.JwtVerifier;
+import com.edumatch.scholarship.security.TokenIdentity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Đọc identity (id, organizationId) trực tiếp từ claim của token - không cần gọi Auth-Service.
+ *
+ * Claim được tin trong suốt thời hạn của token. Trả về null (để gọi Auth-Service như cũ) khi:
+ * - token không có claim identity (token cấp trước khi có claim, hoặc version không hỗ trợ);
+ * - identity của user đã đổi sau khi cấp token: claim uiv nhỏ hơn version nhận qua event user.identity.changed
+ *   (IdentityVersionStore, lưu bền vững nên không mất khi restart).
+ *   Client lấy claim mới bằng cách refresh token (/api/auth/refresh cấp token từ dữ liệu DB hiện tại).
+ */
+@Component
+@Slf4j
+public class TokenIdentityResolver {
+
+    private final JwtVerifier jwtVerifier;
+    private final IdentityVersionStore identityVersionStore;
+
+    private final Counter fromToken;
+    private final Counter fallback;
+
+    public TokenIdentityResolver(JwtVerifier jwtVerifier,
+                                 IdentityVersionStore identityVersionStore,
+                                 MeterRegistry meterRegistry) {
+        this.jwtVerifier = jwtVerifier;
+        this.identityVersionStore = identityVersionStore;
+        this.fromToken = Counter.builder("identity.resolve").tag("source", "token").register(meterRegistry);
+        this.fallback = Counter.builder("identity.resolve").tag("source", "remote").register(meterRegistry);
+    }
+
+    /**
+     * Identity từ claim của token, hoặc null nếu phải hỏi Auth-Service.
+     */
+    public UserDetailDto resolve(String username, String token) {
+        Authentication authentication = token != null ? jwtVerifier.authenticate(token) : null;
+        if (authentication == null
+                || !(authentication.getDetails() instanceof TokenIdentity identity)
+                || !authentication.getName().equals(username)
+                || !identityVersionStore.isCurrent(identity.userId(), identity.identityVersion())) {
+            fallback.increment();
+            return null;
+        }
+        fromToken.increment();
+        UserDetailDto user = new UserDetailDto();
+        user.setId(identity.userId());
+        user.setUsername(username);
+        user.setOrganizationId(identity.organizationId());
+        return user;
+    }
+}
@@ -0,0 +1,127 @@
+package com.edumatch.scholarship.service.identity;
+
+import com.edumatch.scholarship.dto.client.UserDetailDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache identity (username -> id, organizationId) cho các lời gọi Auth-Service.
+ *
+ * - Giới hạn kích thước (LRU) và có TTL.
+ * - Single-flight: nhiều request đồng thời cho cùng username chỉ gây ra 1 lời gọi remote.
+ * - Bị xóa khi nhận event user.identity.changed (xem UserIdentityEventListener).
+ */
+@Component
+@Slf4j
+public class UserIdentityCache {
+
+    private record Entry(UserDetailDto user, long expiresAt) {
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<UserDetailDto>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserIdentityCache(@Value("${app.identity-cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${app.identity-cache.max-size:10000}") int maxSize,
+                             MeterRegistry meterRegistry) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = Counter.builder("identity.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("identity.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("identity.cache.size", this, UserIdentityCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Lấy từ cache, nếu không có thì gọi loader (chỉ một luồng gọi cho mỗi username).
+     */
+    public UserDetailDto get(String username, Supplier<UserDetailDto> loader) {
+        UserDetailDto cached = lookup(username);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<UserDetailDto> mine = new CompletableFuture<>();
+        CompletableFuture<UserDetailDto> existing = inFlight.putIfAbsent(username, mine);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            UserDetailDto user = loader.get();
+            put(username, user);
+            mine.complete(user);
+            return user;
+        } catch (RuntimeException ex) {
+            // Lỗi không được cache; các request đang chờ nhận cùng lỗi
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(username, mine);
+        }
+    }
+
+    private static UserDetailDto join(CompletableFuture<UserDetailDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private synchronized UserDetailDto lookup(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(username);
+            return null;
+        }
+        return entry.user();
+    }
+
+    private synchronized void put(String username, UserDetailDto user) {
+        entries.put(username, new Entry(user, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void invalidate(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    public synchronized void invalidateUserId(Long userId) {
+        if (userId != null) {
+            entries.values().removeIf(entry -> userId.equals(entry.user().getId()));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,57 @@
+package com.edumatch.scholarship.service.identity;
+
+import com.edumatch.scholarship.config.RabbitMQConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Nhận event user.identity.changed từ Auth-Service: xóa entry tương ứng trong UserIdentityCache
+ * và ghi nhận version identity mới (IdentityVersionStore) để claim trong token cấp trước đó không còn được tin.
+ * Mỗi instance có queue riêng (anonymous) để event được broadcast tới mọi replica; ngoài ra queue durable
+ * dùng chung lưu version identity vào DB (onIdentityVersion) để không mất khi restart.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserIdentityEventListener {
+
+    private final UserIdentityCache userIdentityCache;
+    private final IdentityVersionStore identityVersionStore;
+
+    @RabbitListener(queues = "#{" + RabbitMQConfig.USER_IDENTITY_QUEUE_BEAN + ".name}")
+    public void onUserIdentityChanged(Map<String, Object> event) {
+        Object username = event.get("username");
+        Object userId = event.get("userId");
+        log.debug("Nhận user.identity.changed: username={}, userId={}", username, userId);
+
+        if (username != null) {
+            userIdentityCache.invalidate(username.toString());
+        }
+        if (userId != null) {
+            Long id = Long.valueOf(userId.toString());
+            userIdentityCache.invalidateUserId(id);
+            Integer version = identityVersion(event);
+            if (version != null) {
+                identityVersionStore.remember(id, version);
+            }
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.USER_IDENTITY_VERSION_QUEUE)
+    public void onIdentityVersion(Map<String, Object> event) {
+        Object userId = event.get("userId");
+        Integer version = identityVersion(event);
+        if (userId != null && version != null) {
+            identityVersionStore.persist(Long.valueOf(userId.toString()), version);
+        }
+    }
+
+    private static Integer identityVersion(Map<String, Object> event) {
+        Object version = event.get("identityVersion");
+        return version != null ? Integer.valueOf(version.toString()) : null;
+    }
+}
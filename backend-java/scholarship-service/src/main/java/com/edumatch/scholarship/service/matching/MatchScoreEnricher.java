@@ -0,0 +1,179 @@
+package com.edumatch.scholarship.service.matching;
+
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
+import com.edumatch.scholarship.dto.client.BatchScoreRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gắn điểm phù hợp (matchScore) vào danh sách cơ hội của một trang tìm kiếm.
+ *
+ * - Chỉ 1 lời gọi /api/v1/matching/batch-scores cho các ID chưa có trong cache.
+ * - Cache (userId, opportunityId) -> score có TTL.
+ * - Có ngân sách thời gian cứng: quá hạn thì trả kết quả không có điểm; lời gọi vẫn chạy nền
+ *   và ghi vào cache cho lần tìm kiếm sau.
+ */
+@Component
+@Slf4j
+public class MatchScoreEnricher {
+
+    private record Key(Long userId, Long opportunityId) {
+    }
+
+    private record Entry(Float score, long expiresAt) {
+    }
+
+    private final String batchScoreUrl;
+    private final long budgetMillis;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final RestTemplate matchingClient;
+    private final ThreadPoolExecutor executor;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter budgetExceeded;
+
+    public MatchScoreEnricher(@Value("${app.services.matching-service.url}") String matchingServiceUrl,
+                              @Value("${app.matching.batch-score.budget-ms:150}") long budgetMillis,
+                              @Value("${app.matching.batch-score.cache-ttl-seconds:600}") long ttlSeconds,
+                              @Value("${app.matching.batch-score.cache-max-size:100000}") int maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.batchScoreUrl = matchingServiceUrl + "/api/v1/matching/batch-scores";
+        this.budgetMillis = budgetMillis;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+
+        // RestTemplate riêng có timeout để luồng nền không bị treo khi Matching-Service chậm
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(1000);
+        factory.setReadTimeout(3000);
+        this.matchingClient = new RestTemplate(factory);
+
+        // Pool nhỏ, hàng đợi có giới hạn; quá tải thì bỏ qua việc chấm điểm
+        this.executor = new ThreadPoolExecutor(2, 8, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(100), new ThreadPoolExecutor.AbortPolicy());
+
+        this.cacheHits = Counter.builder("matching.score.cache").tag("result", "hit").register(meterRegistry);
+        this.cacheMisses = Counter.builder("matching.score.cache").tag("result", "miss").register(meterRegistry);
+        this.budgetExceeded = Counter.builder("matching.score.budget.exceeded").register(meterRegistry);
+    }
+
+    /**
+     * Trả về danh sách DTO mới (bản sao) có matchScore; DTO gốc không bị sửa
+     * vì có thể đang được chia sẻ (ví dụ trong search index).
+     */
+    public List<OpportunitySummaryDto> enrich(List<OpportunitySummaryDto> opportunities, Long userId) {
+        if (userId == null || opportunities.isEmpty()) {
+            return opportunities;
+        }
+
+        long now = System.currentTimeMillis();
+        Map<Long, Float> scores = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (OpportunitySummaryDto opp : opportunities) {
+            Entry entry = cache.get(new Key(userId, opp.getId()));
+            if (entry != null && entry.expiresAt() > now) {
+                scores.put(opp.getId(), entry.score());
+            } else {
+                missing.add(opp.getId().toString());
+            }
+        }
+        cacheHits.increment(scores.size());
+        cacheMisses.increment(missing.size());
+
+        if (!missing.isEmpty()) {
+            scores.putAll(fetchWithinBudget(userId, missing));
+        }
+
+        return opportunities.stream()
+                .map(opp -> scores.containsKey(opp.getId())
+                        ? opp.toBuilder().matchScore(scores.get(opp.getId())).build()
+                        : opp)
+                .toList();
+    }
+
+    private Map<Long, Float> fetchWithinBudget(Long userId, List<String> opportunityIds) {
+        CompletableFuture<Map<Long, Float>> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> fetchAndCache(userId, opportunityIds), executor);
+        } catch (Exception e) {
+            log.warn("Bỏ qua chấm điểm batch (executor quá tải): {}", e.getMessage());
+            return Map.of();
+        }
+
+        try {
+            return future.get(budgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            budgetExceeded.increment();
+            log.debug("Batch score vượt ngân sách {} ms cho user {}, trả kết quả không có điểm", budgetMillis, userId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Lỗi khi gọi MatchingService (batch-scores): {}", e.getMessage());
+        }
+        return Map.of();
+    }
+
+    private Map<Long, Float> fetchAndCache(Long userId, List<String> opportunityIds) {
+        Map<String, Number> response = matchingClient.exchange(
+                batchScoreUrl,
+                HttpMethod.POST,
+                new HttpEntity<>(new BatchScoreRequest(userId.toString(), opportunityIds)),
+                new ParameterizedTypeReference<Map<String, Number>>() {}
+        ).getBody();
+
+        Map<Long, Float> scores = new HashMap<>();
+        if (response == null) {
+            return scores;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        response.forEach((oppId, score) -> {
+            if (score != null) {
+                Long id = Long.valueOf(oppId);
+                scores.put(id, score.floatValue());
+                cache.put(new Key(userId, id), new Entry(score.floatValue(), expiresAt));
+            }
+        });
+        if (cache.size() > maxEntries) {
+            evictExpired();
+        }
+        return scores;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (cache.size() > maxEntries) {
+            // Vẫn quá giới hạn: xóa hết, cache sẽ tự nạp lại
+            cache.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,82 @@
+package com.edumatch.scholarship.service.outbox;
+
+import com.edumatch.scholarship.model.OutboxEvent;
+import com.edumatch.scholarship.repository.OutboxEventRepository;
+import com.edumatch.scholarship.service.support.TransactionHooks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Thay cho rabbitTemplate.convertAndSend trong các method @Transactional:
+ * chỉ ghi sự kiện vào bảng outbox (cùng transaction), OutboxRelay sẽ gửi lên RabbitMQ sau khi commit.
+ * Nếu transaction rollback thì sự kiện cũng biến mất.
+ */
+@Component
+public class OutboxPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final MessageConverter messageConverter;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay outboxRelay;
+    private final Counter enqueued;
+
+    public OutboxPublisher(OutboxEventRepository outboxEventRepository,
+                           MessageConverter messageConverter,
+                           ObjectMapper objectMapper,
+                           OutboxRelay outboxRelay,
+                           MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.messageConverter = messageConverter;
+        this.objectMapper = objectMapper;
+        this.outboxRelay = outboxRelay;
+        this.enqueued = Counter.builder("outbox.events.enqueued").register(meterRegistry);
+    }
+
+    /**
+     * @param aggregateKey khóa giữ thứ tự, ví dụ "opportunity:12"
+     * @param routingKey   routing key trên events_exchange
+     * @param event        object sẽ được serialize như convertAndSend
+     */
+    public void publish(String aggregateKey, String routingKey, Object event) {
+        // Serialize ngay bằng converter của RabbitTemplate để body/header (__TypeId__...) giống hệt trước
+        Message message = messageConverter.toMessage(event, new MessageProperties());
+        MessageProperties props = message.getMessageProperties();
+
+        Instant now = Instant.now();
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .aggregateKey(aggregateKey)
+                .routingKey(routingKey)
+                .payload(new String(message.getBody(), StandardCharsets.UTF_8))
+                .headers(writeHeaders(props))
+                .contentType(props.getContentType())
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .attempts(0)
+                .build();
+        outboxEventRepository.save(outboxEvent);
+        enqueued.increment();
+
+        // Đánh thức relay ngay sau commit thay vì chờ tới lượt poll kế tiếp
+        TransactionHooks.afterCommit(outboxRelay::signal);
+    }
+
+    private String writeHeaders(MessageProperties props) {
+        if (props.getHeaders().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(props.getHeaders());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể serialize header của sự kiện outbox", e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.edumatch.scholarship.service.outbox;
+
+import com.edumatch.scholarship.config.RabbitMQConfig;
+import com.edumatch.scholarship.model.OutboxEvent;
+import com.edumatch.scholarship.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi các sự kiện trong bảng outbox lên RabbitMQ.
+ *
+ * - Mỗi lượt lấy tối đa batch-size sự kiện đến hạn (khóa FOR UPDATE nên chỉ một instance gửi),
+ *   publish cả batch trên một channel rồi chờ publisher confirm một lần.
+ * - Confirm OK: xóa các dòng đã gửi. Lỗi: tăng attempts và hẹn lại với backoff lũy thừa (có jitter);
+ *   sự kiện sau cùng aggregate bị giữ lại cho tới khi sự kiện trước gửi được.
+ * - Giao hàng at-least-once: consumer có thể nhận trùng (messageId = "outbox-{id}").
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+    private final long confirmTimeoutMillis;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    // Tất cả lượt gửi chạy trên một thread; signal() gộp các yêu cầu đánh thức liên tiếp
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-relay");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final Counter published;
+    private final Counter failures;
+    private final Timer batchTimer;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       RabbitTemplate rabbitTemplate,
+                       PlatformTransactionManager transactionManager,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batch-size:100}") int batchSize,
+                       @Value("${app.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMillis,
+                       @Value("${app.outbox.retry.base-backoff-ms:1000}") long baseBackoffMillis,
+                       @Value("${app.outbox.retry.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        this.published = Counter.builder("outbox.events.published").register(meterRegistry);
+        this.failures = Counter.builder("outbox.publish.failures").register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.batch.publish").register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagMillis, v -> v.get() / 1000.0)
+                .description("Tuổi của sự kiện cũ nhất chưa gửi trong outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Yêu cầu relay chạy một lượt (gọi sau commit hoặc từ lịch poll).
+     */
+    public void signal() {
+        if (queued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                queued.set(false);
+                drain();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        signal();
+    }
+
+    private void drain() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == batchSize);
+            updateLag();
+        } catch (Exception e) {
+            log.warn("Outbox relay lỗi: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        Integer sent = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEvent> events = outboxEventRepository.lockDueEvents(now, PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                batchTimer.record(() -> rabbitTemplate.invoke(ops -> {
+                    for (OutboxEvent event : events) {
+                        ops.send(RabbitMQConfig.EXCHANGE_NAME, event.getRoutingKey(), toMessage(event));
+                    }
+                    ops.waitForConfirmsOrDie(confirmTimeoutMillis);
+                    return null;
+                }));
+            } catch (Exception e) {
+                failures.increment(events.size());
+                for (OutboxEvent event : events) {
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setNextAttemptAt(now.plus(backoff(event.getAttempts())));
+                }
+                log.warn("Không thể gửi {} sự kiện outbox (từ ID {}), sẽ thử lại: {}",
+                        events.size(), events.get(0).getId(), e.getMessage());
+                return 0;
+            }
+            outboxEventRepository.deleteAllInBatch(events);
+            published.increment(events.size());
+            log.debug("Đã gửi {} sự kiện outbox", events.size());
+            return events.size();
+        });
+        return sent != null ? sent : 0;
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(event.getContentType());
+        props.setContentEncoding(StandardCharsets.UTF_8.name());
+        props.setMessageId("outbox-" + event.getId());
+        // Thời điểm tạo sự kiện: consumer dùng để đo độ trễ hàng đợi
+        props.setTimestamp(Date.from(event.getCreatedAt()));
+        if (event.getHeaders() != null) {
+            try {
+                Map<String, Object> headers = objectMapper.readValue(event.getHeaders(), new TypeReference<>() {});
+                headers.forEach(props::setHeader);
+            } catch (Exception e) {
+                log.warn("Header của sự kiện outbox {} không hợp lệ: {}", event.getId(), e.getMessage());
+            }
+        }
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), props);
+    }
+
+    private Duration backoff(int attempts) {
+        long exp = baseBackoffMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(exp, maxBackoffMillis);
+        long jitter = ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+        return Duration.ofMillis(capped + jitter);
+    }
+
+    private void updateLag() {
+        lagMillis.set(outboxEventRepository.findFirstByOrderByIdAsc()
+                .map(e -> Math.max(0, Duration.between(e.getCreatedAt(), Instant.now()).toMillis()))
+                .orElse(0L));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
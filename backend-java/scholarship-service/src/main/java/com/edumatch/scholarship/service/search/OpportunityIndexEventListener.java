@@ -0,0 +1,36 @@
+package com.edumatch.scholarship.service.search;
+
+import com.edumatch.scholarship.config.RabbitMQConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Nhận event scholarship.created/updated/deleted (gửi qua outbox, tức là sau commit) để search index
+ * của mọi instance hội tụ, không chỉ instance đã xử lý request.
+ * Mỗi instance có queue riêng (anonymous); event do chính instance này gửi chỉ làm đọc lại một lần, vô hại.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpportunityIndexEventListener {
+
+    private final OpportunitySearchIndex opportunitySearchIndex;
+
+    @RabbitListener(queues = "#{" + RabbitMQConfig.OPPORTUNITY_INDEX_QUEUE_BEAN + ".name}")
+    public void onOpportunityChanged(Map<String, Object> event) {
+        // scholarship.created/updated (OpportunityDto) có "id"; notification và scholarship.deleted có "opportunityId"
+        Object id = event.containsKey("opportunityId") ? event.get("opportunityId") : event.get("id");
+        if (id == null) {
+            return;
+        }
+        try {
+            opportunitySearchIndex.refresh(Long.valueOf(id.toString()));
+        } catch (NumberFormatException e) {
+            log.warn("Bỏ qua event cơ hội có ID không hợp lệ: {}", id);
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package com.edumatch.scholarship.service.search;
+
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
+import com.edumatch.scholarship.model.Opportunity;
+import com.edumatch.scholarship.repository.OpportunityRepository;
+import com.edumatch.scholarship.service.support.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Inverted index trong bộ nhớ cho các cơ hội đã APPROVED.
+ * Thay cho LIKE '%kw%' trên cột TEXT của OpportunitySpecification ở đường tìm kiếm public.
+ *
+ * - Token được bỏ dấu tiếng Việt (xem {@link TextNormalizer}), mỗi từ khóa khớp theo tiền tố.
+ * - Từ khóa trong title có trọng số cao hơn description, kết quả xếp theo tổng điểm.
+ * - studyMode/level có posting list riêng; gpa, deadline, isPublic lọc trên document.
+ * - Index được cập nhật sau khi transaction commit (create/update/moderate/delete trong ScholarshipService);
+ *   thay đổi từ instance khác đến qua event scholarship.* (OpportunityIndexEventListener).
+ * - Dựng lại định kỳ từ DB; thay đổi commit trong lúc đang nạp được ghi lại và áp lại sau khi swap.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpportunitySearchIndex {
+
+    private static final String APPROVED = "APPROVED";
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int WARMUP_BATCH_SIZE = 500;
+
+    // Các thuộc tính được phép sort trong bộ nhớ; sort khác sẽ quay về query DB
+    private static final Map<String, Function<IndexedOpportunity, Comparable>> SORTABLE = Map.of(
+            "id", doc -> doc.id,
+            "title", doc -> doc.dto.getTitle(),
+            "applicationDeadline", doc -> doc.applicationDeadline,
+            "createdAt", doc -> doc.createdAt,
+            "viewsCnt", doc -> doc.dto.getViewsCnt(),
+            "scholarshipAmount", doc -> doc.dto.getScholarshipAmount(),
+            "minGpa", doc -> doc.minGpa
+    );
+
+    private final OpportunityRepository opportunityRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedOpportunity> documents = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Integer>> termPostings = new TreeMap<>();
+    private final Map<String, Set<Long>> studyModePostings = new HashMap<>();
+    private final Map<String, Set<Long>> levelPostings = new HashMap<>();
+
+    private volatile boolean ready = false;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    // Khác null khi đang rebuild: các thay đổi commit trong lúc nạp, được áp lại sau khi swap (giữ write lock)
+    private List<Runnable> pendingChanges;
+
+    /**
+     * Nạp toàn bộ cơ hội APPROVED khi service khởi động xong.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            log.info("Search index bị tắt (app.search.index.enabled=false), dùng query DB.");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Dựng lại index định kỳ từ DB: cập nhật viewsCnt (không đi qua hook) và sửa mọi lệch
+     * do event bị mất. Trong lúc nạp, index cũ vẫn phục vụ tìm kiếm.
+     */
+    @Scheduled(initialDelayString = "${app.search.index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.search.index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<IndexedOpportunity> loaded;
+            try {
+                loaded = loadAll();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                documents.clear();
+                termPostings.clear();
+                studyModePostings.clear();
+                levelPostings.clear();
+                loaded.forEach(this::addDocument);
+                // Thay đổi commit sau khi lô tương ứng đã được đọc sẽ không có trong loaded: áp lại theo thứ tự
+                replayed = pendingChanges.size();
+                pendingChanges.forEach(Runnable::run);
+                pendingChanges = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Đã nạp {} cơ hội vào search index ({} thay đổi áp lại) trong {} ms",
+                    loaded.size(), replayed, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Không thể dựng lại search index: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private List<IndexedOpportunity> loadAll() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        List<IndexedOpportunity> loaded = new ArrayList<>();
+        Long afterId = 0L;
+        while (true) {
+            final Long cursor = afterId;
+            List<IndexedOpportunity> batch = tx.execute(status -> loadBatch(cursor));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            loaded.addAll(batch);
+            afterId = batch.get(batch.size() - 1).id;
+        }
+        return loaded;
+    }
+
+    private List<IndexedOpportunity> loadBatch(Long afterId) {
+        List<Long> ids = opportunityRepository.findIdsByModerationStatusAfter(
+                APPROVED, afterId, PageRequest.of(0, WARMUP_BATCH_SIZE));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return loadByIds(ids);
+    }
+
+    private List<IndexedOpportunity> loadByIds(List<Long> ids) {
+        opportunityRepository.findWithTagsByIdIn(ids);
+        List<Opportunity> opps = new ArrayList<>(opportunityRepository.findWithSkillsByIdIn(ids));
+        opps.sort(Comparator.comparing(Opportunity::getId));
+        return opps.stream().map(IndexedOpportunity::of).toList();
+    }
+
+    /**
+     * Index đã sẵn sàng và có thể phục vụ sort được yêu cầu hay không.
+     */
+    public boolean canServe(Pageable pageable) {
+        if (!enabled || !ready) {
+            return false;
+        }
+        return pageable.getSort().stream().allMatch(order -> SORTABLE.containsKey(order.getProperty()));
+    }
+
+    /**
+     * Gọi từ ScholarshipService sau khi save (trong transaction).
+     * Snapshot được dựng ngay (collection LAZY còn truy cập được), áp vào index sau khi commit.
+     */
+    public void onOpportunitySaved(Opportunity opp) {
+        if (!enabled) {
+            return;
+        }
+        if (APPROVED.equals(opp.getModerationStatus())) {
+            IndexedOpportunity doc = IndexedOpportunity.of(opp);
+            TransactionHooks.afterCommit(() -> upsert(doc));
+        } else {
+            Long id = opp.getId();
+            TransactionHooks.afterCommit(() -> remove(id));
+        }
+    }
+
+    public void onOpportunityDeleted(Long opportunityId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> remove(opportunityId));
+    }
+
+    /**
+     * Đọc lại một cơ hội từ DB (khi instance khác thay đổi nó, xem OpportunityIndexEventListener).
+     */
+    public void refresh(Long opportunityId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        List<IndexedOpportunity> found = tx.execute(status -> opportunityRepository.findById(opportunityId)
+                .filter(opp -> APPROVED.equals(opp.getModerationStatus()))
+                .map(opp -> loadByIds(List.of(opportunityId)))
+                .orElse(List.of()));
+        if (found == null || found.isEmpty()) {
+            remove(opportunityId);
+        } else {
+            upsert(found.get(0));
+        }
+    }
+
+    private void upsert(IndexedOpportunity doc) {
+        apply(() -> {
+            removeDocument(doc.id);
+            addDocument(doc);
+        });
+    }
+
+    private void remove(Long id) {
+        apply(() -> removeDocument(id));
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Các hàm dưới đây chỉ được gọi khi đang giữ write lock ---
+
+    private void addDocument(IndexedOpportunity doc) {
+        documents.put(doc.id, doc);
+        doc.termWeights.forEach((term, weight) ->
+                termPostings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.id, weight));
+        if (doc.studyMode != null) {
+            studyModePostings.computeIfAbsent(doc.studyMode, k -> new HashSet<>()).add(doc.id);
+        }
+        if (doc.level != null) {
+            levelPostings.computeIfAbsent(doc.level, k -> new HashSet<>()).add(doc.id);
+        }
+    }
+
+    private void removeDocument(Long id) {
+        IndexedOpportunity old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.termWeights.keySet()) {
+            Map<Long, Integer> posting = termPostings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    termPostings.remove(term);
+                }
+            }
+        }
+        removeFrom(studyModePostings, old.studyMode, id);
+        removeFrom(levelPostings, old.level, id);
+    }
+
+    private static void removeFrom(Map<String, Set<Long>> postings, String key, Long id) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Tìm kiếm với cùng ngữ nghĩa lọc như OpportunitySpecification.filterBy.
+     */
+    public Page<OpportunitySummaryDto> search(String keyword, BigDecimal gpa, String studyMode, String level,
+                                       Boolean isPublic, LocalDate currentDate, Pageable pageable) {
+        final LocalDate dateToFilter = (currentDate == null) ? LocalDate.now() : currentDate;
+        final boolean publicOnly = isPublic == null || isPublic;
+        List<String> queryTerms = TextNormalizer.tokenize(keyword);
+        if (queryTerms.isEmpty() && keyword != null && !keyword.isBlank()) {
+            // Từ khóa chỉ có ký tự không phải chữ/số (ví dụ "!!!"): không khớp gì, thay vì trả về mọi cơ hội
+            return Page.empty(pageable);
+        }
+
+        lock.readLock().lock();
+        try {
+            // 1. Keyword: giao các posting list (mỗi từ khóa khớp theo tiền tố), cộng dồn điểm
+            Map<Long, Integer> scores = queryTerms.isEmpty() ? null : matchTerms(queryTerms);
+            if (scores != null && scores.isEmpty()) {
+                return Page.empty(pageable);
+            }
+
+            // 2. studyMode / level: giao với posting list tương ứng
+            List<Set<Long>> fieldFilters = new ArrayList<>();
+            if (studyMode != null && !studyMode.isEmpty()) {
+                fieldFilters.add(studyModePostings.getOrDefault(TextNormalizer.fold(studyMode), Set.of()));
+            }
+            if (level != null && !level.isEmpty()) {
+                fieldFilters.add(levelPostings.getOrDefault(TextNormalizer.fold(level), Set.of()));
+            }
+
+            Collection<Long> candidates = scores != null ? scores.keySet() : documents.keySet();
+            for (Set<Long> filter : fieldFilters) {
+                if (filter.size() < candidates.size()) {
+                    candidates = filter;
+                }
+            }
+
+            // 3. Lọc range (gpa, deadline, isPublic) và lấy top-k theo thứ tự yêu cầu
+            Comparator<Hit> order = comparator(pageable.getSort(), scores != null);
+            long limit = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : Long.MAX_VALUE;
+            PriorityQueue<Hit> top = new PriorityQueue<>(order.reversed());
+            long total = 0;
+
+            for (Long id : candidates) {
+                IndexedOpportunity doc = documents.get(id);
+                if (doc == null
+                        || (scores != null && !scores.containsKey(id))
+                        || !matchesFields(id, fieldFilters)
+                        || !doc.matches(gpa, publicOnly, dateToFilter)) {
+                    continue;
+                }
+                total++;
+                Hit hit = new Hit(doc, scores != null ? scores.get(id) : 0);
+                if (top.size() < limit) {
+                    top.add(hit);
+                } else if (order.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<Hit> sorted = new ArrayList<>(top);
+            sorted.sort(order);
+            int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), sorted.size()) : 0;
+            List<OpportunitySummaryDto> content = sorted.subList(from, sorted.size()).stream()
+                    .map(hit -> hit.doc.dto)
+                    .toList();
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> matchTerms(List<String> queryTerms) {
+        List<Map<Long, Integer>> perTerm = new ArrayList<>();
+        for (String term : new HashSet<>(queryTerms)) {
+            Map<Long, Integer> merged = new HashMap<>();
+            termPostings.subMap(term, true, term + Character.MAX_VALUE, false).values()
+                    .forEach(posting -> posting.forEach((id, w) -> merged.merge(id, w, Integer::sum)));
+            if (merged.isEmpty()) {
+                return Map.of();
+            }
+            perTerm.add(merged);
+        }
+        // Bắt đầu từ posting list ngắn nhất để giảm số phép giao
+        perTerm.sort(Comparator.comparingInt(Map::size));
+        Map<Long, Integer> result = new HashMap<>(perTerm.get(0));
+        for (int i = 1; i < perTerm.size() && !result.isEmpty(); i++) {
+            Map<Long, Integer> next = perTerm.get(i);
+            result.keySet().retainAll(next.keySet());
+            result.replaceAll((id, w) -> w + next.get(id));
+        }
+        return result;
+    }
+
+    private static boolean matchesFields(Long id, List<Set<Long>> fieldFilters) {
+        for (Set<Long> filter : fieldFilters) {
+            if (!filter.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Hit> comparator(Sort sort, boolean ranked) {
+        Comparator<Hit> result = null;
+        for (Sort.Order order : sort) {
+            Function<IndexedOpportunity, Comparable> key = SORTABLE.get(order.getProperty());
+            // Giống MySQL: NULL đứng đầu khi ASC, đứng cuối khi DESC
+            Comparator<Comparable> values = Comparator.nullsFirst(Comparator.naturalOrder());
+            if (order.isDescending()) {
+                values = values.reversed();
+            }
+            Comparator<Hit> next = Comparator.comparing(hit -> key.apply(hit.doc), values);
+            result = result == null ? next : result.thenComparing(next);
+        }
+        if (ranked) {
+            Comparator<Hit> byScore = Comparator.comparingInt((Hit hit) -> hit.score).reversed();
+            result = result == null ? byScore : result.thenComparing(byScore);
+        }
+        Comparator<Hit> byId = Comparator.comparing(hit -> hit.doc.id);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Hit(IndexedOpportunity doc, int score) {
+    }
+
+    /**
+     * Snapshot bất biến của một cơ hội trong index (DTO trả về + các trường dùng để lọc).
+     */
+    private static final class IndexedOpportunity {
+        final Long id;
+        final OpportunitySummaryDto dto;
+        final Map<String, Integer> termWeights;
+        final String studyMode;
+        final String level;
+        final BigDecimal minGpa;
+        final LocalDate applicationDeadline;
+        final LocalDateTime createdAt;
+        final boolean isPublic;
+
+        private IndexedOpportunity(Opportunity opp) {
+            this.id = opp.getId();
+            this.dto = OpportunitySummaryDto.fromEntity(opp);
+            this.studyMode = opp.getStudyMode() != null ? TextNormalizer.fold(opp.getStudyMode()) : null;
+            this.level = opp.getLevel() != null ? TextNormalizer.fold(opp.getLevel()) : null;
+            this.minGpa = opp.getMinGpa();
+            this.applicationDeadline = opp.getApplicationDeadline();
+            this.createdAt = opp.getCreatedAt();
+            this.isPublic = Boolean.TRUE.equals(opp.getIsPublic());
+
+            Map<String, Integer> weights = new HashMap<>();
+            TextNormalizer.tokenize(opp.getTitle()).forEach(t -> weights.merge(t, TITLE_WEIGHT, Integer::sum));
+            TextNormalizer.tokenize(opp.getFullDescription()).forEach(t -> weights.merge(t, DESCRIPTION_WEIGHT, Integer::sum));
+            this.termWeights = Collections.unmodifiableMap(weights);
+        }
+
+        static IndexedOpportunity of(Opportunity opp) {
+            return new IndexedOpportunity(opp);
+        }
+
+        boolean matches(BigDecimal gpa, boolean publicOnly, LocalDate dateToFilter) {
+            if (publicOnly && !isPublic) {
+                return false;
+            }
+            // deadline NULL không thỏa điều kiện >= (giống SQL)
+            if (applicationDeadline == null || applicationDeadline.isBefore(dateToFilter)) {
+                return false;
+            }
+            return gpa == null || minGpa == null || minGpa.compareTo(gpa) <= 0;
+        }
+    }
+}
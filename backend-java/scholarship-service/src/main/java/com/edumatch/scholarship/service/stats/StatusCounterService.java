@@ -0,0 +1,115 @@
+package com.edumatch.scholarship.service.stats;
+
+import com.edumatch.scholarship.repository.ApplicationRepository;
+import com.edumatch.scholarship.repository.OpportunityRepository;
+import com.edumatch.scholarship.service.support.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đếm theo trạng thái cho dashboard admin (thay cho findAll() + filter trong getStats).
+ *
+ * - Các service gọi opportunityStatusChanged/applicationStatusChanged trong transaction đổi trạng thái,
+ *   delta chỉ được áp vào bộ đếm sau khi commit.
+ * - Định kỳ đối soát lại bằng GROUP BY để sửa sai lệch (ví dụ dữ liệu sửa tay trong DB).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatusCounterService {
+
+    private final OpportunityRepository opportunityRepository;
+    private final ApplicationRepository applicationRepository;
+
+    private final Map<String, AtomicLong> opportunityCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> applicationCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Ghi nhận opportunity đổi trạng thái. from = null khi tạo mới, to = null khi xóa.
+     */
+    public void opportunityStatusChanged(String from, String to) {
+        TransactionHooks.afterCommit(() -> move(opportunityCounts, from, to, 1));
+    }
+
+    /**
+     * Ghi nhận application đổi trạng thái. from = null khi tạo mới, to = null khi xóa.
+     */
+    public void applicationStatusChanged(String from, String to) {
+        applicationStatusChanged(from, to, 1);
+    }
+
+    public void applicationStatusChanged(String from, String to, long count) {
+        TransactionHooks.afterCommit(() -> move(applicationCounts, from, to, count));
+    }
+
+    private static void move(Map<String, AtomicLong> counts, String from, String to, long count) {
+        if (from != null && from.equals(to)) {
+            return;
+        }
+        if (from != null) {
+            counts.computeIfAbsent(from, k -> new AtomicLong()).addAndGet(-count);
+        }
+        if (to != null) {
+            counts.computeIfAbsent(to, k -> new AtomicLong()).addAndGet(count);
+        }
+    }
+
+    public long opportunityCount(String status) {
+        AtomicLong value = opportunityCounts.get(status);
+        return value != null ? value.get() : 0L;
+    }
+
+    public long applicationCount(String status) {
+        AtomicLong value = applicationCounts.get(status);
+        return value != null ? value.get() : 0L;
+    }
+
+    public long totalOpportunities() {
+        return opportunityCounts.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public long totalApplications() {
+        return applicationCounts.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    /**
+     * Đối soát với DB: nạp lần đầu khi khởi động và chạy định kỳ.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            replace(opportunityCounts, opportunityRepository.countGroupByModerationStatus(), "opportunity");
+            replace(applicationCounts, applicationRepository.countGroupByStatus(), "application");
+        } catch (Exception e) {
+            log.warn("Không thể đối soát bộ đếm thống kê: {}", e.getMessage());
+        }
+    }
+
+    private static void replace(Map<String, AtomicLong> counts, List<Object[]> rows, String name) {
+        Map<String, Long> fresh = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                fresh.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        counts.forEach((status, value) -> {
+            long expected = fresh.getOrDefault(status, 0L);
+            long actual = value.getAndSet(expected);
+            if (actual != expected) {
+                log.debug("Đối soát {} [{}]: {} -> {}", name, status, actual, expected);
+            }
+        });
+        fresh.forEach((status, value) -> counts.computeIfAbsent(status, k -> new AtomicLong(value)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.edumatch.scholarship.service.views;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đệm write-behind cho lượt xem (POST /api/scholarships/{id}/view).
+ *
+ * Mỗi opportunity có một LongAdder (striped, không khóa); định kỳ cộng dồn các delta
+ * và ghi bằng một JDBC batch "views_cnt = views_cnt + ?" thay vì findById + save mỗi lượt xem.
+ * Delta chưa ghi được flush khi shutdown.
+ */
+@Component
+@Slf4j
+public class ViewCountBuffer {
+
+    private static final String UPDATE_SQL =
+            "UPDATE opportunities SET views_cnt = COALESCE(views_cnt, 0) + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public ViewCountBuffer(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("scholarship.views.pending", this, ViewCountBuffer::pendingIncrements)
+                .description("Số lượt xem đang chờ ghi xuống DB")
+                .register(meterRegistry);
+    }
+
+    public void increment(Long opportunityId) {
+        pending.computeIfAbsent(opportunityId, id -> new LongAdder()).increment();
+    }
+
+    public long pendingIncrements() {
+        return pending.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        // sumThenReset reset từng cell bằng getAndSet nên không mất lượt xem đến đồng thời;
+        // lượt xem đến sau khi đọc sẽ nằm lại cho lần flush kế tiếp.
+        pending.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                batch.add(new Object[]{delta, id});
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            log.debug("Đã flush lượt xem cho {} cơ hội", batch.size());
+        } catch (Exception e) {
+            // Trả delta lại bộ đệm để thử lại ở lần sau
+            log.warn("Không thể flush lượt xem ({} cơ hội): {}", batch.size(), e.getMessage());
+            for (Object[] row : batch) {
+                pending.computeIfAbsent((Long) row[1], id -> new LongAdder()).add((Long) row[0]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        log.info("Flush {} lượt xem còn lại trước khi tắt service", pendingIncrements());
+        flush();
+    }
+}
@@ -0,0 +1,105 @@
+package com.edumatch.scholarship.service;
+
+import com.edumatch.scholarship.dto.ApplicationDto;
+import com.edumatch.scholarship.model.Application;
+import com.edumatch.scholarship.model.ApplicationDocument;
+import com.edumatch.scholarship.model.Opportunity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Số statement khi dựng ApplicationDto không tăng theo kích thước trang
+ * (1 query tài liệu + 1 query title, bất kể bao nhiêu đơn).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@Import(ApplicationDtoAssembler.class)
+class ApplicationDtoAssemblerTest {
+
+    @Autowired
+    private ApplicationDtoAssembler assembler;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statementCountStaysConstantAsPageGrows() {
+        List<Application> small = persistApplications(5);
+        List<Application> large = persistApplications(200);
+
+        long smallStatements = countStatements(small);
+        long largeStatements = countStatements(large);
+
+        assertThat(smallStatements).isEqualTo(2);
+        assertThat(largeStatements).isEqualTo(smallStatements);
+    }
+
+    @Test
+    void documentsAndTitlesAreAssembledPerApplication() {
+        List<Application> applications = persistApplications(3);
+        entityManager.clear();
+
+        List<ApplicationDto> dtos = assembler.toDtos(applications, true);
+
+        assertThat(dtos).hasSize(3);
+        for (int i = 0; i < dtos.size(); i++) {
+            ApplicationDto dto = dtos.get(i);
+            assertThat(dto.getId()).isEqualTo(applications.get(i).getId());
+            assertThat(dto.getDocuments()).hasSize(2);
+            assertThat(dto.getOpportunityTitle()).startsWith("Học bổng ");
+        }
+    }
+
+    private long countStatements(List<Application> applications) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assembler.toDtos(applications, true);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Application> persistApplications(int count) {
+        List<Application> applications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Opportunity opportunity = Opportunity.builder()
+                    .title("Học bổng " + i)
+                    .creatorUserId(1L)
+                    .organizationId(1L)
+                    .build();
+            entityManager.persist(opportunity);
+
+            Application application = new Application();
+            application.setApplicantUserId(100L + i);
+            application.setOpportunityId(opportunity.getId());
+            application.setStatus("PENDING");
+            entityManager.persist(application);
+            applications.add(application);
+
+            for (int d = 0; d < 2; d++) {
+                ApplicationDocument document = new ApplicationDocument();
+                document.setApplicationId(application.getId());
+                document.setDocumentName("doc-" + d + ".pdf");
+                document.setDocumentUrl("https://files.example/" + i + "/" + d);
+                entityManager.persist(document);
+            }
+        }
+        entityManager.flush();
+        return applications;
+    }
+}
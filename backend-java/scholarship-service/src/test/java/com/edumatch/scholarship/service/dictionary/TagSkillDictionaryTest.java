@@ -0,0 +1,100 @@
+package com.edumatch.scholarship.service.dictionary;
+
+import com.edumatch.scholarship.exception.BadRequestException;
+import com.edumatch.scholarship.model.Tag;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tên đã biết không tốn statement nào khi resolve; chỉ tên mới đi qua INSERT IGNORE + SELECT IN.
+ * Statistics của Hibernate chỉ đếm statement JPA; batch INSERT IGNORE (JdbcTemplate) được kiểm qua spy.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dictionary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(TagSkillDictionary.class)
+class TagSkillDictionaryTest {
+
+    @Autowired
+    private TagSkillDictionary dictionary;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.persist(new Tag(null, "Java", null));
+        entityManager.persist(new Tag(null, "Spring Boot", null));
+        entityManager.flush();
+        dictionary.warmUp();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        clearInvocations(jdbcTemplate);
+    }
+
+    @Test
+    void knownNamesResolveToReferencesWithoutStatements() {
+        Set<Tag> tags = dictionary.resolveTags(List.of(" java", "SPRING   boot", "Java"));
+
+        assertThat(tags).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        // Đọc name: các reference được nạp gộp trong một query
+        assertThat(tags).extracting(Tag::getName).containsExactlyInAnyOrder("Java", "Spring Boot");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyNewNamesAreInsertedAndQueried() {
+        Set<Tag> tags = dictionary.resolveTags(List.of("Java", "Kotlin", "Go"));
+
+        // 1 batch INSERT IGNORE + 1 SELECT IN cho "Kotlin", "Go"
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(tags).hasSize(3);
+        assertThat(tags).extracting(Tag::getId).doesNotContainNull();
+    }
+
+    @Test
+    void tooLongNameIsRejectedBeforeAnyStatement() {
+        String tooLong = "x".repeat(TagSkillDictionary.NAME_MAX_LENGTH + 1);
+
+        assertThatThrownBy(() -> dictionary.resolveTags(List.of("Kotlin", tooLong)))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+}
@@ -0,0 +1,162 @@
+package com.edumatch.scholarship.service.search;
+
+import com.edumatch.scholarship.dto.OpportunitySummaryDto;
+import com.edumatch.scholarship.model.Opportunity;
+import com.edumatch.scholarship.repository.OpportunityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ngữ nghĩa tìm kiếm của index trong bộ nhớ: bỏ dấu, khớp tiền tố, giao posting list,
+ * và thay đổi commit trong lúc rebuild không bị mất khi swap.
+ */
+class OpportunitySearchIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    private final OpportunityRepository repository = mock(OpportunityRepository.class);
+    private final OpportunitySearchIndex index = new OpportunitySearchIndex(repository, mock(PlatformTransactionManager.class));
+
+    // "DB" mà rebuild đọc: id -> cơ hội APPROVED
+    private final Map<Long, Opportunity> approved = new TreeMap<>();
+    private Runnable duringLoad;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "enabled", true);
+        when(repository.findIdsByModerationStatusAfter(eq("APPROVED"), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    if (duringLoad != null) {
+                        duringLoad.run();
+                        duringLoad = null;
+                    }
+                    Long afterId = invocation.getArgument(1);
+                    return approved.keySet().stream().filter(id -> id > afterId).toList();
+                });
+        when(repository.findWithSkillsByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(approved::get).toList();
+        });
+    }
+
+    @Test
+    void keywordMatchesIgnoringVietnameseDiacritics() {
+        load(opportunity(1L, "Học bổng Thạc sĩ Đức", "Dành cho sinh viên ngành kỹ thuật"));
+
+        assertThat(ids(search("hoc bong duc"))).containsExactly(1L);
+        assertThat(ids(search("HỌC BỔNG"))).containsExactly(1L);
+        assertThat(ids(search("ky thuat"))).containsExactly(1L);
+    }
+
+    @Test
+    void everyKeywordMustMatch() {
+        load(opportunity(1L, "Học bổng Nhật Bản", "Toàn phần"),
+                opportunity(2L, "Học bổng Hàn Quốc", "Toàn phần"),
+                opportunity(3L, "Thực tập Nhật Bản", "Bán phần"));
+
+        assertThat(ids(search("hoc bong"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(search("hoc bong nhat"))).containsExactly(1L);
+        assertThat(ids(search("nhat ban phan"))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids(search("hoc bong my"))).isEmpty();
+    }
+
+    @Test
+    void keywordMatchesByPrefix() {
+        load(opportunity(1L, "Scholarship for engineering", "Full tuition"),
+                opportunity(2L, "Engine maintenance internship", "Paid"));
+
+        assertThat(ids(search("engin"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(search("engineer"))).containsExactly(1L);
+        assertThat(ids(search("tui"))).containsExactly(1L);
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        load(opportunity(1L, "Internship", "Mentoring for data science students"),
+                opportunity(2L, "Data science scholarship", "Full tuition"));
+
+        assertThat(ids(search("data"))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void keywordWithoutAnyTokenMatchesNothing() {
+        load(opportunity(1L, "Học bổng", "Toàn phần"));
+
+        assertThat(search("!!!").getContent()).isEmpty();
+        assertThat(search("!!!").getTotalElements()).isZero();
+        // Từ khóa rỗng/null vẫn là "không lọc theo từ khóa"
+        assertThat(ids(search(" "))).containsExactly(1L);
+        assertThat(ids(search(null))).containsExactly(1L);
+    }
+
+    @Test
+    void changesCommittedDuringRebuildAreReplayedAfterSwap() {
+        load(opportunity(1L, "Học bổng cũ", "Sắp bị gỡ"), opportunity(2L, "Học bổng giữ lại", "Không đổi"));
+
+        // Trong lúc rebuild đang đọc DB (snapshot vẫn còn cơ hội 1), một instance khác gỡ cơ hội 1
+        // và duyệt cơ hội 3; snapshot của rebuild không thấy cơ hội 3
+        Opportunity added = opportunity(3L, "Học bổng mới duyệt", "Vừa được duyệt");
+        duringLoad = () -> {
+            index.onOpportunityDeleted(1L);
+            index.onOpportunitySaved(added);
+        };
+        index.rebuild();
+
+        assertThat(ids(search("hoc bong"))).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private void load(Opportunity... opportunities) {
+        for (Opportunity opportunity : opportunities) {
+            approved.put(opportunity.getId(), opportunity);
+        }
+        index.rebuild();
+    }
+
+    private Page<OpportunitySummaryDto> search(String keyword) {
+        return index.search(keyword, null, null, null, true, TODAY, PAGE);
+    }
+
+    private static List<Long> ids(Page<OpportunitySummaryDto> page) {
+        List<Long> ids = new ArrayList<>();
+        page.getContent().forEach(dto -> ids.add(dto.getId()));
+        return ids;
+    }
+
+    private static Opportunity opportunity(Long id, String title, String description) {
+        return Opportunity.builder()
+                .id(id)
+                .title(title)
+                .fullDescription(description)
+                .applicationDeadline(TODAY.plusMonths(1))
+                .isPublic(true)
+                .moderationStatus("APPROVED")
+                .viewsCnt(0)
+                .tags(Set.of())
+                .requiredSkills(Set.of())
+                .createdAt(LocalDateTime.of(2025, 12, 1, 0, 0))
+                .build();
+    }
+}
@@ -161,10 +161,13 @@ export default function EditScholarshipPage() {
           return;
         }
 
+        // List API only returns a description excerpt; load the full text from the detail API
+        const detail = await scholarshipServiceApi.getScholarshipById(scholarshipId);
+
         // Map API data to form
         setFormData({
           title: scholarship.title || '',
-          fullDescription: scholarship.description || '',
+          fullDescription: detail.opportunity.description || '',
           applicationDeadline: scholarship.applicationDeadline || '',
           startDate: scholarship.startDate || '',
           endDate: scholarship.endDate || '',
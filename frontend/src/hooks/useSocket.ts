@@ -78,6 +78,11 @@ export function useSocket(userId?: string, userRole?: string, userName?: string)
       client.subscribe(`/topic/notifications/${userId}`, (message: any) => {
         try {
           const body = JSON.parse(message.body);
+          // Cập nhật số thông báo chưa đọc (không phải thông báo mới)
+          if (body.type === 'UNREAD_COUNT') {
+            trigger('unread_count', body);
+            return;
+          }
           console.log('🔔 Received notification:', body);
           trigger('notification', body);
         } catch (e) {
@@ -67,6 +67,7 @@ export function RealTimeProvider({ children, enabled = true }: RealTimeProviderP
     notifications, 
     unreadCount, 
     addNotification, 
+    setUnreadCount,
     markAsRead: storeMarkNotificationsAsRead,
     markAllAsRead: storeMarkAllAsRead 
   } = useNotificationStore();
@@ -158,6 +159,11 @@ export function RealTimeProvider({ children, enabled = true }: RealTimeProviderP
       console.log('🔔 [RealTimeProvider] Notification opportunityTitle:', (notification as any).opportunityTitle);
       
       addNotification(notification);
+      // Badge lấy theo số của server (store chỉ giữ 50 thông báo gần nhất)
+      const serverUnread = (notification as any).unreadCount;
+      if (typeof serverUnread === 'number') {
+        setUnreadCount(serverUnread);
+      }
       
       // Show toast
       const notifType = (notification as any).type;
@@ -191,6 +197,11 @@ export function RealTimeProvider({ children, enabled = true }: RealTimeProviderP
       }
     });
 
+    // Số chưa đọc thay đổi (đánh dấu đã đọc ở tab/thiết bị khác...)
+    socket.on('unread_count', ({ unreadCount: count }) => {
+      setUnreadCount(count);
+    });
+
     // Typing events
     socket.on('typing', ({ userId: typingUserId, roomId, isTyping }) => {
       if (typingUserId !== user?.id) {
@@ -205,9 +216,10 @@ export function RealTimeProvider({ children, enabled = true }: RealTimeProviderP
       (socket as any).off('online_users');
       socket.off('message');
       socket.off('notification');
+      socket.off('unread_count');
       socket.off('typing');
     };
-  }, [socket.isConnected, isAuthenticated, enabled, user?.id, activeRoom, addMessage, addNotification, setTyping]);
+  }, [socket.isConnected, isAuthenticated, enabled, user?.id, activeRoom, addMessage, addNotification, setUnreadCount, setTyping]);
 
   // Helper functions
   // DEPRECATED: This sendMessage function is for old Socket.IO implementation
@@ -15,6 +15,7 @@ interface NotificationState {
   notifications: Notification[];
   unreadCount: number;
   addNotification: (notification: Notification) => void;
+  setUnreadCount: (count: number) => void;
   markAsRead: (notificationIds: string[]) => void;
   markAllAsRead: () => void;
   removeNotification: (id: string) => void;
@@ -62,6 +63,9 @@ export const useNotificationStore = create<NotificationState>()(
         unreadCount
       };
     }),
+
+    // Số chưa đọc do server tính (UNREAD_COUNT / unreadCount trong payload thông báo)
+    setUnreadCount: (count) => set({ unreadCount: Math.max(0, count) }),
     
     markAsRead: (notificationIds) => set((state) => {
       const notifications = state.notifications.map(n => 
@@ -90,6 +90,7 @@ export interface SocketEvents {
   
   // Server -> Client
   notification: (notification: Notification) => void;
+  unread_count: (data: { type: 'UNREAD_COUNT'; unreadCount: number }) => void;
   message: (message: Message) => void;
   application_status_update: (status: ApplicationStatus) => void;
   dashboard_stats_update: (stats: DashboardStats) => void;